@@ -5,6 +5,7 @@ import duke.command.Command;
 import duke.exception.DukeException;
 import duke.parser.Parser;
 import duke.storage.Storage;
+import duke.task.DescriptionPool;
 import duke.task.TaskManager;
 import duke.ui.Ui;
 import javafx.util.Pair;
@@ -36,9 +37,7 @@ public class Duke {
      * Constructor method for Duke class.
      */
     public Duke() {
-        this.ui = new Ui();
-        this.storage = new Storage("data/tasks.txt");
-        this.taskManager = new TaskManager(storage.load());
+        this("data/tasks.txt");
     }
 
     /**
@@ -46,9 +45,19 @@ public class Duke {
      * @param filepath Path to file.
      */
     public Duke(String filepath) {
+        this(new Storage(filepath));
+    }
+
+    /**
+     * Represents a constructor method for Duke class that keeps the tasks in the given storage.
+     * @param storage Storage that has not been loaded yet.
+     */
+    public Duke(Storage storage) {
         this.ui = new Ui();
-        this.storage = new Storage(filepath);
-        this.taskManager = new TaskManager(storage.load());
+        this.storage = storage;
+        this.taskManager = new TaskManager();
+        DescriptionPool.resetStats();
+        storage.load(taskManager);
     }
 
     /**
@@ -59,12 +68,20 @@ public class Duke {
         return this.ui;
     }
 
+    /**
+     * Gets the greeting shown when Duke starts, which also says if any saved tasks could not be loaded.
+     * @return Greeting message.
+     */
+    public String getWelcomeMessage() {
+        return ui.getWelcomeMessage(storage.getBadLineCount());
+    }
+
     /**
      * Runs the duke program.
      */
     public void run() {
         ui.showLine(); // show the divider line ("_______")
-        System.out.println(ui.getWelcomeMessage());
+        System.out.println(getWelcomeMessage());
         ui.showLine();
         boolean isExit = false;
         while (!isExit) {
@@ -72,8 +89,25 @@ public class Duke {
                 String fullCommand = ui.readCommand();
                 ui.showLine(); // show the divider line ("_______")
                 Command c = Parser.parse(fullCommand);
-                String s = c.execute(taskManager, ui, storage);
-                System.out.println(s);
+                if (c instanceof Command.ReadOnlyCommand) {
+                    // A snapshot needs no lock, so a reload from the storage does not hold it up.
+                    ((Command.ReadOnlyCommand) c).execute(taskManager.snapshot(), ui, System.out);
+                } else {
+                    StringBuilder message = new StringBuilder();
+                    // The storage may reload the task manager from another thread.
+                    synchronized (taskManager) {
+                        c.execute(taskManager, ui, storage, message);
+                    }
+                    // The change is acknowledged without waiting for the disk, so that the journal can force
+                    // a burst of commands together; closing the storage forces whatever is left.
+                    System.out.print(message);
+                }
+                if (c.isExit()) {
+                    // Closing waits for a reload in progress, which needs the task manager, so the task
+                    // manager must not be held here.
+                    storage.close();
+                }
+                System.out.println();
                 isExit = c.isExit();
             } catch (DukeException e) {
                 ui.showError(e.toString());
@@ -105,7 +139,19 @@ public class Duke {
     Pair<String, Boolean> getResponse(String input) {
         try {
             Command c = Parser.parse(input);
-            return new Pair<>(c.execute(taskManager, ui, storage), c.isExit());
+            if (c instanceof Command.ReadOnlyCommand) {
+                StringBuilder message = new StringBuilder();
+                ((Command.ReadOnlyCommand) c).execute(taskManager.snapshot(), ui, message);
+                return new Pair<>(message.toString(), c.isExit());
+            }
+            String message;
+            synchronized (taskManager) {
+                message = c.execute(taskManager, ui, storage);
+            }
+            if (c.isExit()) {
+                storage.close();
+            }
+            return new Pair<>(message, c.isExit());
         } catch (DukeException | IOException e) {
             return new Pair<>(e.toString(), false);
         }
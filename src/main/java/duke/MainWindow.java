@@ -35,7 +35,7 @@ public class MainWindow extends AnchorPane {
     public void setDuke(Duke d) {
         duke = d;
         dialogContainer.getChildren().addAll(
-                DialogBox.getDukeDialog(duke.getUi().getWelcomeMessage(), dukeImage)
+                DialogBox.getDukeDialog(duke.getWelcomeMessage(), dukeImage)
         );
     }
 
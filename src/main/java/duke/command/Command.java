@@ -2,11 +2,16 @@ package duke.command;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
 import duke.exception.DukeException;
 import duke.storage.Storage;
+import duke.task.Query;
 import duke.task.Task;
 import duke.task.TaskManager;
+import duke.task.TaskSnapshot;
 import duke.ui.Ui;
 
 
@@ -29,13 +34,40 @@ public abstract class Command {
     public enum ActionKeywords {
         DEADLINE,
         DELETE,
+        DELETE_MANY,
+        DUE,
         EVENT,
+        EVENTS,
         FIND,
+        FUZZY_FIND,
         LIST,
         MARK,
+        MARK_MANY,
+        QUERY,
+        QUERY_PLAN,
+        REDO,
         REMIND,
+        STATS,
         TODO,
+        UNDO,
         UNMARK,
+        UNMARK_MANY,
+    }
+
+    /**
+     * Represents a command that only reads the tasks, so that it can run on a snapshot of them.
+     */
+    public interface ReadOnlyCommand {
+
+        /**
+         * Executes the command on a snapshot of the tasks, writing the message to a destination. This takes
+         * no lock, so the storage can reload the tasks meanwhile.
+         * @param tasks Snapshot of the tasks.
+         * @param ui User interface being used.
+         * @param out Destination of the message.
+         * @throws IOException If the destination cannot be written to.
+         */
+        void execute(TaskSnapshot tasks, Ui ui, Appendable out) throws IOException;
     }
 
     /**
@@ -75,15 +107,24 @@ public abstract class Command {
         case "mark":
         case "unmark":
         case "find":
+        case "due":
+        case "events":
+        case "query":
             throw new DukeException(keyword);
         case "list":
-            return new ListCommand();
+            return new ListCommand(0, Integer.MAX_VALUE);
         case "bye":
             return new ExitCommand();
         case "reminders":
-            return new RemindCommand();
+            return new RemindCommand(Integer.MAX_VALUE);
+        case "stats":
+            return new StatsCommand();
+        case "undo":
+            return new UndoCommand();
+        case "redo":
+            return new RedoCommand();
         default:
-            throw new DukeException("unknown");
+            throw new DukeException(keyword.startsWith("find~") ? "find" : "unknown");
         }
     }
 
@@ -123,6 +164,9 @@ public abstract class Command {
             }
         }
         case "delete":
+            if (Selection.checkIfSelection(s.substring(7))) {
+                return new BulkDeleteCommand(Selection.of(s.substring(7)));
+            }
             try {
                 int location = Integer.parseInt(s.substring(7)) - 1;
                 return new DeleteCommand(location);
@@ -130,6 +174,9 @@ public abstract class Command {
                 throw new DukeException("non integer input when deleting");
             }
         case "mark":
+            if (Selection.checkIfSelection(s.substring(5))) {
+                return new BulkMarkCommand(true, Selection.of(s.substring(5)));
+            }
             try {
                 int location = Integer.parseInt(s.substring(5)) - 1;
                 return new MarkCommand(true, location);
@@ -137,6 +184,9 @@ public abstract class Command {
                 throw new DukeException("non integer input when marking");
             }
         case "unmark":
+            if (Selection.checkIfSelection(s.substring(7))) {
+                return new BulkMarkCommand(false, Selection.of(s.substring(7)));
+            }
             try {
                 int location = Integer.parseInt(s.substring(7)) - 1;
                 return new MarkCommand(false, location);
@@ -146,11 +196,84 @@ public abstract class Command {
         case "find":
             String substring = s.substring(5);
             return new FindCommand(substring);
+        case "query":
+            try {
+                return new QueryCommand(Query.of(s.substring(6)));
+            } catch (IllegalArgumentException e) {
+                throw new DukeException("query format");
+            }
+        case "list":
+            try {
+                String[] tempSplit = s.substring(5).split(" ");
+                int offset = Integer.parseInt(tempSplit[0]);
+                int limit = tempSplit.length == 1 ? Integer.MAX_VALUE : Integer.parseInt(tempSplit[1]);
+                if (tempSplit.length > 2 || offset < 0 || limit < 0) {
+                    throw new DukeException("list format");
+                }
+                return new ListCommand(offset, limit);
+            } catch (NumberFormatException e) {
+                throw new DukeException("list format");
+            }
+        case "reminders":
+            try {
+                int limit = Integer.parseInt(s.substring(10));
+                if (limit < 0) {
+                    throw new DukeException("reminders format");
+                }
+                return new RemindCommand(limit);
+            } catch (NumberFormatException e) {
+                throw new DukeException("reminders format");
+            }
+        case "due":
+            try {
+                if (!s.startsWith("due before ")) {
+                    throw new DukeException("due format");
+                }
+                return new DueCommand(LocalDate.parse(s.substring(11)));
+            } catch (DateTimeParseException e) {
+                throw new DukeException("due format");
+            }
+        case "events": {
+            try {
+                String[] tempSplit = s.startsWith("events between ") ? s.substring(15).split(" and ") : new String[0];
+                if (tempSplit.length != 2) {
+                    throw new DukeException("events format");
+                } else {
+                    return new EventsCommand(LocalDate.parse(tempSplit[0]), LocalDate.parse(tempSplit[1]));
+                }
+            } catch (DateTimeParseException e) {
+                throw new DukeException("events format");
+            }
+        }
         default:
+            if (keyword.startsWith("find~")) {
+                return handleFuzzyFindCommand(keyword, s);
+            }
             throw new DukeException("unknown");
         }
     }
 
+    /**
+     * Constructs a Fuzzy Find Command, given as "find~ words" or, with the largest edit distance of each
+     * word, as "find~k words".
+     * @param keyword First word given by user.
+     * @param s Full command given by user.
+     * @return Command.
+     * @throws DukeException If the edit distance is not a non-negative integer.
+     */
+    private static Command handleFuzzyFindCommand(String keyword, String s) throws DukeException {
+        String distance = keyword.substring(5);
+        try {
+            int maxDistance = distance.isEmpty() ? -1 : Integer.parseInt(distance);
+            if (!distance.isEmpty() && maxDistance < 0) {
+                throw new DukeException("fuzzy find format");
+            }
+            return new FuzzyFindCommand(s.substring(keyword.length() + 1), maxDistance);
+        } catch (NumberFormatException e) {
+            throw new DukeException("fuzzy find format");
+        }
+    }
+
     /**
      * Represents an Add Command class.
      */
@@ -189,24 +312,101 @@ public abstract class Command {
          * @param ui User interface being used.
          * @param storage Storage where text is stored.
          * @return Message.
+         * @throws IOException If the change cannot be saved.
          */
         @Override
-        public String execute(TaskManager tasks, Ui ui, Storage storage) {
+        public String execute(TaskManager tasks, Ui ui, Storage storage) throws IOException {
+            Task task = Task.of(taskType, toDo, date);
+            tasks.addTask(task);
+            storage.save(tasks.takeChanges());
+            ActionKeywords keyword;
             if (taskType == Task.TaskType.TODO) {
-                Task task = Task.of(Task.TaskType.TODO, toDo);
-                tasks.addTask(task);
-                return ui.sendAndReturnMessage(ActionKeywords.TODO, task, String.valueOf(tasks.getNumberOfTasks()));
+                keyword = ActionKeywords.TODO;
             } else if (taskType == Task.TaskType.DEADLINE) {
-                Task task = Task.of(Task.TaskType.DEADLINE, toDo + " /by " + date);
-                tasks.addTask(task);
-                return ui.sendAndReturnMessage(ActionKeywords.DEADLINE, task, String.valueOf(tasks.getNumberOfTasks()));
-            } else if (taskType == Task.TaskType.EVENT) {
-                Task task = Task.of(Task.TaskType.EVENT, toDo + " /at " + date);
-                tasks.addTask(task);
-                return ui.sendAndReturnMessage(ActionKeywords.EVENT, task, String.valueOf(tasks.getNumberOfTasks()));
+                keyword = ActionKeywords.DEADLINE;
             } else {
-                return null;
+                keyword = ActionKeywords.EVENT;
             }
+            return ui.sendAndReturnMessage(keyword, task, String.valueOf(tasks.getNumberOfTasks()));
+        }
+    }
+
+    /**
+     * Represents a Bulk Delete Command class, which deletes several tasks as one batch.
+     */
+    public static class BulkDeleteCommand extends Command {
+
+        /**
+         * Represents the tasks to be deleted.
+         */
+        private final Selection selection;
+
+        /**
+         * Creates Bulk Delete Command through a constructor method.
+         * @param selection Tasks to be deleted.
+         */
+        public BulkDeleteCommand(Selection selection) {
+            this.selection = selection;
+        }
+
+        /**
+         * Executes task.
+         * @param tasks List of tasks.
+         * @param ui User interface being used.
+         * @param storage Storage where text is stored.
+         * @return Message.
+         * @throws DukeException If an index is out of bounds.
+         * @throws IOException If the change cannot be saved.
+         */
+        @Override
+        public String execute(TaskManager tasks, Ui ui, Storage storage) throws DukeException, IOException {
+            List<Task> removed = tasks.removeTasks(selection.resolve(tasks));
+            storage.save(tasks.takeChanges());
+            return ui.sendAndReturnMessage(ActionKeywords.DELETE_MANY, null,
+                    String.valueOf(tasks.getNumberOfTasks()), String.valueOf(removed.size()));
+        }
+    }
+
+    /**
+     * Represents a Bulk Mark Command class, which marks or unmarks several tasks as one batch.
+     */
+    public static class BulkMarkCommand extends Command {
+
+        /**
+         * Represents whether the tasks are completed.
+         */
+        private final boolean isCompleted;
+
+        /**
+         * Represents the tasks to be marked.
+         */
+        private final Selection selection;
+
+        /**
+         * Creates a Bulk Mark Command class through a constructor method.
+         * @param isCompleted Whether the tasks are completed.
+         * @param selection Tasks to be marked.
+         */
+        public BulkMarkCommand(boolean isCompleted, Selection selection) {
+            this.isCompleted = isCompleted;
+            this.selection = selection;
+        }
+
+        /**
+         * Executes task.
+         * @param tasks List of tasks.
+         * @param ui User interface being used.
+         * @param storage Storage where text is stored.
+         * @return Message.
+         * @throws DukeException If an index is out of bounds.
+         * @throws IOException If the change cannot be saved.
+         */
+        @Override
+        public String execute(TaskManager tasks, Ui ui, Storage storage) throws DukeException, IOException {
+            int changed = tasks.markTasks(selection.resolve(tasks), isCompleted);
+            storage.save(tasks.takeChanges());
+            return ui.sendAndReturnMessage(isCompleted ? ActionKeywords.MARK_MANY : ActionKeywords.UNMARK_MANY,
+                    null, String.valueOf(changed));
         }
     }
 
@@ -235,11 +435,13 @@ public abstract class Command {
          * @param storage Storage where text is stored.
          * @return Message.
          * @throws DukeException If index is out of bounds.
+         * @throws IOException If the change cannot be saved.
          */
         @Override
-        public String execute(TaskManager tasks, Ui ui, Storage storage) throws DukeException {
+        public String execute(TaskManager tasks, Ui ui, Storage storage) throws DukeException, IOException {
             try {
                 Task task = tasks.removeTask(location);
+                storage.save(tasks.takeChanges());
                 return ui.sendAndReturnMessage(ActionKeywords.DELETE, task, String.valueOf(tasks.getNumberOfTasks()));
             } catch (IndexOutOfBoundsException e) {
                 throw new DukeException("index out of bounds");
@@ -248,6 +450,77 @@ public abstract class Command {
 
     }
 
+    /**
+     * Represents a Due Command class.
+     */
+    public static class DueCommand extends Command {
+
+        /**
+         * Represents the date the deadlines are due before.
+         */
+        private final LocalDate date;
+
+        /**
+         * Creates Due Command through a constructor method.
+         * @param date Date the deadlines are due before.
+         */
+        public DueCommand(LocalDate date) {
+            this.date = date;
+        }
+
+        /**
+         * Executes task.
+         * @param tasks List of tasks.
+         * @param ui User interface being used.
+         * @param storage Storage where text is stored.
+         * @return Message.
+         */
+        @Override
+        public String execute(TaskManager tasks, Ui ui, Storage storage) {
+            String res = tasks.findAndCraftDueBefore(date);
+            return ui.sendAndReturnMessage(ActionKeywords.DUE, null, "0", res);
+        }
+    }
+
+    /**
+     * Represents an Events Command class.
+     */
+    public static class EventsCommand extends Command {
+
+        /**
+         * Represents the first date of the range.
+         */
+        private final LocalDate from;
+
+        /**
+         * Represents the last date of the range.
+         */
+        private final LocalDate to;
+
+        /**
+         * Creates Events Command through a constructor method.
+         * @param from First date of the range.
+         * @param to Last date of the range.
+         */
+        public EventsCommand(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Executes task.
+         * @param tasks List of tasks.
+         * @param ui User interface being used.
+         * @param storage Storage where text is stored.
+         * @return Message.
+         */
+        @Override
+        public String execute(TaskManager tasks, Ui ui, Storage storage) {
+            String res = tasks.findAndCraftEventsBetween(from, to);
+            return ui.sendAndReturnMessage(ActionKeywords.EVENTS, null, "0", res);
+        }
+    }
+
     /**
      * Represents an Exit Command class.
      */
@@ -260,18 +533,15 @@ public abstract class Command {
         }
 
         /**
-         * Executes task.
+         * Executes task. The caller closes the storage once it no longer holds the task manager.
          * @param tasks List of tasks.
          * @param ui User interface being used.
          * @param storage Storage where text is stored.
          * @return Message.
-         * @throws IOException If there is such an exception.
          */
         @Override
-        public String execute(TaskManager tasks, Ui ui, Storage storage) throws IOException {
+        public String execute(TaskManager tasks, Ui ui, Storage storage) {
             this.isOngoing = false;
-            String message = tasks.craftTextMessageForFile();
-            storage.editStorage(message);
             return ui.getByeMessage();
         }
     }
@@ -279,7 +549,7 @@ public abstract class Command {
     /**
      * Represents a Final Command class.
      */
-    public static class FindCommand extends Command {
+    public static class FindCommand extends Command implements ReadOnlyCommand {
 
         /**
          * Represents string to be used to filter tasks.
@@ -305,6 +575,59 @@ public abstract class Command {
             String res = tasks.findAndCraftTaskList(this.s);
             return ui.sendAndReturnMessage(ActionKeywords.FIND, null, "0", res);
         }
+
+        /**
+         * Executes task on a snapshot of the tasks.
+         * @param tasks Snapshot of the tasks.
+         * @param ui User interface being used.
+         * @param out Destination of the message.
+         * @throws IOException If the destination cannot be written to.
+         */
+        @Override
+        public void execute(TaskSnapshot tasks, Ui ui, Appendable out) throws IOException {
+            String res = tasks.findAndCraftTaskList(this.s);
+            out.append(ui.sendAndReturnMessage(ActionKeywords.FIND, null, "0", res));
+        }
+    }
+
+    /**
+     * Represents a Fuzzy Find Command class, which finds tasks despite typos.
+     */
+    public static class FuzzyFindCommand extends Command {
+
+        /**
+         * Represents the words to be looked for.
+         */
+        private final String s;
+
+        /**
+         * Represents the largest edit distance of each word, or a negative number to allow more typos in
+         * longer words.
+         */
+        private final int maxDistance;
+
+        /**
+         * Creates a Fuzzy Find Command through a constructor method.
+         * @param s Words to be looked for.
+         * @param maxDistance Largest edit distance of each word, or a negative number for the default.
+         */
+        public FuzzyFindCommand(String s, int maxDistance) {
+            this.s = s;
+            this.maxDistance = maxDistance;
+        }
+
+        /**
+         * Executes task.
+         * @param tasks List of tasks.
+         * @param ui User interface being used.
+         * @param storage Storage where text is stored.
+         * @return Message.
+         */
+        @Override
+        public String execute(TaskManager tasks, Ui ui, Storage storage) {
+            String res = tasks.findAndCraftSimilarTaskList(this.s, this.maxDistance);
+            return ui.sendAndReturnMessage(ActionKeywords.FUZZY_FIND, null, "0", res);
+        }
     }
 
     /**
@@ -339,16 +662,19 @@ public abstract class Command {
          * @param storage Storage where text is stored.
          * @return Message.
          * @throws DukeException If it is found.
+         * @throws IOException If the change cannot be saved.
          */
         @Override
-        public String execute(TaskManager tasks, Ui ui, Storage storage) throws DukeException {
+        public String execute(TaskManager tasks, Ui ui, Storage storage) throws DukeException, IOException {
             try {
                 if (isCompleted) {
                     Task task = tasks.markTaskAsCompleted(location);
+                    storage.save(tasks.takeChanges());
                     return ui.sendAndReturnMessage(ActionKeywords.MARK, task,
                             String.valueOf(tasks.getNumberOfTasks()));
                 } else {
                     Task task = tasks.markTaskAsIncomplete(location);
+                    storage.save(tasks.takeChanges());
                     return ui.sendAndReturnMessage(ActionKeywords.UNMARK, task,
                             String.valueOf(tasks.getNumberOfTasks()));
                 }
@@ -362,12 +688,85 @@ public abstract class Command {
     /**
      * Represents a List Command class.
      */
-    public static class ListCommand extends Command {
+    public static class ListCommand extends Command implements ReadOnlyCommand {
+
+        /**
+         * Represents the number of tasks to skip.
+         */
+        private final int offset;
+
+        /**
+         * Represents the largest number of tasks to show.
+         */
+        private final int limit;
 
         /**
          * Creates a List Command class through a constructor method.
+         * @param offset Number of tasks to skip.
+         * @param limit Largest number of tasks to show.
          */
-        public ListCommand() {
+        public ListCommand(int offset, int limit) {
+            this.offset = offset;
+            this.limit = limit;
+        }
+
+        /**
+         * Executes task.
+         * @param tasks List of tasks.
+         * @param ui User interface being used.
+         * @param storage Storage where text is stored.
+         * @return Message.
+         * @throws IOException If there is such an exception.
+         */
+        @Override
+        public String execute(TaskManager tasks, Ui ui, Storage storage) throws IOException {
+            StringBuilder message = new StringBuilder();
+            execute(tasks, ui, storage, message);
+            return message.toString();
+        }
+
+        /**
+         * Executes task, writing the tasks one at a time instead of building the whole message.
+         * @param tasks List of tasks.
+         * @param ui User interface being used.
+         * @param storage Storage where text is stored.
+         * @param out Destination of the message.
+         * @throws IOException If the destination cannot be written to.
+         */
+        @Override
+        public void execute(TaskManager tasks, Ui ui, Storage storage, Appendable out) throws IOException {
+            ui.appendListMessage(out, tasks, offset, limit);
+        }
+
+        /**
+         * Executes task on a snapshot of the tasks, writing the tasks one at a time.
+         * @param tasks Snapshot of the tasks.
+         * @param ui User interface being used.
+         * @param out Destination of the message.
+         * @throws IOException If the destination cannot be written to.
+         */
+        @Override
+        public void execute(TaskSnapshot tasks, Ui ui, Appendable out) throws IOException {
+            ui.appendListMessage(out, tasks, offset, limit);
+        }
+    }
+
+    /**
+     * Represents a Query Command class.
+     */
+    public static class QueryCommand extends Command {
+
+        /**
+         * Represents the query.
+         */
+        private final Query query;
+
+        /**
+         * Creates a Query Command class through a constructor method.
+         * @param query Query.
+         */
+        public QueryCommand(Query query) {
+            this.query = query;
         }
 
         /**
@@ -379,21 +778,61 @@ public abstract class Command {
          */
         @Override
         public String execute(TaskManager tasks, Ui ui, Storage storage) {
-            String message = tasks.craftTaskString();
-            return ui.sendAndReturnMessage(ActionKeywords.LIST, null,
-                    String.valueOf(tasks.getNumberOfTasks()), message);
+            if (query.checkIfExplain()) {
+                return ui.sendAndReturnMessage(ActionKeywords.QUERY_PLAN, null, "0", tasks.explain(query));
+            }
+            String res = tasks.findAndCraftTaskList(query);
+            return ui.sendAndReturnMessage(ActionKeywords.QUERY, null, "0", res);
+        }
+    }
+
+    /**
+     * Represents a Redo Command class.
+     */
+    public static class RedoCommand extends Command {
+
+        /**
+         * Creates a Redo Command class through a constructor method.
+         */
+        public RedoCommand() {
+        }
+
+        /**
+         * Executes task.
+         * @param tasks List of tasks.
+         * @param ui User interface being used.
+         * @param storage Storage where text is stored.
+         * @return Message.
+         * @throws DukeException If there is nothing to redo.
+         * @throws IOException If the change cannot be saved.
+         */
+        @Override
+        public String execute(TaskManager tasks, Ui ui, Storage storage) throws DukeException, IOException {
+            int changed = tasks.redo();
+            if (changed == 0) {
+                throw new DukeException("nothing to redo");
+            }
+            storage.save(tasks.takeChanges());
+            return ui.sendAndReturnMessage(ActionKeywords.REDO, null, String.valueOf(changed));
         }
     }
 
     /**
      * Represents a Remind Command class.
      */
-    public static class RemindCommand extends Command {
+    public static class RemindCommand extends Command implements ReadOnlyCommand {
+
+        /**
+         * Represents the largest number of deadlines to show.
+         */
+        private final int limit;
 
         /**
          * Creates a Remind Command class through a constructor method.
+         * @param limit Largest number of deadlines to show, or {@link Integer#MAX_VALUE} for all of them.
          */
-        public RemindCommand() {
+        public RemindCommand(int limit) {
+            this.limit = limit;
         }
 
         /**
@@ -405,10 +844,178 @@ public abstract class Command {
          */
         @Override
         public String execute(TaskManager tasks, Ui ui, Storage storage) {
-            String message = tasks.craftRemindersString();
+            String message = limit == Integer.MAX_VALUE
+                    ? tasks.craftRemindersString()
+                    : tasks.craftRemindersString(limit);
             return ui.sendAndReturnMessage(ActionKeywords.REMIND, null,
                     String.valueOf(tasks.getNumberOfMatchingTasks(Task.TaskType.DEADLINE)), message);
         }
+
+        /**
+         * Executes task on a snapshot of the tasks.
+         * @param tasks Snapshot of the tasks.
+         * @param ui User interface being used.
+         * @param out Destination of the message.
+         * @throws IOException If the destination cannot be written to.
+         */
+        @Override
+        public void execute(TaskSnapshot tasks, Ui ui, Appendable out) throws IOException {
+            String message = limit == Integer.MAX_VALUE
+                    ? tasks.craftRemindersString()
+                    : tasks.craftRemindersString(limit);
+            out.append(ui.sendAndReturnMessage(ActionKeywords.REMIND, null,
+                    String.valueOf(tasks.getNumberOfMatchingTasks(Task.TaskType.DEADLINE)), message));
+        }
+    }
+
+    /**
+     * Represents a Stats Command class.
+     */
+    public static class StatsCommand extends Command {
+
+        /**
+         * Creates a Stats Command class through a constructor method.
+         */
+        public StatsCommand() {
+        }
+
+        /**
+         * Executes task.
+         * @param tasks list of tasks.
+         * @param ui User interface being used.
+         * @param storage Storage where text is stored.
+         * @return Message.
+         */
+        @Override
+        public String execute(TaskManager tasks, Ui ui, Storage storage) {
+            String message = tasks.craftStatsString();
+            return ui.sendAndReturnMessage(ActionKeywords.STATS, null,
+                    String.valueOf(tasks.getNumberOfTasks()), message);
+        }
+    }
+
+    /**
+     * Represents an Undo Command class.
+     */
+    public static class UndoCommand extends Command {
+
+        /**
+         * Creates an Undo Command class through a constructor method.
+         */
+        public UndoCommand() {
+        }
+
+        /**
+         * Executes task.
+         * @param tasks List of tasks.
+         * @param ui User interface being used.
+         * @param storage Storage where text is stored.
+         * @return Message.
+         * @throws DukeException If there is nothing to undo.
+         * @throws IOException If the change cannot be saved.
+         */
+        @Override
+        public String execute(TaskManager tasks, Ui ui, Storage storage) throws DukeException, IOException {
+            int changed = tasks.undo();
+            if (changed == 0) {
+                throw new DukeException("nothing to undo");
+            }
+            storage.save(tasks.takeChanges());
+            return ui.sendAndReturnMessage(ActionKeywords.UNDO, null, String.valueOf(changed));
+        }
+    }
+
+    /**
+     * Represents a selection of task numbers given by the user, such as {@code 3-500}, {@code 1,4,9-20}
+     * or {@code done}, which is turned into indexes when the command is executed.
+     */
+    public static class Selection {
+
+        /**
+         * Represents the word that selects every completed task.
+         */
+        private static final String DONE = "done";
+
+        /**
+         * Represents the ranges of indexes, each as its first index and the index after its last, or null
+         * if the completed tasks are selected.
+         */
+        private final int[][] ranges;
+
+        /**
+         * Creates a selection.
+         * @param ranges Ranges of indexes, or null for the completed tasks.
+         */
+        private Selection(int[][] ranges) {
+            this.ranges = ranges;
+        }
+
+        /**
+         * Checks if the task number given by the user selects several tasks rather than one.
+         * @param s Task number given by the user.
+         * @return Whether it is a range, a list or {@code done}.
+         */
+        public static boolean checkIfSelection(String s) {
+            return s.equals(DONE) || s.contains(",") || s.indexOf('-') > 0;
+        }
+
+        /**
+         * Creates a selection through a constructor method.
+         * @param s Comma-separated task numbers and ranges of task numbers counted from 1, or {@code done}.
+         * @return Selection.
+         * @throws DukeException If the selection is not formatted correctly.
+         */
+        public static Selection of(String s) throws DukeException {
+            if (s.equals(DONE)) {
+                return new Selection(null);
+            }
+            String[] parts = s.split(",", -1);
+            int[][] ranges = new int[parts.length][];
+            try {
+                for (int i = 0; i < parts.length; i++) {
+                    String[] bounds = parts[i].trim().split("-", -1);
+                    int first = Integer.parseInt(bounds[0]);
+                    int last = bounds.length == 1 ? first : Integer.parseInt(bounds[1]);
+                    if (bounds.length > 2 || first < 1 || last < first) {
+                        throw new DukeException("selection format");
+                    }
+                    ranges[i] = new int[] {first - 1, last};
+                }
+            } catch (NumberFormatException e) {
+                throw new DukeException("selection format");
+            }
+            return new Selection(ranges);
+        }
+
+        /**
+         * Turns the selection into indexes of the given task manager.
+         * @param tasks List of tasks.
+         * @return Indexes in increasing order without repeats.
+         * @throws DukeException If an index is out of bounds.
+         */
+        public int[] resolve(TaskManager tasks) throws DukeException {
+            if (ranges == null) {
+                return tasks.findCompletedLocations();
+            }
+            int[][] sorted = ranges.clone();
+            Arrays.sort(sorted, Comparator.comparingInt(range -> range[0]));
+            long total = 0;
+            for (int[] range : sorted) {
+                if (range[1] > tasks.getNumberOfTasks()) {
+                    throw new DukeException("index out of bounds");
+                }
+                total += range[1] - range[0];
+            }
+            int[] locations = new int[(int) Math.min(total, tasks.getNumberOfTasks())];
+            int count = 0;
+            for (int[] range : sorted) {
+                int start = count == 0 ? range[0] : Math.max(range[0], locations[count - 1] + 1);
+                for (int location = start; location < range[1]; location++) {
+                    locations[count++] = location;
+                }
+            }
+            return Arrays.copyOf(locations, count);
+        }
     }
 
     /**
@@ -422,6 +1029,21 @@ public abstract class Command {
      */
     public abstract String execute(TaskManager tasks, Ui ui, Storage storage) throws DukeException, IOException;
 
+    /**
+     * Executes task, writing the message to a destination. Commands with long messages override this to
+     * write them piece by piece.
+     * @param tasks List of tasks.
+     * @param ui User interface being used.
+     * @param storage Storage where text is stored.
+     * @param out Destination of the message.
+     * @throws DukeException If it is found.
+     * @throws IOException If there is such an exception.
+     */
+    public void execute(TaskManager tasks, Ui ui, Storage storage, Appendable out)
+            throws DukeException, IOException {
+        out.append(execute(tasks, ui, storage));
+    }
+
     /**
      * Checks if one can still give more commands.
      * @return boolean.
@@ -40,12 +40,51 @@ public class DukeException extends Exception {
         case "find":
             this.msg = "OOPS!!! The description of a find cannot be empty.";
             break;
+        case "due":
+            this.msg = "OOPS!!! The date of a due cannot be empty.";
+            break;
+        case "events":
+            this.msg = "OOPS!!! The dates of an events cannot be empty.";
+            break;
+        case "query":
+            this.msg = "OOPS!!! The filters of a query cannot be empty.";
+            break;
         case "deadline format":
             this.msg = "OOPS!!! The formatting of the deadline message is wrong (deadline 'thing' /by yyyy-mm-dd).";
             break;
         case "event format":
             this.msg = "OOPS!!! The formatting of the event message is wrong (event 'event' /at yyyy-mm-dd).";
             break;
+        case "due format":
+            this.msg = "OOPS!!! The formatting of the due message is wrong (due before yyyy-mm-dd).";
+            break;
+        case "events format":
+            this.msg = "OOPS!!! The formatting of the events message is wrong "
+                    + "(events between yyyy-mm-dd and yyyy-mm-dd).";
+            break;
+        case "list format":
+            this.msg = "OOPS!!! The formatting of the list message is wrong (list [offset] [limit]).";
+            break;
+        case "query format":
+            this.msg = "OOPS!!! The formatting of the query message is wrong "
+                    + "(query [type:todo|deadline|event] [done:true|false] [after:yyyy-mm-dd] [before:yyyy-mm-dd] "
+                    + "[text:word] [sort:date|list] [limit:n] [explain]).";
+            break;
+        case "fuzzy find format":
+            this.msg = "OOPS!!! The formatting of the fuzzy find message is wrong (find~ words or find~k words).";
+            break;
+        case "reminders format":
+            this.msg = "OOPS!!! The formatting of the reminders message is wrong (reminders [number of deadlines]).";
+            break;
+        case "selection format":
+            this.msg = "OOPS!!! The task numbers should be a number, a range (3-5), a list (1,4,9-20) or done.";
+            break;
+        case "nothing to undo":
+            this.msg = "OOPS!!! There is nothing to undo.";
+            break;
+        case "nothing to redo":
+            this.msg = "OOPS!!! There is nothing to redo.";
+            break;
         case "unknown":
             this.msg = "OOPS!!! I'm sorry, but I don't know what that means :-(";
             break;
@@ -0,0 +1,190 @@
+package duke.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Represents a pool of deflaters, inflaters and their buffers, shared by every compressed task file.
+ * Creating a deflater or inflater allocates native memory, so they are reset and reused rather than
+ * created for every file, which matters when many segments are read in parallel.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+final class CompressionPool {
+
+    /**
+     * Represents the size of every pooled buffer.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Represents the largest number of idle objects of each kind kept in the pool.
+     */
+    private static final int MAX_IDLE = 16;
+
+    /**
+     * Represents the idle deflaters.
+     */
+    private static final Queue<Deflater> DEFLATERS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Represents the idle inflaters.
+     */
+    private static final Queue<Inflater> INFLATERS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Represents the idle buffers.
+     */
+    private static final Queue<byte[]> BUFFERS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructor for CompressionPool.
+     */
+    private CompressionPool() {
+    }
+
+    /**
+     * Wraps a stream so that everything written to it is compressed at the given level.
+     * @param out Stream to write compressed bytes to.
+     * @param level Compression level, from 0 to 9.
+     * @return Stream to write uncompressed bytes to.
+     */
+    static OutputStream compress(OutputStream out, int level) {
+        Deflater deflater = DEFLATERS.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level);
+        } else {
+            deflater.setLevel(level);
+        }
+        return new PooledDeflaterOutputStream(out, deflater, takeBuffer());
+    }
+
+    /**
+     * Wraps a stream of compressed bytes so that reading from it returns them uncompressed.
+     * @param in Stream to read compressed bytes from.
+     * @return Stream to read uncompressed bytes from.
+     */
+    static InputStream decompress(InputStream in) {
+        Inflater inflater = INFLATERS.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+        return new PooledInflaterInputStream(in, inflater, takeBuffer());
+    }
+
+    /**
+     * Takes a buffer from the pool, or creates one if none is idle.
+     * @return Buffer.
+     */
+    private static byte[] takeBuffer() {
+        byte[] buffer = BUFFERS.poll();
+        return buffer == null ? new byte[BUFFER_SIZE] : buffer;
+    }
+
+    /**
+     * Returns an object to its pool, or releases it if the pool is full.
+     * @param pool Pool of the object.
+     * @param item Object that is no longer used.
+     * @return Whether the object was pooled.
+     */
+    private static <T> boolean release(Queue<T> pool, T item) {
+        if (pool.size() >= MAX_IDLE) {
+            return false;
+        }
+        return pool.offer(item);
+    }
+
+    /**
+     * Represents a compressing stream that returns its deflater and buffer to the pool when closed.
+     */
+    private static class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+        /**
+         * Represents whether the stream has been closed.
+         */
+        private boolean isClosed;
+
+        /**
+         * Creates a compressing stream around pooled objects.
+         * @param out Stream to write compressed bytes to.
+         * @param deflater Deflater to compress with.
+         * @param buffer Buffer for compressed bytes.
+         */
+        private PooledDeflaterOutputStream(OutputStream out, Deflater deflater, byte[] buffer) {
+            super(out, deflater, 1);
+            this.buf = buffer;
+        }
+
+        /**
+         * Finishes the compressed data, closes the underlying stream and returns the pooled objects.
+         * @throws IOException If the stream cannot be written.
+         */
+        @Override
+        public void close() throws IOException {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            try {
+                super.close();
+            } finally {
+                def.reset();
+                if (!release(DEFLATERS, def)) {
+                    def.end();
+                }
+                release(BUFFERS, buf);
+            }
+        }
+    }
+
+    /**
+     * Represents a decompressing stream that returns its inflater and buffer to the pool when closed.
+     */
+    private static class PooledInflaterInputStream extends InflaterInputStream {
+
+        /**
+         * Represents whether the stream has been closed.
+         */
+        private boolean isClosed;
+
+        /**
+         * Creates a decompressing stream around pooled objects.
+         * @param in Stream to read compressed bytes from.
+         * @param inflater Inflater to decompress with.
+         * @param buffer Buffer for compressed bytes.
+         */
+        private PooledInflaterInputStream(InputStream in, Inflater inflater, byte[] buffer) {
+            super(in, inflater, 1);
+            this.buf = buffer;
+        }
+
+        /**
+         * Closes the underlying stream and returns the pooled objects.
+         * @throws IOException If the stream cannot be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            try {
+                super.close();
+            } finally {
+                inf.reset();
+                if (!release(INFLATERS, inf)) {
+                    inf.end();
+                }
+                release(BUFFERS, buf);
+            }
+        }
+    }
+}
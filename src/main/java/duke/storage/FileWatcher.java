@@ -0,0 +1,104 @@
+package duke.storage;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a background thread that watches the directory of a file and runs a callback when the
+ * file is created or modified. Bursts of events, such as an editor writing a file in several steps,
+ * are collapsed into one callback.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class FileWatcher {
+
+    /**
+     * Represents how long to wait for the file to settle after a change before running the callback.
+     */
+    private static final long SETTLE_MILLIS = 100;
+
+    /**
+     * Represents the name of the watched file within its directory.
+     */
+    private final Path fileName;
+
+    /**
+     * Represents the watch service of the directory.
+     */
+    private final WatchService service;
+
+    /**
+     * Represents the callback run after the file changes.
+     */
+    private final Runnable onChange;
+
+    /**
+     * Starts watching a file.
+     * @param path Path of the file.
+     * @param onChange Callback run on the watcher thread after the file changes.
+     * @throws IOException If the directory cannot be watched.
+     */
+    public FileWatcher(Path path, Runnable onChange) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        this.fileName = path.getFileName();
+        this.onChange = onChange;
+        this.service = FileSystems.getDefault().newWatchService();
+        directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread thread = new Thread(this::runWatcher, "task-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for changes to the file until the watcher is closed.
+     */
+    private void runWatcher() {
+        try {
+            while (true) {
+                if (checkIfFileChanged(service.take())) {
+                    // Collapse the rest of the burst before running the callback.
+                    WatchKey key;
+                    while ((key = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                        checkIfFileChanged(key);
+                    }
+                    onChange.run();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The watcher was closed.
+        }
+    }
+
+    /**
+     * Checks if any event of a watch key concerns the file, and re-arms the key.
+     * @param key Signalled watch key.
+     * @return Boolean.
+     */
+    private boolean checkIfFileChanged(WatchKey key) {
+        boolean isChanged = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                isChanged = true;
+            }
+        }
+        key.reset();
+        return isChanged;
+    }
+
+    /**
+     * Stops watching the file. The watcher thread is not waited for, since it may be waiting for the
+     * caller; a callback that is already running finishes on its own.
+     * @throws IOException If the watch service cannot be closed.
+     */
+    public void close() throws IOException {
+        service.close();
+    }
+}
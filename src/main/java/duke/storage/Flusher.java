@@ -0,0 +1,183 @@
+package duke.storage;
+
+import java.io.IOException;
+
+/**
+ * Represents a background thread that performs save requests one at a time. A request that has not
+ * started yet is replaced by any newer request, so a burst of saves results in a single write.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class Flusher {
+
+    /**
+     * Represents a save that may be replaced by a newer one before it starts.
+     */
+    public interface Save {
+
+        /**
+         * Performs the save.
+         * @throws IOException If the save fails.
+         */
+        void run() throws IOException;
+    }
+
+    /**
+     * Represents the thread that performs the saves.
+     */
+    private final Thread thread;
+
+    /**
+     * Represents the save waiting to be performed, if any.
+     */
+    private Save pending;
+
+    /**
+     * Represents whether a save is being performed right now.
+     */
+    private boolean isRunning;
+
+    /**
+     * Represents the number of saves that were replaced before they started.
+     */
+    private long coalescedCount;
+
+    /**
+     * Represents the first error raised by a save that has not been reported yet.
+     */
+    private IOException failure;
+
+    /**
+     * Represents whether the flusher has been closed.
+     */
+    private boolean isClosed;
+
+    /**
+     * Starts a flusher thread with the given name.
+     * @param name Name of the thread.
+     */
+    public Flusher(String name) {
+        this.thread = new Thread(this::runSaves, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Requests a save without waiting for it, replacing any save that has not started yet.
+     * @param save Save to be performed.
+     * @throws IOException If an earlier save failed.
+     */
+    public synchronized void request(Save save) throws IOException {
+        throwFailure();
+        if (isClosed) {
+            throw new IOException("flusher is closed");
+        }
+        if (pending != null) {
+            coalescedCount++;
+        }
+        pending = save;
+        notifyAll();
+    }
+
+    /**
+     * Performs saves until the flusher is closed and no save is left.
+     */
+    private void runSaves() {
+        while (true) {
+            Save save;
+            synchronized (this) {
+                while (pending == null && !isClosed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending == null) {
+                    return;
+                }
+                save = pending;
+                pending = null;
+                isRunning = true;
+            }
+            IOException error = null;
+            try {
+                save.run();
+            } catch (IOException e) {
+                error = e;
+            }
+            synchronized (this) {
+                isRunning = false;
+                if (failure == null) {
+                    failure = error;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Checks if a save is waiting or being performed.
+     * @return Boolean.
+     */
+    public synchronized boolean checkIfBusy() {
+        return pending != null || isRunning;
+    }
+
+    /**
+     * Gets the number of saves that were replaced before they started.
+     * @return Number of saves.
+     */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Waits until no save is waiting or being performed.
+     * @throws IOException If a save failed.
+     */
+    public synchronized void awaitIdle() throws IOException {
+        while (pending != null || isRunning) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for a save", e);
+            }
+        }
+        throwFailure();
+    }
+
+    /**
+     * Throws and clears the error of a failed save, if any.
+     * @throws IOException If a save failed.
+     */
+    private void throwFailure() throws IOException {
+        if (failure != null) {
+            IOException error = failure;
+            failure = null;
+            throw error;
+        }
+    }
+
+    /**
+     * Performs the remaining save, if any, and stops the thread.
+     * @throws IOException If a save failed.
+     */
+    public void close() throws IOException {
+        try {
+            awaitIdle();
+        } finally {
+            synchronized (this) {
+                isClosed = true;
+                notifyAll();
+            }
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
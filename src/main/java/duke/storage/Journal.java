@@ -0,0 +1,604 @@
+package duke.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+import duke.task.Task;
+import duke.task.TaskManager;
+
+/**
+ * Represents an append-only journal of changes made to the task list.
+ * Records are buffered in memory and written by a background thread, so that a burst of
+ * commands shares a single write and a single fsync (group commit). Appending a record hands back a
+ * ticket, and a caller that needs the record on disk waits with {@link #awaitCommit(long)} until the batch
+ * holding it is forced.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class Journal {
+
+    /**
+     * Represents the prefix of a record that adds a task.
+     */
+    private static final String ADD = "A";
+
+    /**
+     * Represents the prefix of a record that inserts a task before the end of the list.
+     */
+    private static final String INSERT = "I";
+
+    /**
+     * Represents the prefix of a record that deletes a task.
+     */
+    private static final String DELETE = "D";
+
+    /**
+     * Represents the prefix of a record that marks or unmarks a task.
+     */
+    private static final String MARK = "M";
+
+    /**
+     * Represents the prefix of the header record that holds the generation of the journal.
+     */
+    private static final String GENERATION = "G";
+
+    /**
+     * Represents the separator between the fields of a record.
+     */
+    private static final String SEPARATOR = " | ";
+
+    /**
+     * Represents the file channel that records are appended to.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Represents the thread that writes and forces buffered records.
+     */
+    private final Thread committer;
+
+    /**
+     * Represents the generation of the journal. A snapshot covering this generation makes the journal obsolete.
+     */
+    private final long generation;
+
+    /**
+     * Represents the journal this one was rotated from, which must be on disk before this one is written.
+     */
+    private Journal predecessor;
+
+    /**
+     * Represents the number of change records in the journal file, including ones not yet written.
+     */
+    private long recordCount;
+
+    /**
+     * Represents the size of the journal file in bytes, including records not yet written.
+     */
+    private long byteCount;
+
+    /**
+     * Represents records that have been appended but not yet written.
+     */
+    private ByteBuffer pending;
+
+    /**
+     * Represents the buffer currently being written by the committer.
+     */
+    private ByteBuffer writing;
+
+    /**
+     * Represents the number of records appended so far.
+     */
+    private long appendedCount;
+
+    /**
+     * Represents the number of records written and forced to disk so far.
+     */
+    private long committedCount;
+
+    /**
+     * Represents the first error raised by the committer, if any.
+     */
+    private IOException failure;
+
+    /**
+     * Represents whether the journal has been closed.
+     */
+    private boolean isClosed;
+
+    /**
+     * Opens a journal for appending, creating the file with a generation header if needed. A last record
+     * cut off by a crash is cut from the file first, so that the next record starts on a line of its own.
+     * @param path Path of the journal file.
+     * @param generation Generation of the journal, only written if the file is new.
+     * @param recordCount Number of change records already in the file.
+     * @param predecessor Journal this one was rotated from, or null.
+     * @throws IOException If the file cannot be opened.
+     */
+    public Journal(Path path, long generation, long recordCount, Journal predecessor) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.generation = generation;
+        this.predecessor = predecessor;
+        this.recordCount = recordCount;
+        this.byteCount = findCompleteLength(channel);
+        channel.truncate(byteCount);
+        channel.position(byteCount);
+        this.pending = ByteBuffer.allocate(8192);
+        this.writing = ByteBuffer.allocate(8192);
+        if (byteCount == 0) {
+            byte[] header = (GENERATION + SEPARATOR + generation + "\n").getBytes(StandardCharsets.UTF_8);
+            pending.put(header);
+            byteCount += header.length;
+        }
+        this.committer = new Thread(this::runCommitter, "journal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Finds the length of the complete records in a journal file, which is the end of its last newline.
+     * @param channel Channel of the journal file.
+     * @return Number of bytes up to and including the last newline, or 0 if there is none.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long findCompleteLength(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            for (int i = (int) (end - start) - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    /**
+     * Appends a record for a newly added task.
+     * @param task Task that was added.
+     * @return Ticket of the record.
+     * @throws IOException If an earlier write failed.
+     */
+    public long recordAdd(Task task) throws IOException {
+        return append(ADD + SEPARATOR + task.constructTextFileMessage());
+    }
+
+    /**
+     * Appends a record for a task inserted before the end of the list.
+     * @param location Index of the new task.
+     * @param task Task that was inserted.
+     * @return Ticket of the record.
+     * @throws IOException If an earlier write failed.
+     */
+    public long recordInsert(int location, Task task) throws IOException {
+        return append(INSERT + SEPARATOR + location + SEPARATOR + task.constructTextFileMessage());
+    }
+
+    /**
+     * Appends a record for a deleted task.
+     * @param location Index where the task was located.
+     * @return Ticket of the record.
+     * @throws IOException If an earlier write failed.
+     */
+    public long recordDelete(int location) throws IOException {
+        return append(DELETE + SEPARATOR + location);
+    }
+
+    /**
+     * Appends a single record for a run of deleted neighbouring tasks.
+     * @param location Index where the first task was located.
+     * @param count Number of tasks deleted.
+     * @return Ticket of the record.
+     * @throws IOException If an earlier write failed.
+     */
+    public long recordDelete(int location, int count) throws IOException {
+        if (count == 1) {
+            return recordDelete(location);
+        }
+        return append(DELETE + SEPARATOR + location + SEPARATOR + count);
+    }
+
+    /**
+     * Appends a record for a task that was marked or unmarked.
+     * @param location Index where the task is located.
+     * @param isCompleted Whether the task is now completed.
+     * @return Ticket of the record.
+     * @throws IOException If an earlier write failed.
+     */
+    public long recordMark(int location, boolean isCompleted) throws IOException {
+        return append(MARK + SEPARATOR + location + SEPARATOR + (isCompleted ? "1" : "0"));
+    }
+
+    /**
+     * Buffers a record and wakes up the committer. Does not wait for the disk; the ticket handed back is
+     * waited on instead, so that records appended meanwhile join the same batch.
+     * @param record Record without a trailing newline.
+     * @return Ticket of the record, for {@link #awaitCommit(long)}.
+     * @throws IOException If an earlier write failed or the journal is closed.
+     */
+    private synchronized long append(String record) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (isClosed) {
+            throw new IOException("journal is closed");
+        }
+        byte[] bytes = (record + "\n").getBytes(StandardCharsets.UTF_8);
+        if (pending.remaining() < bytes.length) {
+            int capacity = Math.max(pending.capacity() * 2, pending.position() + bytes.length);
+            ByteBuffer larger = ByteBuffer.allocate(capacity);
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        pending.put(bytes);
+        appendedCount++;
+        recordCount++;
+        byteCount += bytes.length;
+        notifyAll();
+        return appendedCount;
+    }
+
+    /**
+     * Gets the generation of the journal.
+     * @return Generation.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets the number of change records in the journal.
+     * @return Number of records.
+     */
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the size of the journal in bytes.
+     * @return Number of bytes.
+     */
+    public synchronized long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Writes buffered records in batches until the journal is closed.
+     */
+    private void runCommitter() {
+        while (true) {
+            long batchEnd;
+            synchronized (this) {
+                while (pending.position() == 0 && !isClosed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+                ByteBuffer swap = writing;
+                writing = pending;
+                pending = swap;
+                pending.clear();
+                batchEnd = appendedCount;
+            }
+            try {
+                if (predecessor != null) {
+                    // Records of this journal may depend on ones still being written to the previous journal.
+                    predecessor.sync();
+                    predecessor = null;
+                }
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                channel.force(false);
+                writing.clear();
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                committedCount = batchEnd;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until every record appended so far is on disk.
+     * @throws IOException If a write failed.
+     */
+    public synchronized void sync() throws IOException {
+        awaitCommit(appendedCount);
+    }
+
+    /**
+     * Waits until the batch holding the record with the given ticket, and so every earlier record, has
+     * been written and forced to disk.
+     * @param ticket Ticket handed back when the record was appended.
+     * @throws IOException If a write failed.
+     */
+    public synchronized void awaitCommit(long ticket) throws IOException {
+        while (committedCount < ticket && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for the journal", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Writes out every buffered record and closes the journal.
+     * @throws IOException If a write failed.
+     */
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            synchronized (this) {
+                isClosed = true;
+                notifyAll();
+            }
+            try {
+                committer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads the generation of a journal file from its header.
+     * @param path Path of the journal file.
+     * @return Generation, or 0 if the file has no header.
+     * @throws IOException If the file cannot be read.
+     */
+    public static long readGeneration(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (line != null && line.startsWith(GENERATION + SEPARATOR)) {
+                try {
+                    return Long.parseLong(line.substring(GENERATION.length() + SEPARATOR.length()));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Replays the records of a journal file onto the given task manager, unless the journal is
+     * already covered by the snapshot the task manager was loaded from.
+     * @param path Path of the journal file.
+     * @param tasks Task manager to apply the records to.
+     * @param coveredGeneration Latest generation already contained in the snapshot.
+     * @return Result of the replay.
+     * @throws IOException If the file cannot be read.
+     */
+    public static Replay replay(Path path, TaskManager tasks, long coveredGeneration) throws IOException {
+        if (!Files.exists(path)) {
+            return new Replay(false, coveredGeneration + 1, 0, 0);
+        }
+        long generation = 0;
+        long recordCount = 0;
+        int badRecordCount = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            String line = readCompleteLine(in, buffer);
+            if (line != null && line.startsWith(GENERATION + SEPARATOR)) {
+                try {
+                    generation = Long.parseLong(line.substring(GENERATION.length() + SEPARATOR.length()));
+                } catch (NumberFormatException e) {
+                    badRecordCount++;
+                }
+                line = readCompleteLine(in, buffer);
+            }
+            if (generation <= coveredGeneration) {
+                return new Replay(true, generation, 0, 0);
+            }
+            for (; line != null; line = readCompleteLine(in, buffer)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                recordCount++;
+                if (!apply(line, tasks)) {
+                    badRecordCount++;
+                }
+            }
+        }
+        return new Replay(false, generation, recordCount, badRecordCount);
+    }
+
+    /**
+     * Reads the next line of a journal file. A last line without a newline is a record cut off by a crash,
+     * such as {@code D | 1} left of {@code D | 12}, so it is treated as the end of the file rather than
+     * applied.
+     * @param in Stream of the journal file.
+     * @param buffer Buffer reused across lines.
+     * @return Line without its newline, or null at the end of the complete records.
+     * @throws IOException If the file cannot be read.
+     */
+    private static String readCompleteLine(InputStream in, ByteArrayOutputStream buffer) throws IOException {
+        buffer.reset();
+        for (int b = in.read(); b >= 0; b = in.read()) {
+            if (b == '\n') {
+                return buffer.toString(StandardCharsets.UTF_8);
+            }
+            buffer.write(b);
+        }
+        return null;
+    }
+
+    /**
+     * Applies a single journal record to the given task manager.
+     * @param record Journal record.
+     * @param tasks Task manager to apply the record to.
+     * @return Whether the record was valid.
+     */
+    private static boolean apply(String record, TaskManager tasks) {
+        String[] split = record.split(" \\| ", 2);
+        if (split.length < 2) {
+            return false;
+        }
+        try {
+            switch (split[0]) {
+            case ADD: {
+                Task task = Task.fromTextFileMessage(split[1]);
+                if (task == null) {
+                    return false;
+                }
+                tasks.addTask(task);
+                return true;
+            }
+            case INSERT: {
+                String[] fields = split[1].split(" \\| ", 2);
+                int location = Integer.parseInt(fields[0]);
+                Task task = fields.length == 2 ? Task.fromTextFileMessage(fields[1]) : null;
+                if (task == null || location < 0) {
+                    return false;
+                }
+                tasks.insertTask(location, task);
+                return true;
+            }
+            case DELETE: {
+                String[] fields = split[1].split(" \\| ");
+                int location = Integer.parseInt(fields[0]);
+                int count = fields.length == 1 ? 1 : Integer.parseInt(fields[1]);
+                if (fields.length > 2 || location < 0 || count < 1) {
+                    return false;
+                } else if (count == 1) {
+                    tasks.removeTask(location);
+                } else {
+                    tasks.removeTasks(IntStream.range(location, location + count).toArray());
+                }
+                return true;
+            }
+            case MARK: {
+                String[] fields = split[1].split(" \\| ");
+                int location = Integer.parseInt(fields[0]);
+                if (fields.length != 2 || location < 0) {
+                    return false;
+                } else if (fields[1].equals("1")) {
+                    tasks.markTaskAsCompleted(location);
+                } else {
+                    tasks.markTaskAsIncomplete(location);
+                }
+                return true;
+            }
+            default:
+                return false;
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Represents the result of replaying a journal file.
+     */
+    public static class Replay {
+
+        /**
+         * Represents whether the journal was skipped because a snapshot already covers it.
+         */
+        private final boolean isObsolete;
+
+        /**
+         * Represents the generation of the journal.
+         */
+        private final long generation;
+
+        /**
+         * Represents the number of change records read.
+         */
+        private final long recordCount;
+
+        /**
+         * Represents the number of change records that could not be applied.
+         */
+        private final int badRecordCount;
+
+        /**
+         * Creates the result of a replay.
+         * @param isObsolete Whether the journal was skipped.
+         * @param generation Generation of the journal.
+         * @param recordCount Number of records read.
+         * @param badRecordCount Number of records that could not be applied.
+         */
+        private Replay(boolean isObsolete, long generation, long recordCount, int badRecordCount) {
+            this.isObsolete = isObsolete;
+            this.generation = generation;
+            this.recordCount = recordCount;
+            this.badRecordCount = badRecordCount;
+        }
+
+        /**
+         * Checks if the journal was skipped because a snapshot already covers it.
+         * @return Boolean.
+         */
+        public boolean checkIfObsolete() {
+            return isObsolete;
+        }
+
+        /**
+         * Gets the generation of the journal.
+         * @return Generation.
+         */
+        public long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Gets the number of change records read.
+         * @return Number of records.
+         */
+        public long getRecordCount() {
+            return recordCount;
+        }
+
+        /**
+         * Gets the number of change records that could not be applied.
+         * @return Number of bad records.
+         */
+        public int getBadRecordCount() {
+            return badRecordCount;
+        }
+    }
+}
@@ -0,0 +1,615 @@
+package duke.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import duke.task.ChangeSet;
+import duke.task.Task;
+import duke.task.TaskManager;
+
+/**
+ * Represents a task store that keeps a snapshot of the task list in a task file and journals every
+ * change made since. The journal is rotated and a new snapshot written once it passes a threshold.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class JournalStore implements TaskStore {
+
+    /**
+     * Represents the path of the task file.
+     */
+    private final Path path;
+
+    /**
+     * Represents the prefix of the file names of the journals that record changes made since the
+     * file was written. Each journal generation has its own file.
+     */
+    private final String journalPrefix;
+
+    /**
+     * Represents the format and compression snapshots are written in. Existing files are read in whichever
+     * format they have.
+     */
+    private final TaskFile format;
+
+    /**
+     * Represents the number of journal records that triggers a snapshot.
+     */
+    private final int snapshotRecordThreshold;
+
+    /**
+     * Represents the journal size in bytes that triggers a snapshot.
+     */
+    private final long snapshotByteThreshold;
+
+    /**
+     * Represents the background thread that writes snapshots.
+     */
+    private final Flusher flusher;
+
+    /**
+     * Represents journals that have been rotated out and are deleted once a snapshot covers them.
+     */
+    private final List<Journal> retiredJournals;
+
+    /**
+     * Represents the lock held while the task file is written or compared with what was last written.
+     */
+    private final Object fileMonitor;
+
+    /**
+     * Represents the modification time of the task file when it was last read or written by this store.
+     */
+    private FileTime knownModifiedTime;
+
+    /**
+     * Represents the size of the task file when it was last read or written by this store.
+     */
+    private long knownSize;
+
+    /**
+     * Represents the CRC-32 of the task file when it was last read or written by this store, for edits
+     * that keep its size within the resolution of its modification time.
+     */
+    private long knownChecksum;
+
+    /**
+     * Represents the tasks the task file held when this store last read or wrote it, so that an outside
+     * edit of the file can be told apart from changes that are still only in the journal.
+     */
+    private List<Task> knownTasks;
+
+    /**
+     * Represents the task manager filled by the last load.
+     */
+    private TaskManager tasks;
+
+    /**
+     * Represents the journal that changes are appended to, once the store is loaded.
+     */
+    private Journal journal;
+
+    /**
+     * Represents the journal holding the latest record, which may have been rotated out since.
+     */
+    private Journal lastJournal;
+
+    /**
+     * Represents the ticket of the latest record in that journal.
+     */
+    private long lastTicket;
+
+    /**
+     * Creates a journal store that writes uncompressed snapshots.
+     * @param path Path of the task file.
+     * @param format Format snapshots are written in.
+     * @param snapshotRecordThreshold Number of journal records that triggers a snapshot.
+     * @param snapshotByteThreshold Journal size in bytes that triggers a snapshot.
+     */
+    public JournalStore(Path path, TaskFile.Format format, int snapshotRecordThreshold, long snapshotByteThreshold) {
+        this(path, TaskFile.of(format), snapshotRecordThreshold, snapshotByteThreshold);
+    }
+
+    /**
+     * Creates a journal store.
+     * @param path Path of the task file.
+     * @param format Format and compression snapshots are written in.
+     * @param snapshotRecordThreshold Number of journal records that triggers a snapshot.
+     * @param snapshotByteThreshold Journal size in bytes that triggers a snapshot.
+     */
+    public JournalStore(Path path, TaskFile format, int snapshotRecordThreshold, long snapshotByteThreshold) {
+        this.path = path;
+        this.format = format;
+        this.journalPrefix = path.getFileName() + ".journal";
+        this.snapshotRecordThreshold = snapshotRecordThreshold;
+        this.snapshotByteThreshold = snapshotByteThreshold;
+        this.flusher = new Flusher("snapshot-writer");
+        this.retiredJournals = new ArrayList<>();
+        this.fileMonitor = new Object();
+    }
+
+    /**
+     * Loads the latest snapshot one entry at a time into the given task manager and then replays the
+     * journal tail on top of it.
+     * @param tasks Task manager to be filled.
+     * @return Number of entries and records that could not be parsed.
+     * @throws IOException If the files cannot be read.
+     */
+    @Override
+    public int load(TaskManager tasks) throws IOException {
+        this.tasks = tasks;
+        int badLineCount = 0;
+        TaskFile.TaskReader reader = TaskFile.open(path);
+        long coveredGeneration;
+        try (reader) {
+            Task task;
+            while ((task = reader.next()) != null) {
+                tasks.addTask(task);
+            }
+            coveredGeneration = reader.getGeneration();
+        }
+        badLineCount += reader.getBadLineCount();
+        synchronized (fileMonitor) {
+            knownTasks = tasks.snapshot().getTasks();
+        }
+        List<Path> journals = findJournals();
+        long latestGeneration = coveredGeneration;
+        Journal.Replay replay = null;
+        int replayedCount = 0;
+        for (Path journalPath : journals) {
+            replay = Journal.replay(journalPath, tasks, coveredGeneration);
+            badLineCount += replay.getBadRecordCount();
+            latestGeneration = Math.max(latestGeneration, replay.getGeneration());
+            replayedCount += replay.checkIfObsolete() ? 0 : 1;
+        }
+        if (journals.isEmpty()) {
+            journal = new Journal(getJournalPath(coveredGeneration + 1), coveredGeneration + 1, 0, null);
+        } else if (journals.size() == 1 && replayedCount == 1
+                && journals.get(0).equals(getJournalPath(replay.getGeneration()))) {
+            journal = new Journal(journals.get(0), replay.getGeneration(), replay.getRecordCount(), null);
+        } else {
+            // A snapshot was interrupted, so finish it now before appending to any journal.
+            writeSnapshot(tasks.snapshot().getTasks(), latestGeneration);
+            for (Path journalPath : journals) {
+                Files.delete(journalPath);
+            }
+            journal = new Journal(getJournalPath(latestGeneration + 1), latestGeneration + 1, 0, null);
+        }
+        synchronized (fileMonitor) {
+            rememberTaskFile();
+        }
+        return badLineCount;
+    }
+
+    /**
+     * Remembers the modification time, size and checksum of the task file, so that later changes made by
+     * other programs can be told apart from the snapshots of this store.
+     * @throws IOException If the file cannot be read.
+     */
+    private void rememberTaskFile() throws IOException {
+        knownModifiedTime = Files.getLastModifiedTime(path);
+        knownSize = Files.size(path);
+        knownChecksum = computeChecksum(path);
+    }
+
+    /**
+     * Checks if the task file is still as this store last read or wrote it. The modification time and size
+     * are compared first; only if both match is the file read to compare its checksum, since an edit such
+     * as marking a task keeps the size and may keep the time too.
+     * @return Whether the file is unchanged.
+     * @throws IOException If the file cannot be read.
+     */
+    private boolean checkIfTaskFileKnown() throws IOException {
+        return Files.getLastModifiedTime(path).equals(knownModifiedTime) && Files.size(path) == knownSize
+                && computeChecksum(path) == knownChecksum;
+    }
+
+    /**
+     * Computes the CRC-32 of a file, reading it a block at a time.
+     * @param file Path of the file.
+     * @return Checksum.
+     * @throws IOException If the file cannot be read.
+     */
+    private static long computeChecksum(Path file) throws IOException {
+        CRC32 checksum = new CRC32();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                checksum.update(buffer, 0, count);
+            }
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * Reloads the task file if another program changed it, merging the edit with the changes made since
+     * the file was last written, which are only in the journal. Only the range of lines the edit changed
+     * is parsed. The merged list then replaces the journal through a snapshot, so it is what the next load
+     * sees. The file is read, and the snapshot waited for, without holding the task manager.
+     * @param tasks Task manager loaded from this store.
+     * @return Number of tasks that had to be parsed again, or -1 if the file did not change.
+     * @throws IOException If the file cannot be read or the snapshot cannot be written.
+     */
+    @Override
+    public int reloadIfChanged(TaskManager tasks) throws IOException {
+        List<String> lines;
+        List<Task> known;
+        synchronized (fileMonitor) {
+            if (!Files.exists(path) || checkIfTaskFileKnown()) {
+                return -1;
+            }
+            lines = TaskFile.readTaskLines(path);
+            known = knownTasks;
+            rememberTaskFile();
+        }
+        int reparsedCount;
+        synchronized (tasks) {
+            reparsedCount = mergeLines(tasks, known, lines);
+            snapshot();
+        }
+        flusher.awaitIdle();
+        return reparsedCount;
+    }
+
+    /**
+     * Merges the lines of an edited task file into the task manager. The lines, and the current tasks, are
+     * each compared with the tasks the file held before, to find the range each side changed between the
+     * unchanged start and end of the list. The range the edit changed is put in place of the same tasks in
+     * the current list, so that changes made since the file was written are kept. Only where both sides
+     * changed the same range does the file win over that range.
+     * @param tasks Task manager to be updated.
+     * @param known Tasks the file held before it was edited.
+     * @param lines Lines of the task file.
+     * @return Number of lines parsed.
+     */
+    private static int mergeLines(TaskManager tasks, List<Task> known, List<String> lines) {
+        List<Task> before = new ArrayList<>(known);
+        List<Task> current = tasks.getTaskListCopy();
+        int oldSize = before.size();
+        int newSize = lines.size();
+        int currentSize = current.size();
+        int[] hashes = new int[newSize];
+        for (int i = 0; i < newSize; i++) {
+            hashes[i] = lines.get(i).hashCode();
+        }
+        int filePrefix = 0;
+        while (filePrefix < oldSize && filePrefix < newSize
+                && checkIfSameLine(before.get(filePrefix), lines.get(filePrefix), hashes[filePrefix])) {
+            filePrefix++;
+        }
+        int fileSuffix = 0;
+        while (fileSuffix < oldSize - filePrefix && fileSuffix < newSize - filePrefix
+                && checkIfSameLine(before.get(oldSize - 1 - fileSuffix), lines.get(newSize - 1 - fileSuffix),
+                        hashes[newSize - 1 - fileSuffix])) {
+            fileSuffix++;
+        }
+        int ownPrefix = 0;
+        while (ownPrefix < oldSize && ownPrefix < currentSize
+                && checkIfSameTask(before.get(ownPrefix), current.get(ownPrefix))) {
+            ownPrefix++;
+        }
+        int ownSuffix = 0;
+        while (ownSuffix < oldSize - ownPrefix && ownSuffix < currentSize - ownPrefix
+                && checkIfSameTask(before.get(oldSize - 1 - ownSuffix), current.get(currentSize - 1 - ownSuffix))) {
+            ownSuffix++;
+        }
+        int fileEnd = oldSize - fileSuffix;
+        int ownEnd = oldSize - ownSuffix;
+        // The range of the old list to be replaced, and its place in the current list.
+        int start = filePrefix;
+        int end = fileEnd;
+        int shift = 0;
+        int growth = 0;
+        if (ownEnd <= filePrefix) {
+            shift = currentSize - oldSize;
+        } else if (fileEnd > ownPrefix) {
+            start = Math.min(filePrefix, ownPrefix);
+            end = Math.max(fileEnd, ownEnd);
+            growth = currentSize - oldSize;
+        }
+        List<Task> replacement = new ArrayList<>(before.subList(start, filePrefix));
+        for (int i = filePrefix; i < newSize - fileSuffix; i++) {
+            Task task = Task.fromTextFileMessage(lines.get(i));
+            if (task != null) {
+                replacement.add(task);
+            }
+        }
+        replacement.addAll(before.subList(fileEnd, end));
+        tasks.replaceTasks(start + shift, end + shift + growth, replacement);
+        return newSize - fileSuffix - filePrefix;
+    }
+
+    /**
+     * Checks if a task is stored as the same line as another.
+     * @param task Task the file held.
+     * @param other Task in the task manager.
+     * @return Boolean.
+     */
+    private static boolean checkIfSameTask(Task task, Task other) {
+        return task == other || task.constructTextFileMessage().equals(other.constructTextFileMessage());
+    }
+
+    /**
+     * Checks if a task is stored as the given line.
+     * @param task Task in the task manager.
+     * @param line Line of the task file.
+     * @param hash Hash of the line.
+     * @return Boolean.
+     */
+    private static boolean checkIfSameLine(Task task, String line, int hash) {
+        String taskLine = task.constructTextFileMessage();
+        return taskLine.hashCode() == hash && taskLine.equals(line);
+    }
+
+    /**
+     * Gets the path of the journal file of the given generation.
+     * @param generation Generation of the journal.
+     * @return Path of the journal.
+     */
+    private Path getJournalPath(long generation) {
+        return path.resolveSibling(journalPrefix + "." + generation);
+    }
+
+    /**
+     * Finds every journal file next to the task file, ordered by generation.
+     * @return Paths of the journals.
+     * @throws IOException If the directory cannot be read.
+     */
+    private List<Path> findJournals() throws IOException {
+        List<Path> journals = new ArrayList<>();
+        Path directory = path.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, journalPrefix + "*")) {
+            for (Path journalPath : stream) {
+                journals.add(path.resolveSibling(journalPath.getFileName()));
+            }
+        }
+        Map<Path, Long> generations = new HashMap<>();
+        for (Path journalPath : journals) {
+            generations.put(journalPath, Journal.readGeneration(journalPath));
+        }
+        journals.sort(Comparator.comparing(generations::get));
+        return journals;
+    }
+
+    /**
+     * Writes a snapshot of the given tasks to a temporary file and moves it over the task file.
+     * @param taskList Tasks to be written.
+     * @param generation Latest journal generation contained in the snapshot.
+     * @throws IOException If the file cannot be written.
+     */
+    private void writeSnapshot(List<Task> taskList, long generation) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (TaskFile.TaskWriter writer = format.openWriter(temp, generation)) {
+            for (Task task : taskList) {
+                writer.write(task);
+            }
+        }
+        synchronized (fileMonitor) {
+            Storage.moveAtomically(temp, path);
+            rememberTaskFile();
+            knownTasks = taskList;
+        }
+    }
+
+    /**
+     * Records a newly added task in the journal.
+     * @param task Task that was added.
+     * @throws IOException If the journal cannot be written.
+     */
+    @Override
+    public void recordAdd(Task task) throws IOException {
+        Journal current = getJournal();
+        remember(current, current.recordAdd(task));
+        snapshotIfDue();
+    }
+
+    /**
+     * Records a task inserted before the end of the list in the journal.
+     * @param location Index of the new task.
+     * @param task Task that was inserted.
+     * @throws IOException If the journal cannot be written.
+     */
+    @Override
+    public void recordInsert(int location, Task task) throws IOException {
+        Journal current = getJournal();
+        remember(current, current.recordInsert(location, task));
+        snapshotIfDue();
+    }
+
+    /**
+     * Records a deleted task in the journal.
+     * @param location Index where the task was located.
+     * @throws IOException If the journal cannot be written.
+     */
+    @Override
+    public void recordDelete(int location) throws IOException {
+        Journal current = getJournal();
+        remember(current, current.recordDelete(location));
+        snapshotIfDue();
+    }
+
+    /**
+     * Records a marked or unmarked task in the journal.
+     * @param location Index where the task is located.
+     * @param isCompleted Whether the task is now completed.
+     * @throws IOException If the journal cannot be written.
+     */
+    @Override
+    public void recordMark(int location, boolean isCompleted) throws IOException {
+        Journal current = getJournal();
+        remember(current, current.recordMark(location, isCompleted));
+        snapshotIfDue();
+    }
+
+    /**
+     * Records every change of a change set in the journal, each run of deleted tasks as a single record,
+     * and only then checks whether a snapshot is due, so that a snapshot never sits in the middle of a
+     * batch whose changes it already contains.
+     * @param changes Changes made since the last save.
+     * @throws IOException If the journal cannot be written.
+     */
+    @Override
+    public void save(ChangeSet changes) throws IOException {
+        Journal current = getJournal();
+        long ticket = 0;
+        for (ChangeSet.Change change : changes.getChanges()) {
+            switch (change.getKind()) {
+            case ADD:
+                for (Task task : change.getTasks()) {
+                    ticket = current.recordAdd(task);
+                }
+                break;
+            case INSERT:
+                for (int i = change.getStart(); i < change.getEnd(); i++) {
+                    ticket = current.recordInsert(i, change.getTasks().get(i - change.getStart()));
+                }
+                break;
+            case REMOVE:
+                ticket = current.recordDelete(change.getStart(), change.getEnd() - change.getStart());
+                break;
+            case MODIFY:
+                for (int i = change.getStart(); i < change.getEnd(); i++) {
+                    ticket = current.recordMark(i,
+                            change.getTasks().get(i - change.getStart()).checkIfCompleted());
+                }
+                break;
+            default:
+                throw new IOException("unknown change " + change.getKind());
+            }
+        }
+        if (ticket > 0) {
+            remember(current, ticket);
+        }
+        snapshotIfDue();
+    }
+
+    /**
+     * Remembers the latest record, so that {@link #awaitDurable()} knows which batch to wait for.
+     * @param current Journal the record was appended to.
+     * @param ticket Ticket of the record.
+     */
+    private synchronized void remember(Journal current, long ticket) {
+        lastJournal = current;
+        lastTicket = ticket;
+    }
+
+    /**
+     * Waits until the batch holding the latest record has been forced to disk. A journal rotated out since
+     * still writes its records first, and every later journal waits for it before writing.
+     * @throws IOException If the journal could not be written.
+     */
+    @Override
+    public void awaitDurable() throws IOException {
+        Journal waited;
+        long ticket;
+        synchronized (this) {
+            waited = lastJournal;
+            ticket = lastTicket;
+        }
+        if (waited != null) {
+            waited.awaitCommit(ticket);
+        }
+    }
+
+    /**
+     * Gets the journal, failing if the storage was never loaded.
+     * @return Journal.
+     * @throws IOException If the journal is not open.
+     */
+    private Journal getJournal() throws IOException {
+        if (journal == null) {
+            throw new IOException("storage has not been loaded");
+        }
+        return journal;
+    }
+
+    /**
+     * Starts a snapshot if the journal has grown past either threshold.
+     * @throws IOException If the journal cannot be rotated.
+     */
+    private void snapshotIfDue() throws IOException {
+        if (journal.getRecordCount() >= snapshotRecordThreshold || journal.getByteCount() >= snapshotByteThreshold) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Rotates the journal and asks the flusher to write a snapshot of the current tasks. Does not wait for
+     * the disk. The tasks are taken as a snapshot of the task manager, which takes O(1) with the default
+     * tree of tasks, and are only serialized on the flusher thread. Once the snapshot is in place the
+     * rotated journals are deleted, so recovery only replays records made after this call.
+     * @throws IOException If the journal cannot be rotated or an earlier snapshot failed.
+     */
+    public void snapshot() throws IOException {
+        Journal retired = getJournal();
+        long generation = retired.getGeneration();
+        journal = new Journal(getJournalPath(generation + 1), generation + 1, 0, retired);
+        synchronized (retiredJournals) {
+            retiredJournals.add(retired);
+        }
+        List<Task> taskList = tasks.snapshot().getTasks();
+        flusher.request(() -> {
+            writeSnapshot(taskList, generation);
+            deleteRetiredJournals(generation);
+        });
+    }
+
+    /**
+     * Closes and deletes the rotated journals that the snapshot of the given generation covers.
+     * @param generation Latest journal generation contained in the snapshot.
+     * @throws IOException If a journal cannot be deleted.
+     */
+    private void deleteRetiredJournals(long generation) throws IOException {
+        List<Journal> covered = new ArrayList<>();
+        synchronized (retiredJournals) {
+            for (Journal retired : retiredJournals) {
+                if (retired.getGeneration() <= generation) {
+                    covered.add(retired);
+                }
+            }
+            retiredJournals.removeAll(covered);
+        }
+        for (Journal retired : covered) {
+            retired.close();
+            Files.deleteIfExists(getJournalPath(retired.getGeneration()));
+        }
+    }
+
+    /**
+     * Writes out every pending journal record and snapshot, then a final snapshot of the tasks if the
+     * journal holds any change, so that the task file shows every change and no journal is left to replay,
+     * and closes the storage. If the final snapshot fails, the journals stay for the next load to replay.
+     * @throws IOException If the journal or snapshot cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flusher.close();
+            if (journal != null && journal.getRecordCount() > 0) {
+                long generation = journal.getGeneration();
+                writeSnapshot(tasks.snapshot().getTasks(), generation);
+                journal.close();
+                journal = null;
+                Files.deleteIfExists(getJournalPath(generation));
+                deleteRetiredJournals(generation);
+            }
+        } finally {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,618 @@
+package duke.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import duke.task.ChangeSet;
+import duke.task.Task;
+import duke.task.TaskManager;
+
+/**
+ * Represents a task store that keeps every task in a fixed-width slot of a memory-mapped file, so that
+ * marking a task flips a single byte and deleting one only sets a tombstone flag. Descriptions that do
+ * not fit in a slot are appended to an overflow file. Once tombstones outnumber live tasks, both files
+ * are rewritten without them and swapped in atomically.
+ *
+ * <p>Every slot holds an order key, and loading sorts the live slots by it, so a task inserted before the
+ * end of the list takes a new slot with a key between its neighbours' instead of rewriting the file. Only
+ * when no key is left between two neighbours is the file compacted, which hands out keys again with wide
+ * gaps. New slots are written first and counted by the header only after the flusher has forced them to
+ * disk, so a crash never leaves the header counting a slot that is not there.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class MappedStore implements TaskStore {
+
+    /**
+     * Represents the bytes every slot file starts with.
+     */
+    private static final int MAGIC = 0x44554B4D;
+
+    /**
+     * Represents the version of the slot layout, which added the order key.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Represents the size of the slot file header: magic, version, number of slots in use and the
+     * generation of the overflow file.
+     */
+    private static final int HEADER_SIZE = 16;
+
+    /**
+     * Represents the position of the number of slots in use in the header.
+     */
+    private static final int SLOT_COUNT_OFFSET = 8;
+
+    /**
+     * Represents the position of the overflow file generation in the header.
+     */
+    private static final int OVERFLOW_GENERATION_OFFSET = 12;
+
+    /**
+     * Represents the size of every slot in bytes.
+     */
+    private static final int SLOT_SIZE = 64;
+
+    /**
+     * Represents the offset of the flag byte in a slot.
+     */
+    private static final int FLAGS_OFFSET = 0;
+
+    /**
+     * Represents the offset of the epoch day in a slot.
+     */
+    private static final int DATE_OFFSET = 1;
+
+    /**
+     * Represents the offset of the description length in a slot.
+     */
+    private static final int LENGTH_OFFSET = 5;
+
+    /**
+     * Represents the offset of the order key in a slot.
+     */
+    private static final int ORDER_OFFSET = 9;
+
+    /**
+     * Represents the offset of the inline description, or of its position in the overflow file.
+     */
+    private static final int DESCRIPTION_OFFSET = 17;
+
+    /**
+     * Represents the longest description in bytes that is kept inside the slot.
+     */
+    private static final int INLINE_CAPACITY = SLOT_SIZE - DESCRIPTION_OFFSET;
+
+    /**
+     * Represents the flag bit for a completed task.
+     */
+    private static final int COMPLETED_FLAG = 0x80;
+
+    /**
+     * Represents the flag bit for a deleted task.
+     */
+    private static final int TOMBSTONE_FLAG = 0x40;
+
+    /**
+     * Represents the bits of the flag byte that hold the task type.
+     */
+    private static final int TYPE_MASK = 0x0F;
+
+    /**
+     * Represents the number of slots the file starts with.
+     */
+    private static final int INITIAL_SLOTS = 1024;
+
+    /**
+     * Represents the gap between the order keys of neighbouring tasks after a compaction, which leaves room
+     * for about twenty inserts at the same place before the next one.
+     */
+    private static final long ORDER_GAP = 1L << 20;
+
+    /**
+     * Represents the path of the task file, which is imported the first time the store is loaded.
+     */
+    private final Path path;
+
+    /**
+     * Represents the path of the slot file.
+     */
+    private final Path slotPath;
+
+    /**
+     * Represents the prefix of the file names of the overflow files for long descriptions. Every
+     * compaction writes a new overflow file, named after its generation.
+     */
+    private final String overflowPrefix;
+
+    /**
+     * Represents the background thread that forces the mapped slots to disk.
+     */
+    private final Flusher flusher;
+
+    /**
+     * Represents the slot file channel.
+     */
+    private FileChannel slotChannel;
+
+    /**
+     * Represents the overflow file channel.
+     */
+    private FileChannel overflowChannel;
+
+    /**
+     * Represents the mapped slot file. It is replaced when the file grows or is compacted.
+     */
+    private volatile MappedByteBuffer slots;
+
+    /**
+     * Represents the generation of the overflow file in use.
+     */
+    private int overflowGeneration;
+
+    /**
+     * Represents the number of slots in use, including tombstoned ones. Slots are written before they are
+     * counted, so the flusher reading it may force every slot it counts.
+     */
+    private volatile int slotCount;
+
+    /**
+     * Represents the slot of every live task, in list order.
+     */
+    private int[] liveSlots;
+
+    /**
+     * Represents the number of live tasks.
+     */
+    private int liveCount;
+
+    /**
+     * Represents whether an inserted task found no order key left between its neighbours, so that the file
+     * must be compacted to hand out keys again.
+     */
+    private boolean isOutOfOrder;
+
+    /**
+     * Represents whether a change set is being saved, so that reordering the file waits for its end.
+     */
+    private boolean isSaving;
+
+    /**
+     * Creates a mapped store next to the given task file.
+     * @param path Path of the task file.
+     */
+    public MappedStore(Path path) {
+        this.path = path;
+        this.slotPath = path.resolveSibling(path.getFileName() + ".slots");
+        this.overflowPrefix = path.getFileName() + ".overflow.";
+        this.flusher = new Flusher("slot-flusher");
+        this.liveSlots = new int[INITIAL_SLOTS];
+    }
+
+    /**
+     * Loads every live slot into the given task manager. If there is no slot file yet, the task file is
+     * imported into a new one.
+     * @param tasks Task manager to be filled.
+     * @return Number of entries that could not be parsed.
+     * @throws IOException If the files cannot be read.
+     */
+    @Override
+    public int load(TaskManager tasks) throws IOException {
+        boolean isNew = !Files.exists(slotPath);
+        open();
+        if (isNew) {
+            return importTaskFile(tasks);
+        }
+        int[] found = new int[slotCount];
+        int foundCount = 0;
+        boolean isSorted = true;
+        for (int slot = 0; slot < slotCount; slot++) {
+            int flags = slots.get(slotOffset(slot) + FLAGS_OFFSET);
+            if ((flags & TOMBSTONE_FLAG) != 0) {
+                continue;
+            }
+            isSorted &= foundCount == 0 || getOrderKey(found[foundCount - 1]) <= getOrderKey(slot);
+            found[foundCount++] = slot;
+        }
+        if (!isSorted) {
+            // Inserted tasks sit in later slots, so the slots are put in list order by key, then by slot.
+            found = Arrays.stream(found, 0, foundCount).boxed()
+                    .sorted(Comparator.comparingLong(this::getOrderKey).thenComparingInt(slot -> slot))
+                    .mapToInt(slot -> slot)
+                    .toArray();
+        }
+        int badSlotCount = 0;
+        for (int i = 0; i < foundCount; i++) {
+            Task task = readSlot(found[i]);
+            if (task == null) {
+                badSlotCount++;
+                continue;
+            }
+            tasks.addTask(task);
+            appendLiveSlot(found[i]);
+        }
+        return badSlotCount;
+    }
+
+    /**
+     * Opens and maps the slot file, and opens the overflow file it refers to.
+     * @throws IOException If the files cannot be opened.
+     */
+    private void open() throws IOException {
+        slotChannel = FileChannel.open(slotPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = Math.max(slotChannel.size(), slotOffset(INITIAL_SLOTS));
+        slots = slotChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (slots.getInt(0) != MAGIC) {
+            slots.putInt(0, MAGIC);
+            slots.putInt(4, VERSION);
+            slots.putInt(SLOT_COUNT_OFFSET, 0);
+            slots.putInt(OVERFLOW_GENERATION_OFFSET, 0);
+        } else if (slots.getInt(4) != VERSION) {
+            slotChannel.close();
+            throw new IOException("slot file has unsupported version " + slots.getInt(4));
+        }
+        slotCount = slots.getInt(SLOT_COUNT_OFFSET);
+        overflowGeneration = slots.getInt(OVERFLOW_GENERATION_OFFSET);
+        // A crash right after a compaction leaves the previous overflow file behind.
+        if (overflowGeneration > 0) {
+            Files.deleteIfExists(getOverflowPath(overflowGeneration - 1));
+        }
+        overflowChannel = FileChannel.open(getOverflowPath(overflowGeneration), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Gets the path of the overflow file of the given generation.
+     * @param generation Generation of the overflow file.
+     * @return Path of the overflow file.
+     */
+    private Path getOverflowPath(int generation) {
+        return path.resolveSibling(overflowPrefix + generation);
+    }
+
+    /**
+     * Copies every task of the task file into the slot file.
+     * @param tasks Task manager to be filled.
+     * @return Number of entries that could not be parsed.
+     * @throws IOException If the files cannot be accessed.
+     */
+    private int importTaskFile(TaskManager tasks) throws IOException {
+        try (TaskFile.TaskReader reader = TaskFile.open(path)) {
+            Task task;
+            while ((task = reader.next()) != null) {
+                tasks.addTask(task);
+                appendLiveSlot(writeSlot(task, liveCount * ORDER_GAP));
+            }
+            flusher.request(this::forceSlots);
+            return reader.getBadLineCount();
+        }
+    }
+
+    /**
+     * Gets the position of a slot in the slot file.
+     * @param slot Number of the slot.
+     * @return Byte offset.
+     */
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * Gets the order key of a slot.
+     * @param slot Number of the slot.
+     * @return Order key.
+     */
+    private long getOrderKey(int slot) {
+        return slots.getLong(slotOffset(slot) + ORDER_OFFSET);
+    }
+
+    /**
+     * Reads the task in a slot.
+     * @param slot Number of the slot.
+     * @return Task, or null if the slot is corrupt.
+     * @throws IOException If the overflow file cannot be read.
+     */
+    private Task readSlot(int slot) throws IOException {
+        int offset = slotOffset(slot);
+        int flags = slots.get(offset + FLAGS_OFFSET);
+        int typeIndex = flags & TYPE_MASK;
+        Task.TaskType[] types = Task.TaskType.values();
+        int length = slots.getInt(offset + LENGTH_OFFSET);
+        if (typeIndex >= types.length || length < 0) {
+            return null;
+        }
+        byte[] description = new byte[length];
+        if (length <= INLINE_CAPACITY) {
+            ByteBuffer inline = slots.duplicate();
+            inline.position(offset + DESCRIPTION_OFFSET);
+            inline.get(description);
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(description);
+            long position = slots.getLong(offset + DESCRIPTION_OFFSET);
+            while (buffer.hasRemaining()) {
+                if (overflowChannel.read(buffer, position + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+        }
+        Task.TaskType type = types[typeIndex];
+        LocalDate date = type == Task.TaskType.TODO
+                ? null
+                : LocalDate.ofEpochDay(slots.getInt(offset + DATE_OFFSET));
+        Task task = Task.of(type, new String(description, StandardCharsets.UTF_8), date);
+        if ((flags & COMPLETED_FLAG) != 0) {
+            task.markComplete();
+        }
+        return task;
+    }
+
+    /**
+     * Writes a task into the next free slot. The slot is only counted by the header once the flusher has
+     * forced it to disk.
+     * @param task Task to be written.
+     * @param orderKey Order key of the task.
+     * @return Number of the slot.
+     * @throws IOException If the files cannot be grown or written.
+     */
+    private int writeSlot(Task task, long orderKey) throws IOException {
+        ensureCapacity(slotCount + 1);
+        int slot = slotCount;
+        int offset = slotOffset(slot);
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        int flags = task.getTaskType().ordinal() | (task.checkIfCompleted() ? COMPLETED_FLAG : 0);
+        slots.put(offset + FLAGS_OFFSET, (byte) flags);
+        slots.putInt(offset + DATE_OFFSET, task.getDate() == null ? 0 : (int) task.getDate().toEpochDay());
+        slots.putInt(offset + LENGTH_OFFSET, description.length);
+        slots.putLong(offset + ORDER_OFFSET, orderKey);
+        if (description.length <= INLINE_CAPACITY) {
+            ByteBuffer inline = slots.duplicate();
+            inline.position(offset + DESCRIPTION_OFFSET);
+            inline.put(description);
+        } else {
+            long position = overflowChannel.size();
+            ByteBuffer buffer = ByteBuffer.wrap(description);
+            while (buffer.hasRemaining()) {
+                overflowChannel.write(buffer, position + buffer.position());
+            }
+            slots.putLong(offset + DESCRIPTION_OFFSET, position);
+        }
+        slotCount++;
+        return slot;
+    }
+
+    /**
+     * Grows the mapped slot file so that it holds at least the given number of slots.
+     * @param slotsNeeded Number of slots needed.
+     * @throws IOException If the file cannot be remapped.
+     */
+    private void ensureCapacity(int slotsNeeded) throws IOException {
+        long needed = slotOffset(slotsNeeded);
+        if (needed <= slots.capacity()) {
+            return;
+        }
+        long size = Math.max(needed, 2L * slots.capacity());
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("slot file is full");
+        }
+        slots.force();
+        slots = slotChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Appends a slot to the list of live slots.
+     * @param slot Number of the slot.
+     */
+    private void appendLiveSlot(int slot) {
+        if (liveCount == liveSlots.length) {
+            liveSlots = Arrays.copyOf(liveSlots, liveSlots.length * 2);
+        }
+        liveSlots[liveCount++] = slot;
+    }
+
+    /**
+     * Writes a newly added task into a new slot.
+     * @param task Task that was added.
+     * @throws IOException If the files cannot be written.
+     */
+    @Override
+    public void recordAdd(Task task) throws IOException {
+        long orderKey = liveCount == 0 ? 0 : getOrderKey(liveSlots[liveCount - 1]) + ORDER_GAP;
+        appendLiveSlot(writeSlot(task, orderKey));
+        flusher.request(this::forceSlots);
+    }
+
+    /**
+     * Writes a task inserted before the end of the list into a new slot, with an order key halfway between
+     * its neighbours' so that loading puts it in place. Only if no key is left between them is the file
+     * compacted, once for a whole change set.
+     * @param location Index of the new task.
+     * @param task Task that was inserted.
+     * @throws IOException If the files cannot be written.
+     */
+    @Override
+    public void recordInsert(int location, Task task) throws IOException {
+        if (location == liveCount) {
+            recordAdd(task);
+            return;
+        }
+        long next = getOrderKey(liveSlots[location]);
+        long previous = location == 0 ? next - 2 * ORDER_GAP : getOrderKey(liveSlots[location - 1]);
+        if (next - previous < 2) {
+            isOutOfOrder = true;
+        }
+        int slot = writeSlot(task, previous + (next - previous) / 2);
+        appendLiveSlot(slot);
+        System.arraycopy(liveSlots, location, liveSlots, location + 1, liveCount - location - 1);
+        liveSlots[location] = slot;
+        if (isOutOfOrder && !isSaving) {
+            compact();
+        }
+        flusher.request(this::forceSlots);
+    }
+
+    /**
+     * Stores every change of a change set, compacting the file once at the end if inserted tasks ran out of
+     * order keys.
+     * @param changes Changes made since the last save.
+     * @throws IOException If the files cannot be written.
+     */
+    @Override
+    public void save(ChangeSet changes) throws IOException {
+        isSaving = true;
+        try {
+            TaskStore.super.save(changes);
+        } finally {
+            isSaving = false;
+        }
+        if (isOutOfOrder) {
+            compact();
+        }
+    }
+
+    /**
+     * Tombstones the slot of a deleted task, compacting the file once most slots are tombstones.
+     * @param location Index where the task was located.
+     * @throws IOException If the files cannot be written.
+     */
+    @Override
+    public void recordDelete(int location) throws IOException {
+        int offset = slotOffset(liveSlots[location]);
+        slots.put(offset + FLAGS_OFFSET, (byte) (slots.get(offset + FLAGS_OFFSET) | TOMBSTONE_FLAG));
+        System.arraycopy(liveSlots, location + 1, liveSlots, location, liveCount - location - 1);
+        liveCount--;
+        if (slotCount - liveCount > Math.max(INITIAL_SLOTS, liveCount)) {
+            compact();
+        }
+        flusher.request(this::forceSlots);
+    }
+
+    /**
+     * Flips the completion flag in the slot of a task.
+     * @param location Index where the task is located.
+     * @param isCompleted Whether the task is now completed.
+     * @throws IOException If the files cannot be written.
+     */
+    @Override
+    public void recordMark(int location, boolean isCompleted) throws IOException {
+        int offset = slotOffset(liveSlots[location]);
+        int flags = slots.get(offset + FLAGS_OFFSET);
+        flags = isCompleted ? flags | COMPLETED_FLAG : flags & ~COMPLETED_FLAG;
+        slots.put(offset + FLAGS_OFFSET, (byte) flags);
+        flusher.request(this::forceSlots);
+    }
+
+    /**
+     * Rewrites the live slots, in list order, into a new slot file and a new overflow file, and moves the
+     * slot file into place. A crash leaves either the old pair of files or the new pair.
+     * @throws IOException If the files cannot be written.
+     */
+    private void compact() throws IOException {
+        flusher.awaitIdle();
+        int newGeneration = overflowGeneration + 1;
+        Path newOverflowPath = getOverflowPath(newGeneration);
+        Path temp = slotPath.resolveSibling(slotPath.getFileName() + ".tmp");
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(liveCount).putInt(newGeneration).flip();
+        try (FileChannel newSlots = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             FileChannel newOverflow = FileChannel.open(newOverflowPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            newSlots.write(header);
+            ByteBuffer slot = ByteBuffer.allocate(SLOT_SIZE);
+            for (int i = 0; i < liveCount; i++) {
+                int offset = slotOffset(liveSlots[i]);
+                ByteBuffer source = slots.duplicate();
+                source.position(offset).limit(offset + SLOT_SIZE);
+                slot.clear();
+                slot.put(source).flip();
+                slot.putLong(ORDER_OFFSET, i * ORDER_GAP);
+                int length = slot.getInt(LENGTH_OFFSET);
+                if (length > INLINE_CAPACITY) {
+                    ByteBuffer description = ByteBuffer.allocate(length);
+                    long position = slot.getLong(DESCRIPTION_OFFSET);
+                    while (description.hasRemaining()) {
+                        if (overflowChannel.read(description, position + description.position()) < 0) {
+                            throw new IOException("overflow file is truncated");
+                        }
+                    }
+                    description.flip();
+                    slot.putLong(DESCRIPTION_OFFSET, newOverflow.position());
+                    while (description.hasRemaining()) {
+                        newOverflow.write(description);
+                    }
+                }
+                while (slot.hasRemaining()) {
+                    newSlots.write(slot);
+                }
+                liveSlots[i] = i;
+            }
+            newOverflow.force(true);
+        }
+        slotChannel.close();
+        overflowChannel.close();
+        Storage.moveAtomically(temp, slotPath);
+        Files.deleteIfExists(getOverflowPath(overflowGeneration));
+        open();
+        isOutOfOrder = false;
+    }
+
+    /**
+     * Forces the overflow file and then the mapped slots to disk, so that no slot on disk refers to a
+     * description that is not, and only then makes the header count the new slots and forces it too.
+     * @throws IOException If the files cannot be forced.
+     */
+    private synchronized void forceSlots() throws IOException {
+        if (slots == null) {
+            return;
+        }
+        // Every slot counted here was written before the count was raised.
+        int count = slotCount;
+        overflowChannel.force(false);
+        slots.force();
+        if (slots.getInt(SLOT_COUNT_OFFSET) != count) {
+            slots.putInt(SLOT_COUNT_OFFSET, count);
+            slots.force();
+        }
+    }
+
+    /**
+     * Waits until the flusher has forced every slot written so far, and the header counting them, to disk.
+     * @throws IOException If the files could not be forced.
+     */
+    @Override
+    public void awaitDurable() throws IOException {
+        flusher.awaitIdle();
+    }
+
+    /**
+     * Forces the slots to disk and closes the files.
+     * @throws IOException If the files cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flusher.close();
+        } finally {
+            synchronized (this) {
+                if (slots != null) {
+                    forceSlots();
+                    slotChannel.close();
+                    overflowChannel.close();
+                    slots = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package duke.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import duke.task.ChangeSet;
+import duke.task.Task;
+import duke.task.TaskManager;
+
+/**
+ * Represents a task store that splits the task list into segment files of a bounded size, listed in
+ * order by a manifest. Segments are parsed in parallel when loading, and only segments that changed
+ * are rewritten, in the background, when saving.
+ *
+ * <p>A changed segment is written to a file under a fresh id rather than over its old file, and the new
+ * files are all published together by replacing the manifest in one step. A crash in the middle of a save
+ * therefore leaves either every segment of the batch as it was or every segment as it became, and the
+ * files the surviving manifest does not list are deleted by the next load.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class SegmentedStore implements TaskStore {
+
+    /**
+     * Represents the default largest number of tasks in a segment.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 4096;
+
+    /**
+     * Represents the name of the manifest file.
+     */
+    private static final String MANIFEST = "manifest";
+
+    /**
+     * Represents the first line of the manifest. Every following line holds the id of a segment.
+     */
+    private static final String MANIFEST_HEADER = "# segments";
+
+    /**
+     * Represents the path of the task file, which is imported the first time the store is loaded.
+     */
+    private final Path path;
+
+    /**
+     * Represents the directory that holds the manifest and the segment files.
+     */
+    private final Path directory;
+
+    /**
+     * Represents the format and compression segments are written in. Existing segments are read in
+     * whichever format they have.
+     */
+    private final TaskFile format;
+
+    /**
+     * Represents the largest number of tasks in a segment.
+     */
+    private final int segmentSize;
+
+    /**
+     * Represents the background thread that writes changed segments.
+     */
+    private final Flusher flusher;
+
+    /**
+     * Represents the segments in list order.
+     */
+    private final List<Segment> segments;
+
+    /**
+     * Represents the ids of segment files that were dropped or replaced, which are deleted by the next save
+     * once the manifest no longer lists them.
+     */
+    private final Set<Integer> droppedIds;
+
+    /**
+     * Represents whether the list of segments changed since the manifest was last written.
+     */
+    private boolean isManifestDirty;
+
+    /**
+     * Represents the id given to the next new segment.
+     */
+    private int nextId;
+
+    /**
+     * Creates a segmented store that writes text segments of the default size.
+     * @param path Path of the task file.
+     */
+    public SegmentedStore(Path path) {
+        this(path, TaskFile.Format.TEXT, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a segmented store that writes uncompressed segments.
+     * @param path Path of the task file.
+     * @param format Format segments are written in.
+     * @param segmentSize Largest number of tasks in a segment.
+     */
+    public SegmentedStore(Path path, TaskFile.Format format, int segmentSize) {
+        this(path, TaskFile.of(format), segmentSize);
+    }
+
+    /**
+     * Creates a segmented store.
+     * @param path Path of the task file.
+     * @param format Format and compression segments are written in.
+     * @param segmentSize Largest number of tasks in a segment.
+     */
+    public SegmentedStore(Path path, TaskFile format, int segmentSize) {
+        this.path = path;
+        this.directory = path.resolveSibling(path.getFileName() + ".segments");
+        this.format = format;
+        this.segmentSize = segmentSize;
+        this.flusher = new Flusher("segment-writer");
+        this.segments = new ArrayList<>();
+        this.droppedIds = new HashSet<>();
+    }
+
+    /**
+     * Parses every segment in parallel and adds their tasks to the given task manager in order. If there is
+     * no manifest yet, the task file is imported and split into segments.
+     * @param tasks Task manager to be filled.
+     * @return Number of entries that could not be parsed.
+     * @throws IOException If the files cannot be read.
+     */
+    @Override
+    public int load(TaskManager tasks) throws IOException {
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return importTaskFile(tasks);
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            if (!line.isBlank() && !line.equals(MANIFEST_HEADER)) {
+                ids.add(Integer.parseInt(line.trim()));
+            }
+        }
+        deleteUnlistedFiles(ids);
+        List<ForkJoinTask<Segment>> reads = new ArrayList<>();
+        for (int id : ids) {
+            reads.add(ForkJoinPool.commonPool().submit(() -> readSegment(id)));
+            nextId = Math.max(nextId, id + 1);
+        }
+        int badLineCount = 0;
+        for (ForkJoinTask<Segment> read : reads) {
+            Segment segment = join(read);
+            for (Task task : segment.tasks) {
+                tasks.addTask(task);
+            }
+            badLineCount += segment.badLineCount;
+            segments.add(segment);
+        }
+        return badLineCount;
+    }
+
+    /**
+     * Waits for a segment to be read.
+     * @param read Pending read of the segment.
+     * @return Segment.
+     * @throws IOException If the segment cannot be read.
+     */
+    private static Segment join(ForkJoinTask<Segment> read) throws IOException {
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while loading segments", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads every task of a segment file.
+     * @param id Id of the segment.
+     * @return Segment.
+     * @throws IOException If the file cannot be read.
+     */
+    private Segment readSegment(int id) throws IOException {
+        Segment segment = new Segment(id);
+        try (TaskFile.TaskReader reader = TaskFile.open(getSegmentPath(id))) {
+            Task task;
+            while ((task = reader.next()) != null) {
+                segment.tasks.add(task);
+            }
+            segment.badLineCount = reader.getBadLineCount();
+        }
+        return segment;
+    }
+
+    /**
+     * Deletes segment files and temporary files that the manifest does not list, which a crash during a
+     * save can leave behind.
+     * @param ids Ids of the segments listed in the manifest.
+     * @throws IOException If the directory cannot be read.
+     */
+    private void deleteUnlistedFiles(List<Integer> ids) throws IOException {
+        Set<String> listed = new HashSet<>();
+        listed.add(MANIFEST);
+        for (int id : ids) {
+            listed.add(String.valueOf(id));
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (!listed.contains(file.getFileName().toString())) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Splits the tasks of the task file into segments and writes them out.
+     * @param tasks Task manager to be filled.
+     * @return Number of entries that could not be parsed.
+     * @throws IOException If the files cannot be accessed.
+     */
+    private int importTaskFile(TaskManager tasks) throws IOException {
+        try (TaskFile.TaskReader reader = TaskFile.open(path)) {
+            Task task;
+            while ((task = reader.next()) != null) {
+                tasks.addTask(task);
+                append(task);
+            }
+            isManifestDirty = true;
+            writeDirtySegments();
+            return reader.getBadLineCount();
+        }
+    }
+
+    /**
+     * Gets the path of the file of a segment.
+     * @param id Id of the segment.
+     * @return Path of the segment file.
+     */
+    private Path getSegmentPath(int id) {
+        return directory.resolve(String.valueOf(id));
+    }
+
+    /**
+     * Adds a task to the last segment, starting a new segment if it is full.
+     * @param task Task to be added.
+     */
+    private synchronized void append(Task task) {
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last == null || last.tasks.size() >= segmentSize) {
+            last = new Segment(nextId++);
+            segments.add(last);
+            isManifestDirty = true;
+        }
+        last.tasks.add(task);
+        last.isDirty = true;
+    }
+
+    /**
+     * Inserts a task before the task at the given index, into that task's segment. Segments may grow past
+     * the segment size this way; they are only split when the file is written again from scratch.
+     * @param location Index of the new task.
+     * @param task Task to be inserted.
+     */
+    private void insert(int location, Task task) {
+        int[] found = locate(location);
+        Segment segment = segments.get(found[0]);
+        segment.tasks.add(found[1], task);
+        segment.isDirty = true;
+    }
+
+    /**
+     * Finds the segment that holds the task at the given index.
+     * @param location Index of the task.
+     * @return Position of the segment, and the index of the task within it.
+     */
+    private int[] locate(int location) {
+        int remaining = location;
+        for (int i = 0; i < segments.size(); i++) {
+            int size = segments.get(i).tasks.size();
+            if (remaining < size) {
+                return new int[] {i, remaining};
+            }
+            remaining -= size;
+        }
+        throw new IndexOutOfBoundsException("no task at index " + location);
+    }
+
+    /**
+     * Adds a newly added task to the last segment.
+     * @param task Task that was added.
+     * @throws IOException If an earlier save failed.
+     */
+    @Override
+    public void recordAdd(Task task) throws IOException {
+        append(task);
+        flusher.request(this::writeDirtySegments);
+    }
+
+    /**
+     * Inserts a task into the segment holding its neighbour, so that only that segment is rewritten.
+     * @param location Index of the new task.
+     * @param task Task that was inserted.
+     * @throws IOException If an earlier save failed.
+     */
+    @Override
+    public void recordInsert(int location, Task task) throws IOException {
+        synchronized (this) {
+            insert(location, task);
+        }
+        flusher.request(this::writeDirtySegments);
+    }
+
+    /**
+     * Removes a deleted task from its segment, dropping the segment if it becomes empty.
+     * @param location Index where the task was located.
+     * @throws IOException If an earlier save failed.
+     */
+    @Override
+    public void recordDelete(int location) throws IOException {
+        synchronized (this) {
+            int[] found = locate(location);
+            Segment segment = segments.get(found[0]);
+            segment.tasks.remove(found[1]);
+            segment.isDirty = true;
+            if (segment.tasks.isEmpty()) {
+                segments.remove(found[0]);
+                droppedIds.add(segment.id);
+                isManifestDirty = true;
+            }
+        }
+        flusher.request(this::writeDirtySegments);
+    }
+
+    /**
+     * Puts a copy of a marked or unmarked task with its new status in its segment, and marks the segment as
+     * changed.
+     * @param location Index where the task is located.
+     * @param isCompleted Whether the task is now completed.
+     * @throws IOException If an earlier save failed.
+     */
+    @Override
+    public void recordMark(int location, boolean isCompleted) throws IOException {
+        synchronized (this) {
+            int[] found = locate(location);
+            Segment segment = segments.get(found[0]);
+            segment.tasks.set(found[1], segment.tasks.get(found[1]).withStatus(isCompleted));
+            segment.isDirty = true;
+        }
+        flusher.request(this::writeDirtySegments);
+    }
+
+    /**
+     * Applies every range of a change set to the segments it falls in, and asks the flusher to rewrite
+     * just those segments once.
+     * @param changes Changes made since the last save.
+     * @throws IOException If an earlier save failed.
+     */
+    @Override
+    public void save(ChangeSet changes) throws IOException {
+        synchronized (this) {
+            for (ChangeSet.Change change : changes.getChanges()) {
+                switch (change.getKind()) {
+                case ADD:
+                    for (Task task : change.getTasks()) {
+                        append(task);
+                    }
+                    break;
+                case INSERT:
+                    for (int i = change.getStart(); i < change.getEnd(); i++) {
+                        insert(i, change.getTasks().get(i - change.getStart()));
+                    }
+                    break;
+                case REMOVE:
+                    removeRange(change.getStart(), change.getEnd());
+                    break;
+                case MODIFY:
+                    replaceRange(change.getStart(), change.getTasks());
+                    break;
+                default:
+                    throw new IOException("unknown change " + change.getKind());
+                }
+            }
+        }
+        flusher.request(this::writeDirtySegments);
+    }
+
+    /**
+     * Removes a range of tasks from the segments holding them, dropping segments that become empty.
+     * @param start Index of the first task.
+     * @param end Index after the last task.
+     */
+    private void removeRange(int start, int end) {
+        int[] found = locate(start);
+        int position = found[0];
+        int offset = found[1];
+        int remaining = end - start;
+        while (remaining > 0) {
+            Segment segment = segments.get(position);
+            int count = Math.min(remaining, segment.tasks.size() - offset);
+            segment.tasks.subList(offset, offset + count).clear();
+            segment.isDirty = true;
+            remaining -= count;
+            offset = 0;
+            if (segment.tasks.isEmpty()) {
+                segments.remove(position);
+                droppedIds.add(segment.id);
+                isManifestDirty = true;
+            } else {
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Puts the tasks that took the place of a range of tasks into the segments holding them, and marks
+     * those segments as changed.
+     * @param start Index of the first task.
+     * @param tasks Tasks now in the range, in list order.
+     */
+    private void replaceRange(int start, List<Task> tasks) {
+        int[] found = locate(start);
+        int position = found[0];
+        int offset = found[1];
+        for (Task task : tasks) {
+            Segment segment = segments.get(position);
+            segment.tasks.set(offset++, task);
+            segment.isDirty = true;
+            if (offset == segment.tasks.size()) {
+                position++;
+                offset = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes every changed segment to a file under a fresh id, then publishes them all at once by replacing
+     * the manifest atomically, and finally deletes the files of replaced and dropped segments. Until the
+     * manifest is replaced, the new files are not listed and the old ones are still in use.
+     * @throws IOException If the files cannot be written.
+     */
+    private void writeDirtySegments() throws IOException {
+        List<Segment> changed = new ArrayList<>();
+        List<Integer> manifestIds = null;
+        List<Integer> dropped;
+        synchronized (this) {
+            for (Segment segment : segments) {
+                if (segment.isDirty) {
+                    if (Files.exists(getSegmentPath(segment.id))) {
+                        droppedIds.add(segment.id);
+                        segment.id = nextId++;
+                    }
+                    Segment copy = new Segment(segment.id);
+                    copy.tasks.addAll(segment.tasks);
+                    changed.add(copy);
+                    segment.isDirty = false;
+                    isManifestDirty = true;
+                }
+            }
+            if (isManifestDirty) {
+                manifestIds = new ArrayList<>();
+                for (Segment segment : segments) {
+                    manifestIds.add(segment.id);
+                }
+                isManifestDirty = false;
+            }
+            dropped = new ArrayList<>(droppedIds);
+            droppedIds.clear();
+        }
+        for (Segment segment : changed) {
+            Path temp = directory.resolve(segment.id + ".tmp");
+            try (TaskFile.TaskWriter writer = format.openWriter(temp, 0)) {
+                for (Task task : segment.tasks) {
+                    writer.write(task);
+                }
+            }
+            // The file is new, so moving it only forces it to disk; the manifest publishes it.
+            Storage.moveAtomically(temp, getSegmentPath(segment.id));
+        }
+        if (manifestIds != null) {
+            StringBuilder manifest = new StringBuilder(MANIFEST_HEADER).append('\n');
+            for (int id : manifestIds) {
+                manifest.append(id).append('\n');
+            }
+            Path temp = directory.resolve(MANIFEST + ".tmp");
+            Files.writeString(temp, manifest, StandardCharsets.UTF_8);
+            Storage.moveAtomically(temp, directory.resolve(MANIFEST));
+        }
+        for (int id : dropped) {
+            Files.deleteIfExists(getSegmentPath(id));
+        }
+    }
+
+    /**
+     * Gets the number of segments.
+     * @return Number of segments.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Writes out every changed segment and stops the background thread.
+     * @throws IOException If the files cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        flusher.close();
+    }
+
+    /**
+     * Represents a run of consecutive tasks that is stored in its own file.
+     */
+    private static class Segment {
+
+        /**
+         * Represents the id of the segment, which names its file. A changed segment gets a fresh id when
+         * it is written.
+         */
+        private int id;
+
+        /**
+         * Represents the tasks of the segment in list order.
+         */
+        private final List<Task> tasks;
+
+        /**
+         * Represents whether the segment changed since it was last written.
+         */
+        private boolean isDirty;
+
+        /**
+         * Represents the number of entries that could not be parsed when the segment was read.
+         */
+        private int badLineCount;
+
+        /**
+         * Creates an empty segment.
+         * @param id Id of the segment.
+         */
+        private Segment(int id) {
+            this.id = id;
+            this.tasks = new ArrayList<>();
+        }
+    }
+}
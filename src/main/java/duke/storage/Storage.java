@@ -1,8 +1,20 @@
 package duke.storage;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import duke.task.ChangeSet;
+import duke.task.Task;
+import duke.task.TaskManager;
 
 /**
  * Represents a Storage class.
@@ -12,29 +24,148 @@ import java.io.IOException;
  */
 public class Storage {
 
+    /**
+     * Represents the default number of journal records that triggers a snapshot.
+     */
+    public static final int DEFAULT_SNAPSHOT_RECORD_THRESHOLD = 10_000;
+
+    /**
+     * Represents the default journal size in bytes that triggers a snapshot.
+     */
+    public static final long DEFAULT_SNAPSHOT_BYTE_THRESHOLD = 1L << 20;
+
     /**
      * Represents the path name.
      */
     private final String pathName;
 
     /**
-     * Represents the file writer.
+     * Represents the path of the task file.
+     */
+    private final Path path;
+
+    /**
+     * Represents the store that keeps the tasks on disk.
+     */
+    private final TaskStore store;
+
+    /**
+     * Represents the lock on the sidecar lock file, held while this storage owns the task file.
+     */
+    private FileLock lock;
+
+    /**
+     * Represents the watcher that reloads the task file when another program changes it.
+     */
+    private FileWatcher watcher;
+
+    /**
+     * Represents the task manager filled by the last load.
+     */
+    private TaskManager tasks;
+
+    /**
+     * Represents the number of times the task file was reloaded after an outside change. It is only written
+     * under the reload lock, and read without any lock.
+     */
+    private volatile int reloadCount;
+
+    /**
+     * Represents whether the store was loaded successfully, so that changes can be stored.
+     */
+    private boolean isLoaded;
+
+    /**
+     * Represents the lock held while reloading after an outside change, so that closing waits for a reload
+     * in progress. Commands are not held up by it.
+     */
+    private final Object reloadMonitor;
+
+    /**
+     * Represents the number of tasks restored by the last load.
+     */
+    private int loadedTaskCount;
+
+    /**
+     * Represents the number of lines that could not be parsed during the last load.
+     */
+    private int badLineCount;
+
+    /**
+     * Represents how long the last load took, in milliseconds.
      */
-    private FileWriter fw;
+    private long loadTimeMillis;
 
     /**
      * Represents a constructor method for Storage.
      * @param s File path
      */
     public Storage(String s) {
+        this(s, TaskFile.Format.TEXT);
+    }
+
+    /**
+     * Represents a constructor method for Storage that writes snapshots in the given format.
+     * @param s File path
+     * @param format Format snapshots are written in.
+     */
+    public Storage(String s, TaskFile.Format format) {
+        this(s, format, DEFAULT_SNAPSHOT_RECORD_THRESHOLD, DEFAULT_SNAPSHOT_BYTE_THRESHOLD);
+    }
+
+    /**
+     * Represents a constructor method for Storage that writes compressed snapshots in the given format.
+     * @param s File path
+     * @param format Format snapshots are written in.
+     * @param compressionLevel Deflate level from 0 to 9, or TaskFile.UNCOMPRESSED.
+     */
+    public Storage(String s, TaskFile.Format format, int compressionLevel) {
+        this(s, new JournalStore(Paths.get(s), TaskFile.of(format, compressionLevel),
+                DEFAULT_SNAPSHOT_RECORD_THRESHOLD, DEFAULT_SNAPSHOT_BYTE_THRESHOLD));
+    }
+
+    /**
+     * Represents a constructor method for Storage with custom snapshot thresholds.
+     * @param s File path
+     * @param snapshotRecordThreshold Number of journal records that triggers a snapshot.
+     * @param snapshotByteThreshold Journal size in bytes that triggers a snapshot.
+     */
+    public Storage(String s, int snapshotRecordThreshold, long snapshotByteThreshold) {
+        this(s, TaskFile.Format.TEXT, snapshotRecordThreshold, snapshotByteThreshold);
+    }
+
+    /**
+     * Represents a constructor method for Storage with a snapshot format and custom snapshot thresholds.
+     * @param s File path
+     * @param format Format snapshots are written in.
+     * @param snapshotRecordThreshold Number of journal records that triggers a snapshot.
+     * @param snapshotByteThreshold Journal size in bytes that triggers a snapshot.
+     */
+    public Storage(String s, TaskFile.Format format, int snapshotRecordThreshold, long snapshotByteThreshold) {
+        this(s, new JournalStore(Paths.get(s), format, snapshotRecordThreshold, snapshotByteThreshold));
+    }
+
+    /**
+     * Represents a constructor method for Storage that keeps the tasks in the given store.
+     * @param s File path
+     * @param store Store that keeps the tasks on disk.
+     */
+    public Storage(String s, TaskStore store) {
         this.pathName = s;
+        this.path = Paths.get(s);
+        this.store = store;
+        this.reloadMonitor = new Object();
     }
 
     /**
-     * Loads the storage.
-     * @return File writer which can be used to write message.
+     * Loads the storage into the given task manager, which later changes are made to. Entries that
+     * cannot be parsed are skipped and counted.
+     * @param tasks Task manager to be filled.
      */
-    public FileWriter load() {
+    public void load(TaskManager tasks) {
+        long start = System.nanoTime();
+        loadedTaskCount = 0;
+        badLineCount = 0;
         try {
             String[] array = pathName.split("/");
             int length = array.length;
@@ -43,12 +174,75 @@ public class Storage {
             } else {
                 this.createPathAndFile(array, length);
             }
-            fw = new FileWriter(pathName, false);
+            lock();
+            badLineCount = store.load(tasks);
+            // The loaded tasks are already stored, so they are not changes to be saved.
+            tasks.takeChanges();
+            tasks.clearHistory();
+            loadedTaskCount = tasks.getNumberOfTasks();
+            this.tasks = tasks;
+            watcher = new FileWatcher(path, this::reloadIfChanged);
+            isLoaded = true;
         } catch (IOException e) {
             e.printStackTrace();
         }
+        loadTimeMillis = (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Takes the lock on the sidecar lock file, so that no other instance writes the task file at the same time.
+     * @throws IOException If another instance holds the lock.
+     */
+    private void lock() throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(pathName + ".lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException(pathName + " is in use by another instance");
+        }
+    }
+
+    /**
+     * Reloads the task file if another program changed it. Runs on the watcher thread. The store holds the
+     * task manager only while changing it, and reads and writes the disk without it, so commands and the
+     * GUI are not held up by the disk.
+     */
+    private void reloadIfChanged() {
+        synchronized (reloadMonitor) {
+            if (!isLoaded) {
+                return;
+            }
+            try {
+                if (store.reloadIfChanged(tasks) >= 0) {
+                    reloadCount++;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
-        return fw;
+    /**
+     * Forces a fully written temporary file to disk and then moves it over the target in one step,
+     * so that a crash leaves either the old or the new file in place, never a partial one.
+     * @param temp Path of the temporary file.
+     * @param target Path of the file to be replaced.
+     * @throws IOException If the file cannot be forced or moved.
+     */
+    static void moveAtomically(Path temp, Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     /**
@@ -86,12 +280,153 @@ public class Storage {
     }
 
     /**
-     * Edits the text file using the file writer.
-     * @param s Message to be appended.
+     * Overwrites the text file with the given message, through a temporary file that is moved into place.
+     * @param s Message to be written.
      * @throws IOException If pathName is invalid.
      */
     public void editStorage(String s) throws IOException {
-        fw.write(s);
-        fw.close();
+        Path temp = Paths.get(pathName + ".tmp");
+        Files.writeString(temp, s);
+        moveAtomically(temp, path);
+    }
+
+    /**
+     * Saves the changes made to the task list since the last save. Only the changed ranges are written.
+     * @param changes Changes taken from the task manager.
+     * @throws IOException If the store cannot be written.
+     */
+    public void save(ChangeSet changes) throws IOException {
+        if (!changes.checkIfEmpty()) {
+            getStore().save(changes);
+        }
+    }
+
+    /**
+     * Records a newly added task in the store.
+     * @param task Task that was added.
+     * @throws IOException If the store cannot be written.
+     */
+    public void recordAdd(Task task) throws IOException {
+        getStore().recordAdd(task);
+    }
+
+    /**
+     * Records a task inserted before the end of the list in the store.
+     * @param location Index of the new task.
+     * @param task Task that was inserted.
+     * @throws IOException If the store cannot be written.
+     */
+    public void recordInsert(int location, Task task) throws IOException {
+        getStore().recordInsert(location, task);
+    }
+
+    /**
+     * Records a deleted task in the store.
+     * @param location Index where the task was located.
+     * @throws IOException If the store cannot be written.
+     */
+    public void recordDelete(int location) throws IOException {
+        getStore().recordDelete(location);
+    }
+
+    /**
+     * Records a marked or unmarked task in the store.
+     * @param location Index where the task is located.
+     * @param isCompleted Whether the task is now completed.
+     * @throws IOException If the store cannot be written.
+     */
+    public void recordMark(int location, boolean isCompleted) throws IOException {
+        getStore().recordMark(location, isCompleted);
+    }
+
+    /**
+     * Waits until every change saved so far is on disk. Does nothing if the storage is not loaded.
+     * @throws IOException If the changes could not be written.
+     */
+    public void awaitDurable() throws IOException {
+        if (isLoaded) {
+            store.awaitDurable();
+        }
+    }
+
+    /**
+     * Gets the store, failing if the storage was never loaded.
+     * @return Store.
+     * @throws IOException If the storage is not loaded.
+     */
+    private TaskStore getStore() throws IOException {
+        if (!isLoaded) {
+            throw new IOException("storage has not been loaded");
+        }
+        return store;
+    }
+
+    /**
+     * Writes out everything that is still pending and closes the storage.
+     * @throws IOException If the store cannot be written.
+     */
+    public void close() throws IOException {
+        synchronized (reloadMonitor) {
+            if (tasks == null) {
+                isLoaded = false;
+            } else {
+                synchronized (tasks) {
+                    isLoaded = false;
+                }
+            }
+        }
+        try {
+            if (watcher != null) {
+                watcher.close();
+                watcher = null;
+            }
+            store.close();
+        } finally {
+            if (lock != null) {
+                lock.channel().close();
+                lock = null;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of times the task file was reloaded after an outside change.
+     * @return Number of reloads.
+     */
+    public int getReloadCount() {
+        return reloadCount;
+    }
+
+    /**
+     * Gets the number of tasks restored by the last load.
+     * @return Number of tasks.
+     */
+    public int getLoadedTaskCount() {
+        return loadedTaskCount;
+    }
+
+    /**
+     * Gets the number of lines and journal records skipped by the last load because they could not be parsed.
+     * @return Number of bad lines.
+     */
+    public int getBadLineCount() {
+        return badLineCount;
+    }
+
+    /**
+     * Gets how long the last load took.
+     * @return Load time in milliseconds.
+     */
+    public long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
+    /**
+     * Crafts a one-line summary of the last load.
+     * @return String message.
+     */
+    public String craftLoadSummary() {
+        return "Loaded " + loadedTaskCount + " task(s) from " + pathName + " in " + loadTimeMillis + " ms ("
+                + badLineCount + " bad line(s) skipped)";
     }
 }
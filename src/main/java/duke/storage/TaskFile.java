@@ -0,0 +1,755 @@
+package duke.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import duke.task.Task;
+
+/**
+ * Represents a file format that a full list of tasks can be written in, optionally compressed. A
+ * compressed file is a short header followed by the deflated bytes of the uncompressed file.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public abstract class TaskFile {
+
+    /**
+     * Represents the formats a task file can be written in.
+     */
+    public enum Format {
+        TEXT,
+        BINARY
+    }
+
+    /**
+     * Represents the compression level of files that are not compressed.
+     */
+    public static final int UNCOMPRESSED = -1;
+
+    /**
+     * Represents the bytes every binary task file starts with.
+     */
+    private static final byte[] BINARY_MAGIC = {'D', 'U', 'K', 'B'};
+
+    /**
+     * Represents the version of the binary format written by this class.
+     */
+    private static final int BINARY_VERSION = 1;
+
+    /**
+     * Represents the bytes every compressed task file starts with.
+     */
+    private static final byte[] COMPRESSED_MAGIC = {'D', 'U', 'K', 'Z'};
+
+    /**
+     * Represents the version of the compressed container written by this class.
+     */
+    private static final int COMPRESSED_VERSION = 1;
+
+    /**
+     * Represents the size of the buffers between the file and the format.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Represents the comment that starts the snapshot header line of a text task file.
+     */
+    private static final String GENERATION_HEADER = "# generation ";
+
+    /**
+     * Represents the compression level files are written with, or UNCOMPRESSED.
+     */
+    private final int compressionLevel;
+
+    /**
+     * Constructor for TaskFile.
+     *
+     * @param compressionLevel Compression level files are written with, or UNCOMPRESSED.
+     */
+    private TaskFile(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Creates an uncompressed task file format through a factory method.
+     *
+     * @param format Format of the file.
+     * @return TaskFile object.
+     */
+    public static TaskFile of(Format format) {
+        return of(format, UNCOMPRESSED);
+    }
+
+    /**
+     * Creates a task file format that compresses files at the given level through a factory method.
+     *
+     * @param format Format of the file.
+     * @param compressionLevel Deflate level from 0 to 9, or UNCOMPRESSED.
+     * @return TaskFile object.
+     */
+    public static TaskFile of(Format format, int compressionLevel) {
+        assert compressionLevel == UNCOMPRESSED || compressionLevel >= 0 && compressionLevel <= 9
+                : "the compression level should be between 0 and 9";
+        switch (format) {
+        case TEXT:
+            return new Text(compressionLevel);
+        case BINARY:
+            return new Binary(compressionLevel);
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Detects the format of an existing file from its first bytes, looking inside compressed files.
+     * Empty or missing files are text files.
+     *
+     * @param path Path of the file.
+     * @return Format of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public static Format detect(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return Format.TEXT;
+        }
+        try (InputStream in = openInput(path)) {
+            return detect(in);
+        }
+    }
+
+    /**
+     * Detects the format of a stream from its first bytes, leaving the stream where it was.
+     *
+     * @param in Stream that supports mark and reset.
+     * @return Format of the stream.
+     * @throws IOException If the stream cannot be read.
+     */
+    private static Format detect(InputStream in) throws IOException {
+        return startsWith(in, BINARY_MAGIC) ? Format.BINARY : Format.TEXT;
+    }
+
+    /**
+     * Checks if a stream starts with the given bytes, leaving the stream where it was.
+     *
+     * @param in Stream that supports mark and reset.
+     * @param magic Bytes to look for.
+     * @return Boolean.
+     * @throws IOException If the stream cannot be read.
+     */
+    private static boolean startsWith(InputStream in, byte[] magic) throws IOException {
+        byte[] head = new byte[magic.length];
+        in.mark(magic.length);
+        int read = in.readNBytes(head, 0, head.length);
+        in.reset();
+        return read == head.length && Arrays.equals(head, magic);
+    }
+
+    /**
+     * Checks if an existing file is compressed.
+     *
+     * @param path Path of the file.
+     * @return Boolean.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean checkIfCompressed(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), COMPRESSED_MAGIC.length)) {
+            return startsWith(in, COMPRESSED_MAGIC);
+        }
+    }
+
+    /**
+     * Opens a file for reading its uncompressed bytes, decompressing it if it has a compressed header.
+     *
+     * @param path Path of the file.
+     * @return Buffered stream that supports mark and reset.
+     * @throws IOException If the file cannot be read or has an unknown compressed header.
+     */
+    private static InputStream openInput(Path path) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        if (!startsWith(in, COMPRESSED_MAGIC)) {
+            return in;
+        }
+        in.readNBytes(COMPRESSED_MAGIC.length);
+        int version = in.read();
+        if (version != COMPRESSED_VERSION) {
+            in.close();
+            throw new IOException("unsupported compressed task file in " + path);
+        }
+        // The level is only recorded for reference; inflating does not need it.
+        in.read();
+        return new BufferedInputStream(CompressionPool.decompress(in), BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a file for writing, writing the compressed header and compressing everything after it if
+     * this format compresses.
+     *
+     * @param path Path of the file.
+     * @return Stream for the uncompressed bytes.
+     * @throws IOException If the file cannot be written.
+     */
+    private OutputStream openOutput(Path path) throws IOException {
+        OutputStream out = Files.newOutputStream(path);
+        if (compressionLevel == UNCOMPRESSED) {
+            return new BufferedOutputStream(out, BUFFER_SIZE);
+        }
+        out.write(COMPRESSED_MAGIC);
+        out.write(COMPRESSED_VERSION);
+        out.write(compressionLevel);
+        return new BufferedOutputStream(CompressionPool.compress(out, compressionLevel), BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a file for reading, in whichever format and compression it was written.
+     *
+     * @param path Path of the file.
+     * @return Reader positioned at the first task.
+     * @throws IOException If the file cannot be read.
+     */
+    public static TaskReader open(Path path) throws IOException {
+        InputStream in = openInput(path);
+        try {
+            return of(detect(in)).openReader(in, path);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the task lines of a file in the text format, without parsing them. Files in other formats or
+     * compressed files are parsed and each task is turned back into its line.
+     *
+     * @param path Path of the file.
+     * @return Lines of the tasks, without the header and blank lines.
+     * @throws IOException If the file cannot be read.
+     */
+    public static List<String> readTaskLines(Path path) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (detect(path) == Format.TEXT && !checkIfCompressed(path)) {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (!line.isBlank() && !(lines.isEmpty() && line.startsWith(GENERATION_HEADER))) {
+                    lines.add(line);
+                }
+            }
+            return lines;
+        }
+        try (TaskReader reader = open(path)) {
+            Task task;
+            while ((task = reader.next()) != null) {
+                lines.add(task.constructTextFileMessage());
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Rewrites a task file in the given format, one task at a time. The target is replaced only once it
+     * has been fully written, so the source and target may be the same file.
+     *
+     * @param source Path of the existing file.
+     * @param target Path of the file to be written.
+     * @param format Format of the file to be written.
+     * @return Number of tasks written.
+     * @throws IOException If either file cannot be accessed.
+     */
+    public static int convert(Path source, Path target, Format format) throws IOException {
+        return convert(source, target, of(format));
+    }
+
+    /**
+     * Rewrites a task file in the given format and compression, one task at a time. The target is
+     * replaced only once it has been fully written, so the source and target may be the same file.
+     *
+     * @param source Path of the existing file.
+     * @param target Path of the file to be written.
+     * @param file Format and compression of the file to be written.
+     * @return Number of tasks written.
+     * @throws IOException If either file cannot be accessed.
+     */
+    public static int convert(Path source, Path target, TaskFile file) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        int count = 0;
+        try (TaskReader reader = open(source);
+             TaskWriter writer = file.openWriter(temp, reader.getGeneration())) {
+            Task task;
+            while ((task = reader.next()) != null) {
+                writer.write(task);
+                count++;
+            }
+        }
+        Storage.moveAtomically(temp, target);
+        return count;
+    }
+
+    /**
+     * Gets the format of the file.
+     *
+     * @return Format.
+     */
+    public abstract Format getFormat();
+
+    /**
+     * Gets the compression level files are written with.
+     *
+     * @return Deflate level, or UNCOMPRESSED.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Opens a file written in this format for reading, decompressing it if needed.
+     *
+     * @param path Path of the file.
+     * @return Reader positioned at the first task.
+     * @throws IOException If the file cannot be read.
+     */
+    public TaskReader openReader(Path path) throws IOException {
+        InputStream in = openInput(path);
+        try {
+            return openReader(in, path);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts reading uncompressed bytes written in this format.
+     *
+     * @param in Buffered stream of uncompressed bytes.
+     * @param path Path of the file, for error messages.
+     * @return Reader positioned at the first task.
+     * @throws IOException If the stream cannot be read.
+     */
+    protected abstract TaskReader openReader(InputStream in, Path path) throws IOException;
+
+    /**
+     * Creates a file in this format, replacing any existing file, and compressing it if this format
+     * compresses.
+     *
+     * @param path Path of the file.
+     * @param generation Latest journal generation contained in the file.
+     * @return Writer for the tasks.
+     * @throws IOException If the file cannot be written.
+     */
+    public TaskWriter openWriter(Path path, long generation) throws IOException {
+        OutputStream out = openOutput(path);
+        try {
+            return openWriter(out, generation);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts writing uncompressed bytes in this format.
+     *
+     * @param out Buffered stream for uncompressed bytes.
+     * @param generation Latest journal generation contained in the file.
+     * @return Writer for the tasks.
+     * @throws IOException If the stream cannot be written.
+     */
+    protected abstract TaskWriter openWriter(OutputStream out, long generation) throws IOException;
+
+    /**
+     * Represents a reader that returns the tasks of a file one at a time.
+     */
+    public abstract static class TaskReader implements Closeable {
+
+        /**
+         * Represents the latest journal generation contained in the file, or -1 if unknown.
+         */
+        private final long generation;
+
+        /**
+         * Represents the number of entries that could not be parsed so far.
+         */
+        private int badLineCount;
+
+        /**
+         * Constructor for TaskReader.
+         *
+         * @param generation Latest journal generation contained in the file, or -1 if unknown.
+         */
+        protected TaskReader(long generation) {
+            this.generation = generation;
+        }
+
+        /**
+         * Counts an entry that could not be parsed.
+         */
+        protected void countBadLine() {
+            badLineCount++;
+        }
+
+        /**
+         * Reads the next task, skipping entries that cannot be parsed.
+         *
+         * @return Task, or null at the end of the file.
+         * @throws IOException If the file cannot be read.
+         */
+        public abstract Task next() throws IOException;
+
+        /**
+         * Gets the latest journal generation contained in the file.
+         *
+         * @return Generation, or -1 if the file has no header.
+         */
+        public long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Gets the number of entries skipped so far because they could not be parsed.
+         *
+         * @return Number of bad entries.
+         */
+        public int getBadLineCount() {
+            return badLineCount;
+        }
+    }
+
+    /**
+     * Represents a writer that appends tasks to a file one at a time.
+     */
+    public abstract static class TaskWriter implements Closeable {
+
+        /**
+         * Writes a task.
+         *
+         * @param task Task to be written.
+         * @throws IOException If the file cannot be written.
+         */
+        public abstract void write(Task task) throws IOException;
+    }
+
+    /**
+     * Represents the human-readable " | " separated format.
+     */
+    private static class Text extends TaskFile {
+
+        /**
+         * Constructor for Text.
+         *
+         * @param compressionLevel Compression level files are written with, or UNCOMPRESSED.
+         */
+        private Text(int compressionLevel) {
+            super(compressionLevel);
+        }
+
+        /**
+         * Gets the format of the file.
+         *
+         * @return Format.
+         */
+        @Override
+        public Format getFormat() {
+            return Format.TEXT;
+        }
+
+        /**
+         * Starts reading a text file.
+         *
+         * @param in Buffered stream of uncompressed bytes.
+         * @param path Path of the file, for error messages.
+         * @return Reader positioned at the first task.
+         * @throws IOException If the stream cannot be read.
+         */
+        @Override
+        protected TaskReader openReader(InputStream in, Path path) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String firstLine = reader.readLine();
+            long generation = -1;
+            if (firstLine != null && firstLine.startsWith(GENERATION_HEADER)) {
+                try {
+                    generation = Long.parseLong(firstLine.substring(GENERATION_HEADER.length()));
+                    firstLine = null;
+                } catch (NumberFormatException e) {
+                    // Left as the first line, so that it is counted as a bad line.
+                }
+            }
+            String pendingLine = firstLine;
+            return new TaskReader(generation) {
+                private String nextLine = pendingLine;
+
+                @Override
+                public Task next() throws IOException {
+                    String line = nextLine == null ? reader.readLine() : nextLine;
+                    nextLine = null;
+                    for (; line != null; line = reader.readLine()) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        Task task = Task.fromTextFileMessage(line);
+                        if (task != null) {
+                            return task;
+                        }
+                        countBadLine();
+                    }
+                    return null;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    reader.close();
+                }
+            };
+        }
+
+        /**
+         * Starts writing a text file.
+         *
+         * @param out Buffered stream for uncompressed bytes.
+         * @param generation Latest journal generation contained in the file.
+         * @return Writer for the tasks.
+         * @throws IOException If the stream cannot be written.
+         */
+        @Override
+        protected TaskWriter openWriter(OutputStream out, long generation) throws IOException {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(GENERATION_HEADER + generation);
+            return new TaskWriter() {
+                @Override
+                public void write(Task task) throws IOException {
+                    writer.newLine();
+                    writer.write(task.constructTextFileMessage());
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.close();
+                }
+            };
+        }
+    }
+
+    /**
+     * Represents the compact binary format. After a header of magic bytes, a version byte and the
+     * generation, each task is a flag byte holding its type and completion, an epoch-day int for
+     * deadlines and events, and a varint-length-prefixed UTF-8 description.
+     */
+    private static class Binary extends TaskFile {
+
+        /**
+         * Represents the flag bit for a completed task.
+         */
+        private static final int COMPLETED_FLAG = 0x80;
+
+        /**
+         * Represents the bits of the flag byte that hold the task type.
+         */
+        private static final int TYPE_MASK = 0x0F;
+
+        /**
+         * Represents the longest description in bytes that is read, so that a corrupt length is not taken
+         * for a real one.
+         */
+        private static final int MAX_DESCRIPTION_BYTES = 1 << 24;
+
+        /**
+         * Constructor for Binary.
+         *
+         * @param compressionLevel Compression level files are written with, or UNCOMPRESSED.
+         */
+        private Binary(int compressionLevel) {
+            super(compressionLevel);
+        }
+
+        /**
+         * Gets the format of the file.
+         *
+         * @return Format.
+         */
+        @Override
+        public Format getFormat() {
+            return Format.BINARY;
+        }
+
+        /**
+         * Starts reading a binary file.
+         *
+         * @param stream Buffered stream of uncompressed bytes.
+         * @param path Path of the file, for error messages.
+         * @return Reader positioned at the first task.
+         * @throws IOException If the stream cannot be read or has an unknown header.
+         */
+        @Override
+        protected TaskReader openReader(InputStream stream, Path path) throws IOException {
+            DataInputStream in = new DataInputStream(stream);
+            byte[] magic = new byte[BINARY_MAGIC.length];
+            in.readFully(magic);
+            int version = in.readUnsignedByte();
+            if (!Arrays.equals(magic, BINARY_MAGIC) || version != BINARY_VERSION) {
+                in.close();
+                throw new IOException("unsupported task file format in " + path);
+            }
+            long fileGeneration = in.readLong();
+            Task.TaskType[] types = Task.TaskType.values();
+            return new TaskReader(fileGeneration) {
+                private byte[] buffer = new byte[256];
+
+                @Override
+                public Task next() throws IOException {
+                    while (true) {
+                        int flags = in.read();
+                        if (flags < 0) {
+                            return null;
+                        }
+                        try {
+                            int typeIndex = flags & TYPE_MASK;
+                            if (typeIndex >= types.length) {
+                                // The rest of the file cannot be framed once a flag byte is corrupt.
+                                countBadLine();
+                                return null;
+                            }
+                            Task.TaskType type = types[typeIndex];
+                            int epochDay = type == Task.TaskType.TODO ? 0 : in.readInt();
+                            int length = readVarInt(in);
+                            if (length < 0 || length > MAX_DESCRIPTION_BYTES) {
+                                // Nor once a length is corrupt.
+                                countBadLine();
+                                return null;
+                            }
+                            readDescription(length);
+                            LocalDate date;
+                            try {
+                                date = type == Task.TaskType.TODO ? null : LocalDate.ofEpochDay(epochDay);
+                            } catch (DateTimeException e) {
+                                // The record was framed whole, so only it is skipped.
+                                countBadLine();
+                                continue;
+                            }
+                            String description = new String(buffer, 0, length, StandardCharsets.UTF_8);
+                            Task task = Task.of(type, description, date);
+                            if ((flags & COMPLETED_FLAG) != 0) {
+                                task.markComplete();
+                            }
+                            return task;
+                        } catch (EOFException e) {
+                            // A truncated final record, e.g. from a crash during a write.
+                            countBadLine();
+                            return null;
+                        }
+                    }
+                }
+
+                /**
+                 * Reads a description into the buffer, growing it only as the bytes arrive, so that a
+                 * length larger than the rest of the file ends in an EOFException instead of a huge buffer.
+                 * @param length Length of the description in bytes.
+                 * @throws IOException If the stream ends first or cannot be read.
+                 */
+                private void readDescription(int length) throws IOException {
+                    int filled = 0;
+                    while (filled < length) {
+                        if (filled == buffer.length) {
+                            buffer = Arrays.copyOf(buffer, (int) Math.min(length, buffer.length * 2L));
+                        }
+                        int count = Math.min(length, buffer.length) - filled;
+                        in.readFully(buffer, filled, count);
+                        filled += count;
+                    }
+                }
+
+                @Override
+                public void close() throws IOException {
+                    in.close();
+                }
+            };
+        }
+
+        /**
+         * Starts writing a binary file.
+         *
+         * @param stream Buffered stream for uncompressed bytes.
+         * @param generation Latest journal generation contained in the file.
+         * @return Writer for the tasks.
+         * @throws IOException If the stream cannot be written.
+         */
+        @Override
+        protected TaskWriter openWriter(OutputStream stream, long generation) throws IOException {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.write(BINARY_MAGIC);
+            out.writeByte(BINARY_VERSION);
+            out.writeLong(generation);
+            return new TaskWriter() {
+                @Override
+                public void write(Task task) throws IOException {
+                    int flags = task.getTaskType().ordinal() | (task.checkIfCompleted() ? COMPLETED_FLAG : 0);
+                    out.writeByte(flags);
+                    if (task.getDate() != null) {
+                        out.writeInt((int) task.getDate().toEpochDay());
+                    }
+                    byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+                    writeVarInt(out, description.length);
+                    out.write(description);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    out.close();
+                }
+            };
+        }
+
+        /**
+         * Writes a non-negative int using as few bytes as possible, seven bits per byte.
+         *
+         * @param out Stream to write to.
+         * @param value Value to be written.
+         * @throws IOException If the stream cannot be written.
+         */
+        private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        /**
+         * Reads an int written by {@link #writeVarInt(DataOutputStream, int)}.
+         *
+         * @param in Stream to read from.
+         * @return Value read, or -1 if it runs past five bytes or does not fit in a non-negative int.
+         * @throws IOException If the stream cannot be read.
+         */
+        private static int readVarInt(DataInputStream in) throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value > Integer.MAX_VALUE ? -1 : (int) value;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package duke.storage;
+
+import java.io.IOException;
+
+import duke.task.ChangeSet;
+import duke.task.Task;
+import duke.task.TaskManager;
+
+/**
+ * Represents a way of keeping the task list on disk. Storage delegates to one of these.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public interface TaskStore {
+
+    /**
+     * Loads every stored task into the given task manager, which later changes are made to.
+     * @param tasks Task manager to be filled.
+     * @return Number of entries that could not be parsed.
+     * @throws IOException If the files cannot be read.
+     */
+    int load(TaskManager tasks) throws IOException;
+
+    /**
+     * Stores a newly added task.
+     * @param task Task that was added.
+     * @throws IOException If the change cannot be stored.
+     */
+    void recordAdd(Task task) throws IOException;
+
+    /**
+     * Stores a task inserted before the end of the list.
+     * @param location Index of the new task.
+     * @param task Task that was inserted.
+     * @throws IOException If the change cannot be stored.
+     */
+    void recordInsert(int location, Task task) throws IOException;
+
+    /**
+     * Stores the deletion of a task.
+     * @param location Index where the task was located.
+     * @throws IOException If the change cannot be stored.
+     */
+    void recordDelete(int location) throws IOException;
+
+    /**
+     * Stores a task that was marked or unmarked.
+     * @param location Index where the task is located.
+     * @param isCompleted Whether the task is now completed.
+     * @throws IOException If the change cannot be stored.
+     */
+    void recordMark(int location, boolean isCompleted) throws IOException;
+
+    /**
+     * Stores every change of a change set, in order. By default each task in a changed range is stored as
+     * its own delta; stores that can write a whole range at once override this.
+     * @param changes Changes made since the last save.
+     * @throws IOException If the changes cannot be stored.
+     */
+    default void save(ChangeSet changes) throws IOException {
+        for (ChangeSet.Change change : changes.getChanges()) {
+            switch (change.getKind()) {
+            case ADD:
+                for (Task task : change.getTasks()) {
+                    recordAdd(task);
+                }
+                break;
+            case INSERT:
+                for (int i = change.getStart(); i < change.getEnd(); i++) {
+                    recordInsert(i, change.getTasks().get(i - change.getStart()));
+                }
+                break;
+            case REMOVE:
+                for (int i = change.getStart(); i < change.getEnd(); i++) {
+                    recordDelete(change.getStart());
+                }
+                break;
+            case MODIFY:
+                for (int i = change.getStart(); i < change.getEnd(); i++) {
+                    recordMark(i, change.getTasks().get(i - change.getStart()).checkIfCompleted());
+                }
+                break;
+            default:
+                throw new IOException("unknown change " + change.getKind());
+            }
+        }
+    }
+
+    /**
+     * Brings the given task manager up to date with the stored file if it was changed by another
+     * program. Stores that cannot be edited from outside leave the task manager as it is. This is called
+     * without holding the task manager, which the store locks only while changing it.
+     * @param tasks Task manager loaded from this store.
+     * @return Number of tasks that had to be parsed again, or -1 if the file did not change.
+     * @throws IOException If the file cannot be read.
+     */
+    default int reloadIfChanged(TaskManager tasks) throws IOException {
+        return -1;
+    }
+
+    /**
+     * Waits until every change recorded so far is on disk, for callers that need a change to survive a
+     * crash before going on. Commands do not wait for this, so that bursts of them share one force, and
+     * closing the store forces whatever is left. Stores that give no such promise return at once.
+     * @throws IOException If the changes could not be written.
+     */
+    default void awaitDurable() throws IOException {
+    }
+
+    /**
+     * Writes out everything that is still pending and releases the files.
+     * @throws IOException If the changes cannot be stored.
+     */
+    void close() throws IOException;
+}
@@ -0,0 +1,214 @@
+package duke.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the changes made to a task list since it was last saved, as an ordered list of ranges of
+ * added, inserted, removed and modified tasks. Added tasks go at the end of the list and inserted ones
+ * before it. Neighbouring changes of the same kind are merged into one range.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class ChangeSet {
+
+    /**
+     * Represents the kinds of changes.
+     */
+    public enum Kind {
+        ADD,
+        INSERT,
+        REMOVE,
+        MODIFY,
+    }
+
+    /**
+     * Represents the changes in the order they were made.
+     */
+    private final List<Change> changes;
+
+    /**
+     * Creates an empty change set.
+     */
+    public ChangeSet() {
+        this.changes = new ArrayList<>();
+    }
+
+    /**
+     * Records a task added at the given index.
+     * @param location Index of the new task.
+     * @param task Task that was added.
+     */
+    void recordAdd(int location, Task task) {
+        Change last = getLast();
+        if (last != null && last.kind == Kind.ADD && last.end == location) {
+            last.end++;
+            last.tasks.add(task);
+            return;
+        }
+        Change change = new Change(Kind.ADD, location, location + 1);
+        change.tasks.add(task);
+        changes.add(change);
+    }
+
+    /**
+     * Records a task inserted at the given index, before the end of the list.
+     * @param location Index of the new task.
+     * @param task Task that was inserted.
+     */
+    void recordInsert(int location, Task task) {
+        Change last = getLast();
+        if (last != null && last.kind == Kind.INSERT && last.end == location) {
+            last.end++;
+            last.tasks.add(task);
+            return;
+        }
+        Change change = new Change(Kind.INSERT, location, location + 1);
+        change.tasks.add(task);
+        changes.add(change);
+    }
+
+    /**
+     * Records a task removed from the given index.
+     * @param location Index the task was removed from.
+     */
+    void recordRemove(int location) {
+        Change last = getLast();
+        if (last != null && last.kind == Kind.REMOVE && last.start == location) {
+            last.end++;
+        } else if (last != null && last.kind == Kind.REMOVE && last.start == location + 1) {
+            last.start--;
+        } else {
+            changes.add(new Change(Kind.REMOVE, location, location + 1));
+        }
+    }
+
+    /**
+     * Records a task put in place of the one at the given index, such as a copy of it that was marked.
+     * @param location Index of the task.
+     * @param task Task now at the index.
+     */
+    void recordModify(int location, Task task) {
+        Change last = getLast();
+        if (last != null && (last.kind == Kind.ADD || last.kind == Kind.INSERT)
+                && location >= last.start && location < last.end) {
+            // The added task is saved with its latest state.
+            last.tasks.set(location - last.start, task);
+            return;
+        }
+        if (last != null && last.kind == Kind.MODIFY) {
+            if (location >= last.start && location < last.end) {
+                last.tasks.set(location - last.start, task);
+                return;
+            } else if (location == last.end) {
+                last.end++;
+                last.tasks.add(task);
+                return;
+            } else if (location == last.start - 1) {
+                last.start--;
+                last.tasks.add(0, task);
+                return;
+            }
+        }
+        Change change = new Change(Kind.MODIFY, location, location + 1);
+        change.tasks.add(task);
+        changes.add(change);
+    }
+
+    /**
+     * Gets the latest change, if any.
+     * @return Change, or null if there is none.
+     */
+    private Change getLast() {
+        return changes.isEmpty() ? null : changes.get(changes.size() - 1);
+    }
+
+    /**
+     * Gets the changes in the order they were made.
+     * @return List of changes.
+     */
+    public List<Change> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Checks if no change was made.
+     * @return Boolean.
+     */
+    public boolean checkIfEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Represents a range of tasks that were added, removed or modified.
+     */
+    public static class Change {
+
+        /**
+         * Represents the kind of change.
+         */
+        private final Kind kind;
+
+        /**
+         * Represents the tasks that were added, inserted or modified, in list order.
+         */
+        private final List<Task> tasks;
+
+        /**
+         * Represents the index of the first task in the range.
+         */
+        private int start;
+
+        /**
+         * Represents the index after the last task in the range.
+         */
+        private int end;
+
+        /**
+         * Creates a change.
+         * @param kind Kind of change.
+         * @param start Index of the first task.
+         * @param end Index after the last task.
+         */
+        private Change(Kind kind, int start, int end) {
+            this.kind = kind;
+            this.start = start;
+            this.end = end;
+            this.tasks = new ArrayList<>();
+        }
+
+        /**
+         * Gets the kind of change.
+         * @return Kind.
+         */
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Gets the index of the first task in the range, counted in the list as it was before this change.
+         * @return Index.
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * Gets the index after the last task in the range.
+         * @return Index.
+         */
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * Gets the tasks that were added, inserted or modified. Removals carry no tasks.
+         * @return List of tasks.
+         */
+        public List<Task> getTasks() {
+            return Collections.unmodifiableList(tasks);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package duke.task;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Represents a list of tasks kept as parallel columns of primitives instead of task objects. The type and
+ * status of every task share one byte, dates are epoch days and descriptions are packed into one shared
+ * character arena, so each task costs a few bytes plus its characters rather than three objects with
+ * their headers and references.
+ *
+ * <p>Tasks returned by {@link #get(int)} are views created on demand. Changing a view does not change the
+ * list until it is written back with {@link #set(int, Task)}.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+class ColumnarTaskList extends AbstractList<Task> implements RandomAccess {
+
+    /**
+     * Represents the bits of a flag byte holding the ordinal of the task type.
+     */
+    private static final int TYPE_MASK = 0x0F;
+
+    /**
+     * Represents the bit of a flag byte set for a completed task.
+     */
+    private static final int COMPLETED = 0x10;
+
+    /**
+     * Represents the epoch day stored for a task without a date.
+     */
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    /**
+     * Represents the capacity of the columns when the first task is added.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Represents the task types by ordinal.
+     */
+    private static final Task.TaskType[] TYPES = Task.TaskType.values();
+
+    /**
+     * Represents the type and status of each task.
+     */
+    private byte[] flags;
+
+    /**
+     * Represents the date of each task as an epoch day.
+     */
+    private int[] dates;
+
+    /**
+     * Represents where the description of each task starts in the arena.
+     */
+    private int[] offsets;
+
+    /**
+     * Represents the length of the description of each task.
+     */
+    private int[] lengths;
+
+    /**
+     * Represents the characters of every description.
+     */
+    private char[] arena;
+
+    /**
+     * Represents the number of characters of the arena in use, including those no task refers to any more.
+     */
+    private int arenaUsed;
+
+    /**
+     * Represents the number of characters of the arena no task refers to any more.
+     */
+    private int arenaGarbage;
+
+    /**
+     * Represents the number of tasks.
+     */
+    private int size;
+
+    /**
+     * Creates an empty list.
+     */
+    ColumnarTaskList() {
+        this.flags = new byte[0];
+        this.dates = new int[0];
+        this.offsets = new int[0];
+        this.lengths = new int[0];
+        this.arena = new char[0];
+    }
+
+    /**
+     * Creates a view of the task at a position.
+     * @param index Position of the task.
+     * @return Task.
+     */
+    @Override
+    public Task get(int index) {
+        checkIndex(index, size);
+        Task.TaskType type = TYPES[flags[index] & TYPE_MASK];
+        String description = new String(arena, offsets[index], lengths[index]);
+        LocalDate date = dates[index] == NO_DATE ? null : LocalDate.ofEpochDay(dates[index]);
+        Task task = Task.ofUnpooled(type, description, date);
+        if ((flags[index] & COMPLETED) != 0) {
+            task.markComplete();
+        }
+        return task;
+    }
+
+    /**
+     * Writes a task over the one at a position.
+     * @param index Position of the task.
+     * @param task Task to be put there.
+     * @return View of the task that was there.
+     */
+    @Override
+    public Task set(int index, Task task) {
+        Task old = get(index);
+        boolean isNewDescription = !old.getDescription().equals(task.getDescription());
+        if (isNewDescription) {
+            arenaGarbage += lengths[index];
+        }
+        write(index, task, isNewDescription);
+        compactIfWasteful();
+        return old;
+    }
+
+    /**
+     * Inserts a task at a position, moving the tasks from there on back by one.
+     * @param index Position of the task.
+     * @param task Task to be inserted.
+     */
+    @Override
+    public void add(int index, Task task) {
+        checkIndex(index, size + 1);
+        if (size == flags.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+            flags = Arrays.copyOf(flags, capacity);
+            dates = Arrays.copyOf(dates, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        shift(index, index + 1, size - index);
+        size++;
+        write(index, task, true);
+        modCount++;
+    }
+
+    /**
+     * Removes the task at a position, moving the later tasks forward by one.
+     * @param index Position of the task.
+     * @return View of the task that was removed.
+     */
+    @Override
+    public Task remove(int index) {
+        Task task = get(index);
+        arenaGarbage += lengths[index];
+        shift(index + 1, index, size - index - 1);
+        size--;
+        compactIfWasteful();
+        modCount++;
+        return task;
+    }
+
+    /**
+     * Removes the tasks at several positions, closing the gaps they leave in one pass over the columns.
+     * @param positions Positions of the tasks, in increasing order without repeats.
+     * @return Views of the tasks that were removed, in list order.
+     */
+    List<Task> removePositions(int[] positions) {
+        List<Task> removed = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            removed.add(get(position));
+            arenaGarbage += lengths[position];
+        }
+        for (int i = 0; i < positions.length; i++) {
+            int end = i + 1 < positions.length ? positions[i + 1] : size;
+            shift(positions[i] + 1, positions[i] - i, end - positions[i] - 1);
+        }
+        size -= positions.length;
+        compactIfWasteful();
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Removes every task.
+     */
+    @Override
+    public void clear() {
+        size = 0;
+        arenaUsed = 0;
+        arenaGarbage = 0;
+        modCount++;
+    }
+
+    /**
+     * Gets the number of tasks.
+     * @return Number of tasks.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Estimates the memory held by the columns and the arena.
+     * @return Estimated size in bytes.
+     */
+    long estimateMemoryBytes() {
+        return flags.length * (1L + Integer.BYTES * 3) + arena.length * (long) Character.BYTES;
+    }
+
+    /**
+     * Writes the columns of a task.
+     * @param index Position of the task.
+     * @param task Task.
+     * @param isNewDescription Whether the description has to be written to the arena.
+     */
+    private void write(int index, Task task, boolean isNewDescription) {
+        flags[index] = (byte) (task.getTaskType().ordinal() | (task.checkIfCompleted() ? COMPLETED : 0));
+        dates[index] = task.getDate() == null ? NO_DATE : (int) task.getDate().toEpochDay();
+        if (!isNewDescription) {
+            return;
+        }
+        String description = task.getDescription();
+        if (arenaUsed + description.length() > arena.length) {
+            int capacity = Math.max(arenaUsed + description.length(), arena.length + (arena.length >> 1));
+            arena = Arrays.copyOf(arena, capacity);
+        }
+        description.getChars(0, description.length(), arena, arenaUsed);
+        offsets[index] = arenaUsed;
+        lengths[index] = description.length();
+        arenaUsed += description.length();
+    }
+
+    /**
+     * Moves a run of tasks within the columns.
+     * @param from Position of the first task to be moved.
+     * @param to Position it is moved to.
+     * @param count Number of tasks to be moved.
+     */
+    private void shift(int from, int to, int count) {
+        System.arraycopy(flags, from, flags, to, count);
+        System.arraycopy(dates, from, dates, to, count);
+        System.arraycopy(offsets, from, offsets, to, count);
+        System.arraycopy(lengths, from, lengths, to, count);
+    }
+
+    /**
+     * Copies the descriptions still referred to into a new arena, in list order, once more than half of
+     * the arena is no longer referred to.
+     */
+    private void compactIfWasteful() {
+        if (arenaGarbage <= arenaUsed / 2) {
+            return;
+        }
+        char[] compacted = new char[arenaUsed - arenaGarbage];
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(arena, offsets[i], compacted, used, lengths[i]);
+            offsets[i] = used;
+            used += lengths[i];
+        }
+        arena = compacted;
+        arenaUsed = used;
+        arenaGarbage = 0;
+    }
+
+    /**
+     * Checks that a position is within bounds.
+     * @param index Position.
+     * @param bound Number of valid positions.
+     */
+    private void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package duke.task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Represents an index of the deadlines or the events of a task manager, sorted by the epoch day of their
+ * dates. Tasks on the same day are kept in list order by their order keys, so a range of dates is read off
+ * in O(log n + k) for k tasks in the range.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+class DateIndex {
+
+    /**
+     * Represents the order of tasks in the task list.
+     */
+    private static final Comparator<Task> LIST_ORDER = Comparator.comparingLong(Task::getOrderKey);
+
+    /**
+     * Represents the tasks on each day, in list order.
+     */
+    private final NavigableMap<Long, List<Task>> days;
+
+    /**
+     * Creates an empty index.
+     */
+    DateIndex() {
+        this.days = new TreeMap<>();
+    }
+
+    /**
+     * Adds a task under its date.
+     * @param task Task with a date.
+     */
+    void add(Task task) {
+        List<Task> day = days.computeIfAbsent(task.getDate().toEpochDay(), key -> new ArrayList<>(1));
+        if (day.isEmpty() || day.get(day.size() - 1).getOrderKey() < task.getOrderKey()) {
+            day.add(task);
+        } else {
+            int position = Collections.binarySearch(day, task, LIST_ORDER);
+            day.add(position < 0 ? -position - 1 : position, task);
+        }
+    }
+
+    /**
+     * Removes a task from under its date.
+     * @param task Task with a date.
+     */
+    void remove(Task task) {
+        long key = task.getDate().toEpochDay();
+        List<Task> day = days.get(key);
+        if (day == null) {
+            return;
+        }
+        int position = Collections.binarySearch(day, task, LIST_ORDER);
+        if (position >= 0) {
+            day.remove(position);
+        }
+        if (day.isEmpty()) {
+            days.remove(key);
+        }
+    }
+
+    /**
+     * Puts a task in place of the one with the same order key under its date, such as a copy of it that
+     * was marked.
+     * @param task Task with a date.
+     */
+    void replace(Task task) {
+        List<Task> day = days.get(task.getDate().toEpochDay());
+        int position = day == null ? -1 : Collections.binarySearch(day, task, LIST_ORDER);
+        if (position >= 0) {
+            day.set(position, task);
+        }
+    }
+
+    /**
+     * Finds the tasks dated before a day, in date order.
+     * @param date Day after the last one to be included.
+     * @return Tasks.
+     */
+    List<Task> findBefore(LocalDate date) {
+        return flatten(days.headMap(date.toEpochDay(), false).values());
+    }
+
+    /**
+     * Finds the tasks dated within a range of days, in date order.
+     * @param from First day to be included.
+     * @param to Last day to be included.
+     * @return Tasks, or none if the range is empty.
+     */
+    List<Task> findBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        return flatten(days.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values());
+    }
+
+    /**
+     * Finds every task, in date order.
+     * @return Tasks.
+     */
+    List<Task> findAll() {
+        return flatten(days.values());
+    }
+
+    /**
+     * Streams the tasks dated within a range of days lazily, in date order, so that a caller that stops
+     * early does not read the rest of the range.
+     * @param from First day to be included, or null for no first day.
+     * @param to Last day to be included, or null for no last day.
+     * @return Stream of tasks.
+     */
+    Stream<Task> stream(LocalDate from, LocalDate to) {
+        return range(from, to).values().stream().flatMap(List::stream);
+    }
+
+    /**
+     * Counts the tasks dated within a range of days, in time linear in the number of days in the range.
+     * @param from First day to be included, or null for no first day.
+     * @param to Last day to be included, or null for no last day.
+     * @return Number of tasks.
+     */
+    long count(LocalDate from, LocalDate to) {
+        long count = 0;
+        for (List<Task> day : range(from, to).values()) {
+            count += day.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the days within a range.
+     * @param from First day to be included, or null for no first day.
+     * @param to Last day to be included, or null for no last day.
+     * @return View of the days, empty if the range is.
+     */
+    private NavigableMap<Long, List<Task>> range(LocalDate from, LocalDate to) {
+        long first = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        long last = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        if (first > last) {
+            return Collections.emptyNavigableMap();
+        }
+        return days.subMap(first, true, last, true);
+    }
+
+    /**
+     * Joins the tasks of consecutive days into one list.
+     * @param range Tasks of each day, in date order.
+     * @return Tasks.
+     */
+    private static List<Task> flatten(Collection<List<Task>> range) {
+        List<Task> found = new ArrayList<>();
+        for (List<Task> day : range) {
+            found.addAll(day);
+        }
+        return found;
+    }
+}
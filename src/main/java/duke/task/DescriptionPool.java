@@ -0,0 +1,124 @@
+package duke.task;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Represents a pool of task descriptions, so that tasks with the same description, such as recurring
+ * todos, share one string instead of each holding a copy. The pool only refers to its strings weakly, so
+ * a description is dropped from it once no task uses it any more.
+ *
+ * <p>There is one pool for the whole process, since tasks are created through {@link Task#of} and
+ * {@link Task#fromTextFileMessage} without knowing which task list they will join. Turning pooling off
+ * therefore affects every task list, and the counts of shared descriptions cover all of them until they
+ * are reset with {@link #resetStats()}, as each run of Duke does when it starts.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public final class DescriptionPool {
+
+    /**
+     * Represents the estimated size in bytes of a string object and its array header, without its characters.
+     */
+    private static final int STRING_OVERHEAD = 40;
+
+    /**
+     * Represents the pooled descriptions, each mapped to a weak reference to itself.
+     */
+    private static final Map<String, WeakReference<String>> POOL = new WeakHashMap<>();
+
+    /**
+     * Represents whether descriptions are pooled.
+     */
+    private static boolean isEnabled = true;
+
+    /**
+     * Represents the number of descriptions that were replaced by a pooled one.
+     */
+    private static long sharedCount;
+
+    /**
+     * Represents the estimated number of bytes of the descriptions that were replaced by a pooled one.
+     */
+    private static long bytesSaved;
+
+    /**
+     * Constructor for DescriptionPool.
+     */
+    private DescriptionPool() {
+    }
+
+    /**
+     * Turns pooling on or off for the whole process. Descriptions pooled before stay shared.
+     * @param isEnabled Whether descriptions are pooled.
+     */
+    public static synchronized void setEnabled(boolean isEnabled) {
+        DescriptionPool.isEnabled = isEnabled;
+    }
+
+    /**
+     * Gets the pooled string equal to a description, pooling the description if there is none.
+     * @param description Description.
+     * @return Equal description, shared if pooling is on.
+     */
+    static synchronized String intern(String description) {
+        if (!isEnabled) {
+            return description;
+        }
+        WeakReference<String> reference = POOL.get(description);
+        String pooled = reference == null ? null : reference.get();
+        if (pooled == null) {
+            POOL.put(description, new WeakReference<>(description));
+            return description;
+        }
+        if (pooled != description) {
+            sharedCount++;
+            bytesSaved += estimateBytes(description);
+        }
+        return pooled;
+    }
+
+    /**
+     * Sets the number of shared descriptions and of bytes saved back to zero, leaving the pool itself as
+     * it is.
+     */
+    public static synchronized void resetStats() {
+        sharedCount = 0;
+        bytesSaved = 0;
+    }
+
+    /**
+     * Gets the number of descriptions that were replaced by a pooled one since the stats were last reset.
+     * @return Number of descriptions.
+     */
+    public static synchronized long getSharedCount() {
+        return sharedCount;
+    }
+
+    /**
+     * Gets the estimated number of bytes saved by sharing descriptions since the stats were last reset. Copies
+     * of descriptions of tasks that were later deleted still count.
+     * @return Number of bytes.
+     */
+    public static synchronized long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    /**
+     * Estimates the memory held by a string, with compact strings and 8-byte alignment.
+     * @param s String.
+     * @return Estimated size in bytes.
+     */
+    private static long estimateBytes(String s) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return (STRING_OVERHEAD + (long) s.length() * bytesPerChar + 7) / 8 * 8;
+    }
+}
@@ -0,0 +1,350 @@
+package duke.task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Represents the history of changes made to a task list, for undo and redo. Every step keeps a snapshot
+ * of the list from before and after it, and the edits it made. The snapshots share every tree node except
+ * the O(log n) nodes each edit copies, so keeping a step costs about as much as making it, however long
+ * the list is.
+ *
+ * <p>Steps are closed by {@link #end(TaskList)}. Once there are more steps than the depth allows, the
+ * oldest ones are dropped.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+class History {
+
+    /**
+     * Represents the steps that can be undone, latest last.
+     */
+    private final Deque<Step> undoSteps;
+
+    /**
+     * Represents the steps that can be redone, latest undone last.
+     */
+    private final Deque<Step> redoSteps;
+
+    /**
+     * Represents the largest number of steps kept for undo.
+     */
+    private int depth;
+
+    /**
+     * Represents the snapshot from before the step being made, or null if no edit was made since the last
+     * step was closed.
+     */
+    private TaskList before;
+
+    /**
+     * Represents the edits of the step being made, in the order they were made.
+     */
+    private List<Edit> edits;
+
+    /**
+     * Creates an empty history.
+     * @param depth Largest number of steps kept for undo.
+     */
+    History(int depth) {
+        this.undoSteps = new ArrayDeque<>();
+        this.redoSteps = new ArrayDeque<>();
+        this.depth = depth;
+        this.edits = new ArrayList<>();
+    }
+
+    /**
+     * Takes a snapshot of the list before the first edit of a step. Later edits of the same step do
+     * nothing here.
+     * @param tasks Task list about to be edited.
+     */
+    void begin(TaskList tasks) {
+        if (before == null && depth > 0) {
+            before = tasks.snapshot();
+        }
+    }
+
+    /**
+     * Records a task added or inserted as part of the current step.
+     * @param location Index of the new task.
+     * @param task Task that was added.
+     */
+    void recordAdd(int location, Task task) {
+        record(new Edit(Edit.Kind.ADD, location, null, task, task.checkIfCompleted()));
+    }
+
+    /**
+     * Records a task removed as part of the current step.
+     * @param location Index the task was removed from.
+     * @param task Task that was removed.
+     */
+    void recordRemove(int location, Task task) {
+        record(new Edit(Edit.Kind.REMOVE, location, null, task, task.checkIfCompleted()));
+    }
+
+    /**
+     * Records a task whose status was changed as part of the current step.
+     * @param location Index of the task.
+     * @param previous Task that was in the list before the change.
+     * @param task Copy of it with the new status, that took its place.
+     */
+    void recordMark(int location, Task previous, Task task) {
+        record(new Edit(Edit.Kind.MARK, location, previous, task, task.checkIfCompleted()));
+    }
+
+    /**
+     * Adds an edit to the current step.
+     * @param edit Edit.
+     */
+    private void record(Edit edit) {
+        if (before != null) {
+            edits.add(edit);
+        }
+    }
+
+    /**
+     * Closes the current step, if it made any edit, so that it can be undone. Making a step drops the
+     * steps that were undone, since they can no longer be redone.
+     * @param tasks Task list after the step.
+     */
+    void end(TaskList tasks) {
+        if (before == null) {
+            return;
+        }
+        if (!edits.isEmpty()) {
+            undoSteps.addLast(new Step(before, tasks.snapshot(), edits));
+            redoSteps.clear();
+            trim();
+        }
+        before = null;
+        edits = new ArrayList<>();
+    }
+
+    /**
+     * Takes the latest step that can be undone and keeps it for redo.
+     * @return Step, or null if there is none.
+     */
+    Step takeUndo() {
+        Step step = undoSteps.pollLast();
+        if (step != null) {
+            redoSteps.addLast(step);
+        }
+        return step;
+    }
+
+    /**
+     * Takes the latest step that was undone and keeps it for undo again.
+     * @return Step, or null if there is none.
+     */
+    Step takeRedo() {
+        Step step = redoSteps.pollLast();
+        if (step != null) {
+            undoSteps.addLast(step);
+        }
+        return step;
+    }
+
+    /**
+     * Forgets every step, for when the list was changed in a way that cannot be undone.
+     */
+    void clear() {
+        undoSteps.clear();
+        redoSteps.clear();
+        before = null;
+        edits = new ArrayList<>();
+    }
+
+    /**
+     * Sets the largest number of steps kept for undo, dropping the oldest steps beyond it.
+     * @param depth Largest number of steps, or 0 to keep none.
+     */
+    void setDepth(int depth) {
+        this.depth = depth;
+        trim();
+        if (depth == 0) {
+            clear();
+        }
+    }
+
+    /**
+     * Drops the oldest steps beyond the depth.
+     */
+    private void trim() {
+        while (undoSteps.size() > depth) {
+            undoSteps.pollFirst();
+        }
+    }
+
+    /**
+     * Gets the number of steps that can be undone.
+     * @return Number of steps.
+     */
+    int getUndoCount() {
+        return undoSteps.size();
+    }
+
+    /**
+     * Gets the number of steps that can be redone.
+     * @return Number of steps.
+     */
+    int getRedoCount() {
+        return redoSteps.size();
+    }
+
+    /**
+     * Represents a step of history: the edits of one command and the list before and after them.
+     */
+    static class Step {
+
+        /**
+         * Represents the snapshot of the list before the step.
+         */
+        private final TaskList before;
+
+        /**
+         * Represents the snapshot of the list after the step.
+         */
+        private final TaskList after;
+
+        /**
+         * Represents the edits of the step, in the order they were made.
+         */
+        private final List<Edit> edits;
+
+        /**
+         * Creates a step.
+         * @param before Snapshot of the list before the step.
+         * @param after Snapshot of the list after the step.
+         * @param edits Edits of the step, in the order they were made.
+         */
+        private Step(TaskList before, TaskList after, List<Edit> edits) {
+            this.before = before;
+            this.after = after;
+            this.edits = edits;
+        }
+
+        /**
+         * Gets the snapshot of the list before the step.
+         * @return Snapshot.
+         */
+        TaskList getBefore() {
+            return before;
+        }
+
+        /**
+         * Gets the snapshot of the list after the step.
+         * @return Snapshot.
+         */
+        TaskList getAfter() {
+            return after;
+        }
+
+        /**
+         * Gets the edits of the step.
+         * @return Edits in the order they were made.
+         */
+        List<Edit> getEdits() {
+            return Collections.unmodifiableList(edits);
+        }
+    }
+
+    /**
+     * Represents a single task added, removed, or marked or unmarked.
+     */
+    static class Edit {
+
+        /**
+         * Represents the kinds of edits.
+         */
+        enum Kind {
+            ADD,
+            REMOVE,
+            MARK,
+        }
+
+        /**
+         * Represents the kind of edit.
+         */
+        private final Kind kind;
+
+        /**
+         * Represents the index of the task when it was edited.
+         */
+        private final int location;
+
+        /**
+         * Represents the task a mark replaced, or null for other edits.
+         */
+        private final Task previous;
+
+        /**
+         * Represents the task.
+         */
+        private final Task task;
+
+        /**
+         * Represents whether the task was completed after the edit.
+         */
+        private final boolean isCompleted;
+
+        /**
+         * Creates an edit.
+         * @param kind Kind of edit.
+         * @param location Index of the task when it was edited.
+         * @param previous Task a mark replaced, or null for other edits.
+         * @param task Task.
+         * @param isCompleted Whether the task was completed after the edit.
+         */
+        private Edit(Kind kind, int location, Task previous, Task task, boolean isCompleted) {
+            this.kind = kind;
+            this.location = location;
+            this.previous = previous;
+            this.task = task;
+            this.isCompleted = isCompleted;
+        }
+
+        /**
+         * Gets the kind of edit.
+         * @return Kind.
+         */
+        Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * Gets the index of the task when it was edited.
+         * @return Index.
+         */
+        int getLocation() {
+            return location;
+        }
+
+        /**
+         * Gets the task a mark replaced.
+         * @return Task, or null for other edits.
+         */
+        Task getPrevious() {
+            return previous;
+        }
+
+        /**
+         * Gets the task.
+         * @return Task.
+         */
+        Task getTask() {
+            return task;
+        }
+
+        /**
+         * Checks if the task was completed after the edit.
+         * @return Boolean.
+         */
+        boolean checkIfCompleted() {
+            return isCompleted;
+        }
+    }
+}
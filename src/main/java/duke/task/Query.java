@@ -0,0 +1,304 @@
+package duke.task;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/**
+ * Represents a query of composable filters over the tasks, such as
+ * {@code type:deadline done:false before:2022-12-01 text:book sort:date limit:20}. Every filter has to hold
+ * for a task to match. A task manager turns the query into a plan that reads from an index or scans the
+ * list, whichever it expects to read fewer tasks.
+ *
+ * <p>The filters are {@code type:todo|deadline|event}, {@code done:true|false}, {@code before:yyyy-mm-dd}
+ * and {@code after:yyyy-mm-dd} (both excluding the day itself and every todo), and {@code text:word},
+ * which may be given more than once. A word without a key is a text filter as well. {@code sort:date}
+ * orders the matches by date instead of list order, {@code limit:n} keeps the first n, and
+ * {@code explain} asks for the plan instead of the matches.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class Query {
+
+    /**
+     * Represents the separator between the key and the value of a filter.
+     */
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Represents the type of the tasks, or null for every type.
+     */
+    private final Task.TaskType type;
+
+    /**
+     * Represents the status of the tasks, or null for either status.
+     */
+    private final Boolean isCompleted;
+
+    /**
+     * Represents the day the tasks are dated after, or null for no such day.
+     */
+    private final LocalDate after;
+
+    /**
+     * Represents the day the tasks are dated before, or null for no such day.
+     */
+    private final LocalDate before;
+
+    /**
+     * Represents the strings the tasks contain.
+     */
+    private final List<String> texts;
+
+    /**
+     * Represents whether the tasks are ordered by date instead of list order.
+     */
+    private final boolean isSortedByDate;
+
+    /**
+     * Represents the largest number of tasks to be found.
+     */
+    private final int limit;
+
+    /**
+     * Represents whether the plan is asked for instead of the tasks.
+     */
+    private final boolean isExplain;
+
+    /**
+     * Constructor for Query.
+     * @param type Type of the tasks, or null.
+     * @param isCompleted Status of the tasks, or null.
+     * @param after Day the tasks are dated after, or null.
+     * @param before Day the tasks are dated before, or null.
+     * @param texts Strings the tasks contain.
+     * @param isSortedByDate Whether the tasks are ordered by date.
+     * @param limit Largest number of tasks.
+     * @param isExplain Whether the plan is asked for.
+     */
+    private Query(Task.TaskType type, Boolean isCompleted, LocalDate after, LocalDate before, List<String> texts,
+            boolean isSortedByDate, int limit, boolean isExplain) {
+        this.type = type;
+        this.isCompleted = isCompleted;
+        this.after = after;
+        this.before = before;
+        this.texts = texts;
+        this.isSortedByDate = isSortedByDate;
+        this.limit = limit;
+        this.isExplain = isExplain;
+    }
+
+    /**
+     * Creates a Query through a constructor method.
+     * @param s Filters separated by spaces.
+     * @return Query.
+     * @throws IllegalArgumentException If a filter is unknown or its value cannot be parsed.
+     */
+    public static Query of(String s) {
+        Task.TaskType type = null;
+        Boolean isCompleted = null;
+        LocalDate after = null;
+        LocalDate before = null;
+        List<String> texts = new ArrayList<>();
+        boolean isSortedByDate = false;
+        int limit = Integer.MAX_VALUE;
+        boolean isExplain = false;
+        try {
+            for (String term : s.trim().split(" +")) {
+                int split = term.indexOf(SEPARATOR);
+                String key = split < 0 ? "" : term.substring(0, split).toLowerCase(Locale.ROOT);
+                String value = term.substring(split + 1);
+                switch (key) {
+                case "type":
+                    type = Task.TaskType.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "done":
+                    isCompleted = parseBoolean(value);
+                    break;
+                case "after":
+                    after = LocalDate.parse(value);
+                    break;
+                case "before":
+                    before = LocalDate.parse(value);
+                    break;
+                case "text":
+                    texts.add(value);
+                    break;
+                case "sort":
+                    isSortedByDate = parseOrder(value);
+                    break;
+                case "limit":
+                    limit = Integer.parseInt(value);
+                    break;
+                case "":
+                    if (term.equals("explain")) {
+                        isExplain = true;
+                    } else if (!term.isEmpty()) {
+                        texts.add(term);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown filter " + key);
+                }
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        if (limit < 0 || texts.stream().anyMatch(String::isEmpty)) {
+            throw new IllegalArgumentException("empty text or negative limit");
+        }
+        return new Query(type, isCompleted, after, before, Collections.unmodifiableList(texts), isSortedByDate,
+                limit, isExplain);
+    }
+
+    /**
+     * Parses the value of a status filter.
+     * @param value Value given by the user.
+     * @return Whether the tasks are completed.
+     */
+    private static boolean parseBoolean(String value) {
+        if (!value.equals("true") && !value.equals("false")) {
+            throw new IllegalArgumentException("not a status: " + value);
+        }
+        return value.equals("true");
+    }
+
+    /**
+     * Parses the value of a sort filter.
+     * @param value Value given by the user.
+     * @return Whether the tasks are ordered by date.
+     */
+    private static boolean parseOrder(String value) {
+        if (!value.equals("date") && !value.equals("list")) {
+            throw new IllegalArgumentException("not an order: " + value);
+        }
+        return value.equals("date");
+    }
+
+    /**
+     * Checks if a task meets every filter.
+     * @return Predicate.
+     */
+    Predicate<Task> toPredicate() {
+        Predicate<Task> predicate = x -> true;
+        if (type != null) {
+            predicate = predicate.and(x -> x.getTaskType() == type);
+        }
+        if (isCompleted != null) {
+            boolean status = isCompleted;
+            predicate = predicate.and(x -> x.checkIfCompleted() == status);
+        }
+        if (after != null) {
+            predicate = predicate.and(x -> x.getDate() != null && x.getDate().isAfter(after));
+        }
+        if (before != null) {
+            predicate = predicate.and(x -> x.getDate() != null && x.getDate().isBefore(before));
+        }
+        for (String text : texts) {
+            predicate = predicate.and(x -> x.containString(text));
+        }
+        return predicate;
+    }
+
+    /**
+     * Checks if only tasks with a date can match.
+     * @return Boolean.
+     */
+    boolean checkIfDatedOnly() {
+        return after != null || before != null || (type != null && type != Task.TaskType.TODO);
+    }
+
+    /**
+     * Gets the type of the tasks.
+     * @return Type, or null for every type.
+     */
+    Task.TaskType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the status of the tasks.
+     * @return Status, or null for either status.
+     */
+    Boolean getStatus() {
+        return isCompleted;
+    }
+
+    /**
+     * Gets the first day the tasks can be dated on.
+     * @return Day, or null for no such day.
+     */
+    LocalDate getFirstDay() {
+        return after == null ? null : after.plusDays(1);
+    }
+
+    /**
+     * Gets the last day the tasks can be dated on.
+     * @return Day, or null for no such day.
+     */
+    LocalDate getLastDay() {
+        return before == null ? null : before.minusDays(1);
+    }
+
+    /**
+     * Gets the strings the tasks contain.
+     * @return Strings.
+     */
+    List<String> getTexts() {
+        return texts;
+    }
+
+    /**
+     * Checks if the tasks are ordered by date instead of list order.
+     * @return Boolean.
+     */
+    boolean checkIfSortedByDate() {
+        return isSortedByDate;
+    }
+
+    /**
+     * Gets the largest number of tasks to be found.
+     * @return Limit, or {@link Integer#MAX_VALUE} for none.
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Checks if the plan is asked for instead of the tasks.
+     * @return Boolean.
+     */
+    public boolean checkIfExplain() {
+        return isExplain;
+    }
+
+    /**
+     * Represents the filters of the query, the way they are written.
+     * @return String.
+     */
+    @Override
+    public String toString() {
+        List<String> terms = new ArrayList<>();
+        if (type != null) {
+            terms.add("type:" + type.name().toLowerCase(Locale.ROOT));
+        }
+        if (isCompleted != null) {
+            terms.add("done:" + isCompleted);
+        }
+        if (after != null) {
+            terms.add("after:" + after);
+        }
+        if (before != null) {
+            terms.add("before:" + before);
+        }
+        for (String text : texts) {
+            terms.add("text:" + text);
+        }
+        return terms.isEmpty() ? "none" : String.join(" ", terms);
+    }
+}
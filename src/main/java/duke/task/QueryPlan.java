@@ -0,0 +1,387 @@
+package duke.task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Represents the plan a task manager chose to answer a query: where the tasks are read from, and what is
+ * done to them after. The tasks are read from a scan of the list, the trigram index for one of the text
+ * filters, or the date indexes for the date range, whichever is expected to read the fewest tasks.
+ *
+ * <p>The counters of the task manager give the exact number of tasks of each type and status, which the
+ * plan uses to estimate how far a scan or an index has to read before the limit is reached. Every filter is
+ * checked on every task read, so a plan only changes how fast the answer is, not what it is.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+class QueryPlan {
+
+    /**
+     * Represents the order of tasks by date, and then list order. Tasks without a date come last.
+     */
+    private static final Comparator<Task> DATE_ORDER = Comparator
+            .comparing(Task::getDate, Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()))
+            .thenComparingLong(Task::getOrderKey);
+
+    /**
+     * Represents the order of tasks in the task list.
+     */
+    private static final Comparator<Task> LIST_ORDER = Comparator.comparingLong(Task::getOrderKey);
+
+    /**
+     * Represents the places tasks can be read from.
+     */
+    enum Source {
+        SCAN,
+        TEXT_INDEX,
+        DATE_INDEX,
+    }
+
+    /**
+     * Represents the query.
+     */
+    private final Query query;
+
+    /**
+     * Represents where the tasks are read from.
+     */
+    private final Source source;
+
+    /**
+     * Represents the text looked up in the trigram index, if the tasks are read from it.
+     */
+    private final String text;
+
+    /**
+     * Represents the estimated number of tasks the plan reads.
+     */
+    private final long estimate;
+
+    /**
+     * Represents whether the tasks have to be sorted after they are read.
+     */
+    private final boolean isSortNeeded;
+
+    /**
+     * Represents the estimated number of tasks read by each source that was considered.
+     */
+    private final List<String> considered;
+
+    /**
+     * Represents the list of tasks.
+     */
+    private final List<Task> tasks;
+
+    /**
+     * Represents the trigram index, or null if there is none.
+     */
+    private final TrigramIndex trigramIndex;
+
+    /**
+     * Represents the date indexes of the types the query can match, or none if there are no indexes.
+     */
+    private final List<DateIndex> dateIndexes;
+
+    /**
+     * Constructor for QueryPlan.
+     * @param query Query.
+     * @param source Where the tasks are read from.
+     * @param text Text looked up in the trigram index, or null.
+     * @param estimate Estimated number of tasks read.
+     * @param considered Estimated number of tasks read by each source that was considered.
+     * @param tasks List of tasks.
+     * @param trigramIndex Trigram index, or null.
+     * @param dateIndexes Date indexes of the types the query can match.
+     */
+    private QueryPlan(Query query, Source source, String text, long estimate, List<String> considered,
+            List<Task> tasks, TrigramIndex trigramIndex, List<DateIndex> dateIndexes) {
+        this.query = query;
+        this.source = source;
+        this.text = text;
+        this.estimate = estimate;
+        this.isSortNeeded = query.checkIfSortedByDate() != (source == Source.DATE_INDEX);
+        this.considered = considered;
+        this.tasks = tasks;
+        this.trigramIndex = trigramIndex;
+        this.dateIndexes = dateIndexes;
+    }
+
+    /**
+     * Chooses the plan expected to read the fewest tasks. The number of matches is estimated from the exact
+     * count of tasks of the types and status asked for, scaled by the share of tasks each index finds for
+     * the text and date filters, as if the filters were independent.
+     * @param query Query.
+     * @param tasks List of tasks.
+     * @param counts Number of tasks of each type, by status.
+     * @param trigramIndex Trigram index, or null if there is none.
+     * @param deadlineIndex Date index of the deadlines, or null if there is none.
+     * @param eventIndex Date index of the events, or null if there is none.
+     * @return Plan.
+     */
+    static QueryPlan of(Query query, List<Task> tasks, int[][] counts, TrigramIndex trigramIndex,
+            DateIndex deadlineIndex, DateIndex eventIndex) {
+        int size = tasks.size();
+        double matches = countMatches(query, counts);
+        String bestText = null;
+        long textRows = size;
+        if (trigramIndex != null) {
+            for (String text : query.getTexts()) {
+                if (text.length() < TrigramIndex.GRAM_LENGTH) {
+                    continue;
+                }
+                long rows = trigramIndex.estimateCandidates(text);
+                if (bestText == null || rows < textRows) {
+                    bestText = text;
+                    textRows = rows;
+                }
+            }
+        }
+        List<DateIndex> dateIndexes = new ArrayList<>();
+        long dateRows = 0;
+        if (deadlineIndex != null && query.checkIfDatedOnly()) {
+            if (query.getType() == null || query.getType() == Task.TaskType.DEADLINE) {
+                dateIndexes.add(deadlineIndex);
+            }
+            if (query.getType() == null || query.getType() == Task.TaskType.EVENT) {
+                dateIndexes.add(eventIndex);
+            }
+            long dated = 0;
+            for (DateIndex index : dateIndexes) {
+                dateRows += index.count(query.getFirstDay(), query.getLastDay());
+                dated += index.count(null, null);
+            }
+            matches = dated == 0 ? 0 : matches * dateRows / dated;
+        }
+        if (bestText != null && size > 0) {
+            matches = matches * textRows / size;
+        }
+
+        List<String> considered = new ArrayList<>();
+        Source source = Source.SCAN;
+        long best = estimateRead(query, size, matches, query.checkIfSortedByDate());
+        considered.add("scan " + best);
+        if (bestText != null) {
+            long read = estimateRead(query, textRows, matches, query.checkIfSortedByDate());
+            considered.add("text index \"" + bestText + "\" " + read);
+            if (read < best) {
+                best = read;
+                source = Source.TEXT_INDEX;
+            }
+        }
+        if (!dateIndexes.isEmpty()) {
+            long read = estimateRead(query, dateRows, matches, !query.checkIfSortedByDate());
+            considered.add("date index " + read);
+            if (read < best) {
+                best = read;
+                source = Source.DATE_INDEX;
+            }
+        }
+        return new QueryPlan(query, source, source == Source.TEXT_INDEX ? bestText : null, best, considered,
+                tasks, trigramIndex, dateIndexes);
+    }
+
+    /**
+     * Counts the tasks of the types and status the query asks for, which is exact unless the query also
+     * filters by date or text.
+     * @param query Query.
+     * @param counts Number of tasks of each type, by status.
+     * @return Number of tasks.
+     */
+    private static long countMatches(Query query, int[][] counts) {
+        long matches = 0;
+        for (Task.TaskType type : Task.TaskType.values()) {
+            if (query.getType() != null && query.getType() != type
+                    || query.checkIfDatedOnly() && type == Task.TaskType.TODO) {
+                continue;
+            }
+            int[] typeCounts = counts[type.ordinal()];
+            matches += query.getStatus() == null
+                    ? typeCounts[0] + typeCounts[1]
+                    : typeCounts[query.getStatus() ? 1 : 0];
+        }
+        return matches;
+    }
+
+    /**
+     * Estimates the number of tasks read from a source. A source that gives the tasks in the order asked
+     * for stops at the limit, which is reached after reading about the same share of the source as the
+     * limit is of the matches; any other source is read to the end and then sorted.
+     * @param query Query.
+     * @param rows Number of tasks in the source.
+     * @param matches Estimated number of matches among all tasks.
+     * @param isSortNeeded Whether the source has to be sorted.
+     * @return Estimated number of tasks read, with sorting counted as reading the matches again.
+     */
+    private static long estimateRead(Query query, long rows, double matches, boolean isSortNeeded) {
+        double found = Math.min(rows, matches);
+        if (isSortNeeded) {
+            return rows + (long) Math.ceil(found);
+        }
+        if (query.getLimit() >= found) {
+            return rows;
+        }
+        return Math.max(query.getLimit(), (long) Math.ceil(rows * query.getLimit() / found));
+    }
+
+    /**
+     * Runs the plan.
+     * @return Matching tasks, in the order asked for.
+     */
+    List<Task> execute() {
+        boolean isLimited = query.getLimit() < Integer.MAX_VALUE;
+        Stream<Task> stream;
+        switch (source) {
+        case TEXT_INDEX: {
+            List<Task> candidates = trigramIndex.findCandidates(text);
+            stream = isLimited ? candidates.stream() : TaskManager.streamOf(candidates);
+            break;
+        }
+        case DATE_INDEX: {
+            stream = dateIndexes.stream()
+                    .map(index -> index.stream(query.getFirstDay(), query.getLastDay()))
+                    .reduce(QueryPlan::merge)
+                    .orElseGet(Stream::empty);
+            if (!isLimited) {
+                stream = TaskManager.streamOf(stream.collect(Collectors.toList()));
+            }
+            break;
+        }
+        default:
+            stream = isLimited ? tasks.stream() : TaskManager.streamOf(tasks);
+            break;
+        }
+        stream = stream.filter(query.toPredicate());
+        if (isSortNeeded) {
+            stream = stream.sorted(query.checkIfSortedByDate() ? DATE_ORDER : LIST_ORDER);
+        }
+        return stream.limit(query.getLimit()).collect(Collectors.toList());
+    }
+
+    /**
+     * Describes the plan, one line per stage.
+     * @return Lines.
+     */
+    List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        switch (source) {
+        case TEXT_INDEX:
+            lines.add("Read: text index for \"" + text + "\", about " + estimate + " task(s)");
+            break;
+        case DATE_INDEX:
+            lines.add("Read: date index from " + describeDay(query.getFirstDay()) + " to "
+                    + describeDay(query.getLastDay()) + ", about " + estimate + " task(s)");
+            break;
+        default:
+            lines.add("Read: scan of " + tasks.size() + " task(s), about " + estimate + " read");
+            break;
+        }
+        lines.add("Considered: " + String.join(", ", considered));
+        lines.add("Filter: " + query);
+        String order = query.checkIfSortedByDate() ? "date" : "list";
+        lines.add("Order: " + order + (isSortNeeded ? ", sorted after filtering" : ", as read"));
+        if (query.getLimit() == Integer.MAX_VALUE) {
+            lines.add("Limit: none");
+        } else {
+            String stop = isSortNeeded ? ", after sorting" : ", stopping once reached";
+            lines.add("Limit: " + query.getLimit() + stop);
+        }
+        return lines;
+    }
+
+    /**
+     * Describes a bound of the date range.
+     * @param day Day, or null for no bound.
+     * @return String.
+     */
+    private static String describeDay(LocalDate day) {
+        return day == null ? "any day" : day.toString();
+    }
+
+    /**
+     * Merges two streams of tasks in date order into one, lazily.
+     * @param first Tasks in date order.
+     * @param second Other tasks in date order.
+     * @return Tasks in date order.
+     */
+    private static Stream<Task> merge(Stream<Task> first, Stream<Task> second) {
+        Iterator<Task> merged = new MergingIterator(first.iterator(), second.iterator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Represents an iterator over two iterators in date order, taking the earlier task of the two each time.
+     */
+    private static class MergingIterator implements Iterator<Task> {
+
+        /**
+         * Represents the first iterator.
+         */
+        private final Iterator<Task> first;
+
+        /**
+         * Represents the second iterator.
+         */
+        private final Iterator<Task> second;
+
+        /**
+         * Represents the next task of the first iterator, or null if it has run out.
+         */
+        private Task nextFirst;
+
+        /**
+         * Represents the next task of the second iterator, or null if it has run out.
+         */
+        private Task nextSecond;
+
+        /**
+         * Creates an iterator over two iterators.
+         * @param first Tasks in date order.
+         * @param second Other tasks in date order.
+         */
+        private MergingIterator(Iterator<Task> first, Iterator<Task> second) {
+            this.first = first;
+            this.second = second;
+            this.nextFirst = first.hasNext() ? first.next() : null;
+            this.nextSecond = second.hasNext() ? second.next() : null;
+        }
+
+        /**
+         * Checks if either iterator has a task left.
+         * @return Boolean.
+         */
+        @Override
+        public boolean hasNext() {
+            return nextFirst != null || nextSecond != null;
+        }
+
+        /**
+         * Gets the earlier of the next tasks of the two iterators.
+         * @return Task.
+         */
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Task task;
+            if (nextSecond == null || nextFirst != null && DATE_ORDER.compare(nextFirst, nextSecond) <= 0) {
+                task = nextFirst;
+                nextFirst = first.hasNext() ? first.next() : null;
+            } else {
+                task = nextSecond;
+                nextSecond = second.hasNext() ? second.next() : null;
+            }
+            return task;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package duke.task;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 
 /**
  * Represents a Task Class.
@@ -24,6 +25,12 @@ public abstract class Task {
      */
     private boolean isCompleted;
 
+    /**
+     * Represents the position of the task relative to the others in its task manager. Keys increase
+     * along the list, so indexes can return matches in list order without looking up positions.
+     */
+    private long orderKey;
+
     /**
      * Constructor for Task.
      */
@@ -41,7 +48,7 @@ public abstract class Task {
     public static Task of(TaskType taskType, String details) {
         switch (taskType) {
         case TODO:
-            return new ToDo(details);
+            return new ToDo(DescriptionPool.intern(details));
         case DEADLINE:
             return new Deadline(details);
         case EVENT:
@@ -51,6 +58,88 @@ public abstract class Task {
         }
     }
 
+    /**
+     * Creates tasks through a factory method, without re-parsing the date from the details.
+     *
+     * @param taskType Type of task.
+     * @param description Description of the task.
+     * @param date Date of the task, or null for a todo.
+     * @return Task object created.
+     */
+    public static Task of(TaskType taskType, String description, LocalDate date) {
+        return ofUnpooled(taskType, DescriptionPool.intern(description), date);
+    }
+
+    /**
+     * Creates tasks without sharing the description through the description pool, for short-lived views of
+     * tasks kept elsewhere.
+     *
+     * @param taskType Type of task.
+     * @param description Description of the task.
+     * @param date Date of the task, or null for a todo.
+     * @return Task object created.
+     */
+    static Task ofUnpooled(TaskType taskType, String description, LocalDate date) {
+        switch (taskType) {
+        case TODO:
+            return new ToDo(description);
+        case DEADLINE:
+            return new Deadline(description, date);
+        case EVENT:
+            return new Event(description, date);
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * Recreates a task from a line written by {@link #constructTextFileMessage()}.
+     *
+     * @param line Line from the text file.
+     * @return Task object, or null if the line is not a valid task.
+     */
+    public static Task fromTextFileMessage(String line) {
+        String[] split = line.split(" \\| ", 3);
+        if (split.length < 3 || split[0].length() != 1) {
+            return null;
+        }
+        boolean isCompleted;
+        if (split[1].equals("1")) {
+            isCompleted = true;
+        } else if (split[1].equals("0")) {
+            isCompleted = false;
+        } else {
+            return null;
+        }
+        Task task;
+        try {
+            switch (split[0].charAt(0)) {
+            case 'T':
+                task = new ToDo(DescriptionPool.intern(split[2]));
+                break;
+            case 'D':
+            case 'E': {
+                int dateIndex = split[2].lastIndexOf(" | ");
+                if (dateIndex < 0) {
+                    return null;
+                }
+                String description = DescriptionPool.intern(split[2].substring(0, dateIndex));
+                LocalDate date = LocalDate.parse(split[2].substring(dateIndex + 3));
+                task = split[0].charAt(0) == 'D' ? new Deadline(description, date) : new Event(description, date);
+                break;
+            }
+            default:
+                return null;
+            }
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        if (isCompleted) {
+            task.markComplete();
+        }
+        return task;
+    }
+
     /**
      * Represents what should be shown to describe the task's completion status.
      *
@@ -74,6 +163,20 @@ public abstract class Task {
         this.isCompleted = false;
     }
 
+    /**
+     * Creates a copy of the task with the given status, holding the same description, date and order key.
+     * The task manager marks tasks through copies, so a task already handed out never changes.
+     *
+     * @param isCompleted Whether the copy is completed.
+     * @return Copy of the task.
+     */
+    public Task withStatus(boolean isCompleted) {
+        Task task = ofUnpooled(getTaskType(), getDescription(), getDate());
+        task.isCompleted = isCompleted;
+        task.orderKey = orderKey;
+        return task;
+    }
+
     /**
      * Checks if a task is completed.
      */
@@ -81,6 +184,24 @@ public abstract class Task {
         return this.isCompleted;
     }
 
+    /**
+     * Gets the order key of the task in its task manager.
+     *
+     * @return Order key.
+     */
+    long getOrderKey() {
+        return orderKey;
+    }
+
+    /**
+     * Sets the order key of the task in its task manager.
+     *
+     * @param orderKey Order key.
+     */
+    void setOrderKey(long orderKey) {
+        this.orderKey = orderKey;
+    }
+
     /**
      * Represents the completion status to be added into the file.
      *
@@ -177,6 +298,15 @@ public abstract class Task {
         public TaskType getTaskType() {
             return TaskType.TODO;
         }
+
+        /**
+         * Gets the description of task.
+         * @return Description.
+         */
+        @Override
+        public String getDescription() {
+            return this.toDo;
+        }
     }
 
     /**
@@ -202,10 +332,22 @@ public abstract class Task {
         private Deadline(String s) {
             super();
             String[] split = s.split(" /by ");
-            this.toDo = split[0];
+            this.toDo = DescriptionPool.intern(split[0]);
             this.date = LocalDate.parse(split[1]);
         }
 
+        /**
+         * Returns a Deadline task from an already parsed description and date.
+         *
+         * @param toDo Details of deadline.
+         * @param date Date to complete the task by.
+         */
+        private Deadline(String toDo, LocalDate date) {
+            super();
+            this.toDo = toDo;
+            this.date = date;
+        }
+
         /**
          * Represents the icon to be shown to describe the work type.
          *
@@ -255,6 +397,24 @@ public abstract class Task {
         public TaskType getTaskType() {
             return TaskType.DEADLINE;
         }
+
+        /**
+         * Gets the description of task.
+         * @return Description.
+         */
+        @Override
+        public String getDescription() {
+            return this.toDo;
+        }
+
+        /**
+         * Gets the date of task.
+         * @return Date.
+         */
+        @Override
+        public LocalDate getDate() {
+            return this.date;
+        }
     }
 
     /**
@@ -280,10 +440,22 @@ public abstract class Task {
         private Event(String s) {
             super();
             String[] split = s.split(" /at ");
-            this.toDo = split[0];
+            this.toDo = DescriptionPool.intern(split[0]);
             this.date = LocalDate.parse(split[1]);
         }
 
+        /**
+         * Returns an Event task from an already parsed description and date.
+         *
+         * @param toDo Details of event.
+         * @param date Date of event.
+         */
+        private Event(String toDo, LocalDate date) {
+            super();
+            this.toDo = toDo;
+            this.date = date;
+        }
+
         /**
          * Represents the icon to be shown to describe the work type.
          *
@@ -333,6 +505,24 @@ public abstract class Task {
         public TaskType getTaskType() {
             return TaskType.EVENT;
         }
+
+        /**
+         * Gets the description of task.
+         * @return Description.
+         */
+        @Override
+        public String getDescription() {
+            return this.toDo;
+        }
+
+        /**
+         * Gets the date of task.
+         * @return Date.
+         */
+        @Override
+        public LocalDate getDate() {
+            return this.date;
+        }
     }
 
     /**
@@ -361,4 +551,18 @@ public abstract class Task {
      * @return TaskType.
      */
     public abstract TaskType getTaskType();
+
+    /**
+     * Gets the description of task.
+     * @return Description.
+     */
+    public abstract String getDescription();
+
+    /**
+     * Gets the date of task.
+     * @return Date, or null if the task has no date.
+     */
+    public LocalDate getDate() {
+        return null;
+    }
 }
@@ -0,0 +1,641 @@
+package duke.task;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Represents a list of tasks kept in a balanced tree, where every node knows the size of its subtree.
+ * Getting, setting, inserting and removing a task at a position take O(log n), so deleting near the front
+ * of a long list does not shift every later task the way an array list does.
+ *
+ * <p>The tree is an AVL tree ordered by position: a node's position is the size of its left subtree
+ * plus the positions before its subtree.
+ *
+ * <p>A {@link #snapshot()} shares the whole tree in O(1). Every node is stamped with the epoch it was
+ * created in, and a snapshot starts a new epoch, so later changes copy the O(log n) nodes on their path
+ * instead of changing nodes the snapshot can see. Without snapshots, nodes are changed in place.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class TaskList extends AbstractList<Task> {
+
+    /**
+     * Represents the root of the tree, or null if the list is empty.
+     */
+    private Node root;
+
+    /**
+     * Represents the epoch of the nodes that may be changed in place.
+     */
+    private int epoch;
+
+    /**
+     * Represents whether the list is a snapshot that cannot be changed.
+     */
+    private final boolean isFrozen;
+
+    /**
+     * Creates an empty list.
+     */
+    public TaskList() {
+        this.isFrozen = false;
+    }
+
+    /**
+     * Creates a snapshot sharing a tree.
+     * @param root Root of the tree.
+     */
+    private TaskList(Node root) {
+        this.root = root;
+        this.isFrozen = true;
+    }
+
+    /**
+     * Takes an unchangeable snapshot of the list in O(1). Later changes to this list do not show in it.
+     * @return Snapshot.
+     */
+    public TaskList snapshot() {
+        epoch++;
+        return new TaskList(root);
+    }
+
+    /**
+     * Makes the list hold the tasks of one of its snapshots again, in O(1). The snapshot is not changed by
+     * later changes to the list.
+     * @param snapshot Snapshot taken from this list.
+     */
+    void restore(TaskList snapshot) {
+        checkIfChangeable();
+        root = snapshot.root;
+        epoch++;
+        modCount++;
+    }
+
+    /**
+     * Gets the task at a position.
+     * @param index Position of the task.
+     * @return Task.
+     */
+    @Override
+    public Task get(int index) {
+        return nodeAt(index).task;
+    }
+
+    /**
+     * Replaces the task at a position.
+     * @param index Position of the task.
+     * @param task Task to be put there.
+     * @return Task that was there.
+     */
+    @Override
+    public Task set(int index, Task task) {
+        Task old = nodeAt(index).task;
+        checkIfChangeable();
+        root = replace(root, index, task);
+        return old;
+    }
+
+    /**
+     * Inserts a task at a position, moving the tasks from there on back by one.
+     * @param index Position of the task.
+     * @param task Task to be inserted.
+     */
+    @Override
+    public void add(int index, Task task) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        checkIfChangeable();
+        root = insert(root, index, task);
+        modCount++;
+    }
+
+    /**
+     * Removes the task at a position, moving the later tasks forward by one.
+     * @param index Position of the task.
+     * @return Task that was removed.
+     */
+    @Override
+    public Task remove(int index) {
+        Task task = nodeAt(index).task;
+        checkIfChangeable();
+        root = delete(root, index);
+        modCount++;
+        return task;
+    }
+
+    /**
+     * Removes the tasks at several positions in one pass. A few tasks are removed one at a time from the
+     * back; once that would cost more than visiting every node, the remaining tasks are built into a new
+     * balanced tree in O(n) instead.
+     * @param positions Positions of the tasks, in increasing order without repeats.
+     * @return Tasks that were removed, in list order.
+     */
+    List<Task> removePositions(int[] positions) {
+        checkIfChangeable();
+        List<Task> removed = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            removed.add(nodeAt(position).task);
+        }
+        if ((long) positions.length * heightOf(root) < size()) {
+            for (int i = positions.length - 1; i >= 0; i--) {
+                root = delete(root, positions[i]);
+            }
+        } else {
+            Task[] kept = new Task[size() - positions.length];
+            int next = 0;
+            int count = 0;
+            Iterator<Task> iterator = iterator();
+            for (int i = 0; iterator.hasNext(); i++) {
+                Task task = iterator.next();
+                if (next < positions.length && positions[next] == i) {
+                    next++;
+                } else {
+                    kept[count++] = task;
+                }
+            }
+            root = build(kept, 0, kept.length);
+        }
+        modCount++;
+        return removed;
+    }
+
+    /**
+     * Removes every task.
+     */
+    @Override
+    public void clear() {
+        checkIfChangeable();
+        root = null;
+        modCount++;
+    }
+
+    /**
+     * Gets the number of tasks.
+     * @return Number of tasks.
+     */
+    @Override
+    public int size() {
+        return sizeOf(root);
+    }
+
+    /**
+     * Iterates over the tasks in order, walking the tree once rather than looking up every position.
+     * @return Iterator.
+     */
+    @Override
+    public Iterator<Task> iterator() {
+        return new InOrderIterator(0);
+    }
+
+    /**
+     * Iterates over the tasks in order from a position, finding it in O(log n).
+     * @param index Position of the first task.
+     * @return Iterator.
+     */
+    public Iterator<Task> iterator(int index) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        return new InOrderIterator(index);
+    }
+
+    /**
+     * Splits the tasks by position for parallel streams. Each part walks its own range of the tree, after
+     * finding its start in O(log n).
+     * @return Spliterator.
+     */
+    @Override
+    public Spliterator<Task> spliterator() {
+        return new RangeSpliterator(0, size());
+    }
+
+    /**
+     * Finds the node at a position.
+     * @param index Position.
+     * @return Node.
+     */
+    private Node nodeAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = sizeOf(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Checks that the list is not a snapshot.
+     */
+    private void checkIfChangeable() {
+        if (isFrozen) {
+            throw new UnsupportedOperationException("a snapshot of a task list cannot be changed");
+        }
+    }
+
+    /**
+     * Gets a node that may be changed in place: the node itself if it belongs to the current epoch, or
+     * else a copy of it that does.
+     * @param node Node.
+     * @return Changeable node.
+     */
+    private Node edit(Node node) {
+        if (node.epoch == epoch) {
+            return node;
+        }
+        Node copy = new Node(node.task, epoch);
+        copy.left = node.left;
+        copy.right = node.right;
+        copy.size = node.size;
+        copy.height = node.height;
+        return copy;
+    }
+
+    /**
+     * Replaces the task at a position of a subtree.
+     * @param node Root of the subtree.
+     * @param index Position within the subtree.
+     * @param task Task to be put there.
+     * @return New root of the subtree.
+     */
+    private Node replace(Node node, int index, Task task) {
+        node = edit(node);
+        int leftSize = sizeOf(node.left);
+        if (index < leftSize) {
+            node.left = replace(node.left, index, task);
+        } else if (index > leftSize) {
+            node.right = replace(node.right, index - leftSize - 1, task);
+        } else {
+            node.task = task;
+        }
+        return node;
+    }
+
+    /**
+     * Inserts a task into a subtree.
+     * @param node Root of the subtree, or null.
+     * @param index Position within the subtree.
+     * @param task Task to be inserted.
+     * @return New root of the subtree.
+     */
+    private Node insert(Node node, int index, Task task) {
+        if (node == null) {
+            return new Node(task, epoch);
+        }
+        node = edit(node);
+        int leftSize = sizeOf(node.left);
+        if (index <= leftSize) {
+            node.left = insert(node.left, index, task);
+        } else {
+            node.right = insert(node.right, index - leftSize - 1, task);
+        }
+        return rebalance(node);
+    }
+
+    /**
+     * Deletes the node at a position of a subtree.
+     * @param node Root of the subtree.
+     * @param index Position within the subtree.
+     * @return New root of the subtree.
+     */
+    private Node delete(Node node, int index) {
+        node = edit(node);
+        int leftSize = sizeOf(node.left);
+        if (index < leftSize) {
+            node.left = delete(node.left, index);
+        } else if (index > leftSize) {
+            node.right = delete(node.right, index - leftSize - 1);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else {
+            // Take the task of the next node, then delete that node from the right subtree.
+            Node next = node.right;
+            while (next.left != null) {
+                next = next.left;
+            }
+            node.task = next.task;
+            node.right = delete(node.right, 0);
+        }
+        return rebalance(node);
+    }
+
+    /**
+     * Builds a balanced subtree of new nodes from a run of tasks.
+     * @param tasks Tasks in list order.
+     * @param from Index of the first task of the run.
+     * @param to Index after the last task of the run.
+     * @return Root of the subtree, or null if the run is empty.
+     */
+    private Node build(Task[] tasks, int from, int to) {
+        if (from == to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        Node node = new Node(tasks[middle], epoch);
+        node.left = build(tasks, from, middle);
+        node.right = build(tasks, middle + 1, to);
+        node.update();
+        return node;
+    }
+
+    /**
+     * Restores the balance of a node whose subtrees differ in height by at most two.
+     * @param node Node that may be changed in place.
+     * @return New root of the subtree.
+     */
+    private Node rebalance(Node node) {
+        node.update();
+        int balance = heightOf(node.left) - heightOf(node.right);
+        if (balance > 1) {
+            if (heightOf(node.left.left) < heightOf(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        } else if (balance < -1) {
+            if (heightOf(node.right.right) < heightOf(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    /**
+     * Rotates a node down to the left.
+     * @param node Node with a right child.
+     * @return New root of the subtree.
+     */
+    private Node rotateLeft(Node node) {
+        node = edit(node);
+        Node right = edit(node.right);
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        right.update();
+        return right;
+    }
+
+    /**
+     * Rotates a node down to the right.
+     * @param node Node with a left child.
+     * @return New root of the subtree.
+     */
+    private Node rotateRight(Node node) {
+        node = edit(node);
+        Node left = edit(node.left);
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        left.update();
+        return left;
+    }
+
+    /**
+     * Gets the size of a subtree.
+     * @param node Root of the subtree, or null.
+     * @return Number of nodes.
+     */
+    private static int sizeOf(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Gets the height of a subtree.
+     * @param node Root of the subtree, or null.
+     * @return Height, or 0 for an empty subtree.
+     */
+    private static int heightOf(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Represents a node of the tree.
+     */
+    private static class Node {
+
+        /**
+         * Represents the task at the node.
+         */
+        private Task task;
+
+        /**
+         * Represents the subtree of earlier tasks.
+         */
+        private Node left;
+
+        /**
+         * Represents the subtree of later tasks.
+         */
+        private Node right;
+
+        /**
+         * Represents the number of nodes in the subtree.
+         */
+        private int size;
+
+        /**
+         * Represents the height of the subtree.
+         */
+        private int height;
+
+        /**
+         * Represents the epoch the node was created in.
+         */
+        private final int epoch;
+
+        /**
+         * Creates a leaf.
+         * @param task Task at the node.
+         * @param epoch Epoch the node is created in.
+         */
+        private Node(Task task, int epoch) {
+            this.task = task;
+            this.epoch = epoch;
+            this.size = 1;
+            this.height = 1;
+        }
+
+        /**
+         * Recomputes the size and height from the children.
+         */
+        private void update() {
+            size = sizeOf(left) + sizeOf(right) + 1;
+            height = Math.max(heightOf(left), heightOf(right)) + 1;
+        }
+    }
+
+    /**
+     * Represents an iterator that walks the tree in order with a stack of the nodes still to be visited.
+     */
+    private class InOrderIterator implements Iterator<Task> {
+
+        /**
+         * Represents the nodes whose task and right subtree are still to be visited.
+         */
+        private final Deque<Node> stack;
+
+        /**
+         * Represents the modification count the iterator expects.
+         */
+        private final int expectedModCount;
+
+        /**
+         * Creates an iterator at a position, keeping the path to it that is still to be visited.
+         * @param index Position of the first task.
+         */
+        private InOrderIterator(int index) {
+            this.stack = new ArrayDeque<>();
+            this.expectedModCount = modCount;
+            Node node = root;
+            while (node != null) {
+                int leftSize = sizeOf(node.left);
+                if (index <= leftSize) {
+                    stack.push(node);
+                    node = index == leftSize ? null : node.left;
+                } else {
+                    index -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        /**
+         * Checks if there are more tasks.
+         * @return Boolean.
+         */
+        @Override
+        public boolean hasNext() {
+            return !stack.isEmpty();
+        }
+
+        /**
+         * Gets the next task.
+         * @return Task.
+         */
+        @Override
+        public Task next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (stack.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node node = stack.pop();
+            pushLeft(node.right);
+            return node.task;
+        }
+
+        /**
+         * Pushes a node and its chain of left children.
+         * @param node Node, or null.
+         */
+        private void pushLeft(Node node) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+        }
+    }
+
+    /**
+     * Represents a spliterator over a range of positions, split in halves.
+     */
+    private class RangeSpliterator implements Spliterator<Task> {
+
+        /**
+         * Represents the position of the next task.
+         */
+        private int from;
+
+        /**
+         * Represents the position after the last task.
+         */
+        private final int to;
+
+        /**
+         * Represents the iterator over the range, or null until the first task is taken.
+         */
+        private Iterator<Task> iterator;
+
+        /**
+         * Creates a spliterator over a range of positions.
+         * @param from Position of the first task.
+         * @param to Position after the last task.
+         */
+        private RangeSpliterator(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Gives the next task to an action.
+         * @param action Action.
+         * @return Whether there was a task.
+         */
+        @Override
+        public boolean tryAdvance(Consumer<? super Task> action) {
+            if (from >= to) {
+                return false;
+            }
+            if (iterator == null) {
+                iterator = iterator(from);
+            }
+            from++;
+            action.accept(iterator.next());
+            return true;
+        }
+
+        /**
+         * Splits off the first half of the range, unless tasks have already been taken.
+         * @return Spliterator over the first half, or null.
+         */
+        @Override
+        public Spliterator<Task> trySplit() {
+            int mid = (from + to) >>> 1;
+            if (iterator != null || mid <= from) {
+                return null;
+            }
+            Spliterator<Task> firstHalf = new RangeSpliterator(from, mid);
+            from = mid;
+            return firstHalf;
+        }
+
+        /**
+         * Gets the number of tasks left.
+         * @return Number of tasks.
+         */
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        /**
+         * Gets the characteristics of the spliterator.
+         * @return Characteristics.
+         */
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+    }
+}
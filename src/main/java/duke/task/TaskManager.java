@@ -1,62 +1,245 @@
 package duke.task;
 
-import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Represents a Class that manages tasks.
  *
+ * <p>Every method holds the task manager's lock, so changes are made one at a time. Threads other than
+ * the one running commands read through a {@link #snapshot()} instead, which takes the lock only for
+ * O(1) and is then read without it, apart from brief index lookups while the tasks are unchanged.
+ *
  * @author Khor Jun Wei
  * @version CS2103T AY22/23 Sem 1
  */
 public class TaskManager {
 
+    /**
+     * Represents the default number of tasks from which scans and formatting are split across threads.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 100_000;
+
+    /**
+     * Represents the default number of commands that can be undone.
+     */
+    public static final int DEFAULT_HISTORY_DEPTH = 100;
+
     /**
      * Represents an indentation for replies.
      */
     private static final String INDENTATION = "     ";
 
     /**
-     * Represents a file writer.
+     * Represents the number of parts each thread gets when formatting in parallel, so that uneven parts
+     * even out.
+     */
+    private static final int PARTS_PER_THREAD = 4;
+
+    /**
+     * Represents the query for reminders: the uncompleted deadlines, earliest first.
+     */
+    private static final Query REMINDERS = Query.of("type:deadline done:false sort:date");
+
+    /**
+     * Represents the number of tasks from which scans and formatting are split across threads.
+     */
+    private static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /**
+     * Represents the list of tasks. By default it finds, inserts and removes tasks by position in O(log n);
+     * a columnar list keeps them as primitive columns instead.
+     */
+    private final List<Task> tasks;
+
+    /**
+     * Represents whether the tasks are kept as columns. Tasks taken from columns are fresh views every
+     * time, so the find and date indexes, which hold tasks, are not kept and queries scan the list.
+     */
+    private final boolean isColumnar;
+
+    /**
+     * Represents the changes made since they were last taken.
+     */
+    private ChangeSet changes;
+
+    /**
+     * Represents the index of description and date trigrams used by find.
+     */
+    private final TrigramIndex trigramIndex;
+
+    /**
+     * Represents the index of the words of descriptions, for finds that tolerate typos.
+     */
+    private final TokenIndex tokenIndex;
+
+    /**
+     * Represents the index of deadlines by date.
+     */
+    private final DateIndex deadlineIndex;
+
+    /**
+     * Represents the index of events by date.
      */
-    private final FileWriter fw;
+    private final DateIndex eventIndex;
 
     /**
-     * Represents an array list of tasks.
+     * Represents the commands that can be undone and redone. A columnar task manager keeps none.
      */
-    private final ArrayList<Task> tasks;
+    private final History history;
+
+    /**
+     * Represents the number of tasks of each type, by completion status: pending first, then completed.
+     */
+    private final int[][] counts;
+
+    /**
+     * Represents the number of changes made to the tasks.
+     */
+    private long version;
+
+    /**
+     * Represents the order key given to the next task added at the end of the list.
+     */
+    private long nextOrderKey;
 
     /**
      * Constructor for Task Manager.
-     * @param fw File writer.
      */
-    public TaskManager(FileWriter fw) {
-        this.tasks = new ArrayList<>(100);
-        this.fw = fw;
+    public TaskManager() {
+        this(false);
+    }
+
+    /**
+     * Constructor for Task Manager that keeps the tasks as object nodes of a tree or as primitive columns.
+     * @param isColumnar Whether the tasks are kept as columns, trading the indexes for far less memory.
+     */
+    private TaskManager(boolean isColumnar) {
+        this.isColumnar = isColumnar;
+        this.tasks = isColumnar ? new ColumnarTaskList() : new TaskList();
+        this.changes = new ChangeSet();
+        this.trigramIndex = new TrigramIndex();
+        this.tokenIndex = new TokenIndex();
+        this.deadlineIndex = new DateIndex();
+        this.eventIndex = new DateIndex();
+        this.counts = new int[Task.TaskType.values().length][2];
+        this.history = new History(isColumnar ? 0 : DEFAULT_HISTORY_DEPTH);
+    }
+
+    /**
+     * Creates a task manager that keeps its tasks as primitive columns, for lists of millions of tasks.
+     * Finds and date queries scan the list instead of using indexes, and commands cannot be undone.
+     * @return Task manager.
+     */
+    public static TaskManager ofColumnar() {
+        return new TaskManager(true);
+    }
+
+    /**
+     * Takes an unchangeable snapshot of the tasks and their counters. With the default tree of tasks this
+     * takes O(1), after which changes copy the few tree nodes they touch; a columnar task manager copies its
+     * tasks instead.
+     * @return Snapshot.
+     */
+    public synchronized TaskSnapshot snapshot() {
+        List<Task> snapshot = isColumnar
+                ? Collections.unmodifiableList(new ArrayList<>(tasks))
+                : ((TaskList) tasks).snapshot();
+        int[][] countsCopy = new int[counts.length][];
+        for (int i = 0; i < counts.length; i++) {
+            countsCopy[i] = counts[i].clone();
+        }
+        return new TaskSnapshot(snapshot, version, countsCopy, this);
+    }
+
+    /**
+     * Finds tasks that contain a certain string through the trigram index, for a snapshot taken at a
+     * version. The lock is held only for the lookup, which reads no more than the candidates of the index.
+     * @param version Version the snapshot was taken at.
+     * @param s String.
+     * @return List of matching tasks, or null if the tasks changed since that version or the index cannot
+     *     answer the query, in which case the snapshot scans itself instead.
+     */
+    synchronized List<Task> findTasksAt(long version, String s) {
+        if (version != this.version || isColumnar || s.length() < TrigramIndex.GRAM_LENGTH) {
+            return null;
+        }
+        return findTasks(s);
+    }
+
+    /**
+     * Finds the earliest uncompleted deadlines through the date index, for a snapshot taken at a version.
+     * The lock is held only while the index is read from its earliest day.
+     * @param version Version the snapshot was taken at.
+     * @param limit Largest number of deadlines to find.
+     * @return List of deadlines, in date order and then list order, or null if the tasks changed since that
+     *     version or keep no index, in which case the snapshot scans itself instead.
+     */
+    synchronized List<Task> findRemindersAt(long version, int limit) {
+        if (version != this.version || isColumnar) {
+            return null;
+        }
+        return findReminders(limit);
     }
 
     /**
      * Crafts a list of tasks.
      * @return String formatting of tasks in the task list.
      */
-    public String craftTaskString() {
-        int length = tasks.size();
-        String result = "";
-        for (int x = 0; x < length; x++) {
-            Task task = tasks.get(x);
-            if (task == null) {
-                break;
-            } else {
-                if (x == 0) {
-                    result += (x + 1) + "." + task;
-                } else {
-                    result += "\n" + INDENTATION + (x + 1) + "." + task;
-                }
-            }
+    public synchronized String craftTaskString() {
+        return craftTaskString(0, tasks.size());
+    }
+
+    /**
+     * Crafts a page of the list of tasks, numbered by their places in the whole list.
+     * @param offset Number of tasks to skip.
+     * @param limit Largest number of tasks to include.
+     * @return String formatting of tasks in the page.
+     */
+    public synchronized String craftTaskString(int offset, int limit) {
+        StringBuilder result = new StringBuilder();
+        try {
+            appendTaskString(result, offset, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return result;
+        return result.toString();
+    }
+
+    /**
+     * Writes a page of the list of tasks, numbered by their places in the whole list, one task at a time,
+     * so that no more than one line is held in memory whatever the size of the list.
+     * @param out Destination of the formatting.
+     * @param offset Number of tasks to skip.
+     * @param limit Largest number of tasks to write.
+     * @throws IOException If the destination cannot be written to.
+     */
+    public synchronized void appendTaskString(Appendable out, int offset, int limit) throws IOException {
+        assert offset >= 0 && limit >= 0 : "the page should not have a negative offset or limit";
+        int count = (int) Math.max(0, Math.min(tasks.size(), (long) offset + limit) - offset);
+        int start = Math.min(offset, tasks.size());
+        // The tree walks to the position once instead of looking up every task by position.
+        Iterator<Task> iterator = isColumnar ? tasks.listIterator(start) : ((TaskList) tasks).iterator(start);
+        appendFormattedList(out, iterator, count, offset + 1);
     }
 
     /**
@@ -64,11 +247,223 @@ public class TaskManager {
      * @param s String.
      * @return String formatting of tasks in the task list.
      */
-    public String findAndCraftTaskList(String s) {
-        List<Task> filteredList = tasks.stream()
+    public synchronized String findAndCraftTaskList(String s) {
+        return convertListToFormattedString(findTasks(s));
+    }
+
+    /**
+     * Finds tasks that meet every filter of a query.
+     * @param query Query.
+     * @return String formatting of the matching tasks.
+     */
+    public synchronized String findAndCraftTaskList(Query query) {
+        return convertListToFormattedString(findTasks(query));
+    }
+
+    /**
+     * Finds tasks that contain a certain string, in list order. Queries of at least three characters are
+     * answered from the trigram index; shorter ones scan the list.
+     * @param s String.
+     * @return List of matching tasks.
+     */
+    public synchronized List<Task> findTasks(String s) {
+        List<Task> candidates = !isColumnar && s.length() >= TrigramIndex.GRAM_LENGTH
+                ? trigramIndex.findCandidates(s)
+                : tasks;
+        return streamOf(candidates)
                 .filter(x -> x.containString(s))
                 .collect(Collectors.toList());
-        return convertListToFormattedString(filteredList);
+    }
+
+    /**
+     * Finds tasks that meet every filter of a query, through the plan expected to read the fewest tasks.
+     * The plan stops reading once the limit of the query is reached, unless the tasks have to be sorted.
+     * @param query Query.
+     * @return List of matching tasks, in the order the query asks for.
+     */
+    public synchronized List<Task> findTasks(Query query) {
+        return planQuery(query).execute();
+    }
+
+    /**
+     * Crafts the plan chosen for a query, without running it.
+     * @param query Query.
+     * @return String describing the plan, one stage per line.
+     */
+    public synchronized String explain(Query query) {
+        return String.join("\n" + INDENTATION, planQuery(query).describe());
+    }
+
+    /**
+     * Chooses the plan for a query. A columnar list keeps no indexes, so it is always scanned.
+     * @param query Query.
+     * @return Plan.
+     */
+    private QueryPlan planQuery(Query query) {
+        return isColumnar
+                ? QueryPlan.of(query, tasks, counts, null, null, null)
+                : QueryPlan.of(query, tasks, counts, trigramIndex, deadlineIndex, eventIndex);
+    }
+
+    /**
+     * Finds tasks with words close to those of a string, despite typos.
+     * @param s String of one or more words.
+     * @param maxDistance Largest edit distance of each word, or a negative number to allow more typos in
+     *     longer words.
+     * @return String formatting of the matching tasks, closest first.
+     */
+    public synchronized String findAndCraftSimilarTaskList(String s, int maxDistance) {
+        return convertListToFormattedString(findSimilarTasks(s, maxDistance));
+    }
+
+    /**
+     * Finds tasks that have, for every word of a string, a word of their description within an edit
+     * distance of it. The words of the index within that distance are found in its BK-tree, so only the
+     * tasks holding them are looked at; a columnar list keeps no index and is scanned instead.
+     * @param s String of one or more words.
+     * @param maxDistance Largest edit distance of each word, or a negative number to allow more typos in
+     *     longer words.
+     * @return List of matching tasks, ranked by the sum of the distances of their closest words and then in
+     *     list order.
+     */
+    public synchronized List<Task> findSimilarTasks(String s, int maxDistance) {
+        Set<String> words = TokenIndex.wordsOf(s);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (isColumnar) {
+            return scanSimilar(words, maxDistance);
+        }
+        Map<Task, Integer> distances = null;
+        for (String word : words) {
+            Map<Task, Integer> closest = new HashMap<>();
+            tokenIndex.findWithin(word, getMaxDistance(word, maxDistance)).forEach((match, distance) -> {
+                for (Task task : tokenIndex.getTasks(match)) {
+                    closest.merge(task, distance, Math::min);
+                }
+            });
+            if (distances != null) {
+                closest.keySet().retainAll(distances.keySet());
+                distances.forEach((task, distance) -> closest.computeIfPresent(task, (key, value) -> value + distance));
+            }
+            distances = closest;
+            if (distances.isEmpty()) {
+                break;
+            }
+        }
+        return distances.entrySet().stream()
+                .sorted(Map.Entry.<Task, Integer>comparingByValue()
+                        .thenComparingLong(x -> x.getKey().getOrderKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Scans the list for tasks with words close to every given word.
+     * @param words Normalized words.
+     * @param maxDistance Largest edit distance of each word, or a negative number to allow more typos in
+     *     longer words.
+     * @return List of matching tasks, closest first and then in list order.
+     */
+    private List<Task> scanSimilar(Set<String> words, int maxDistance) {
+        List<Task> matches = new ArrayList<>();
+        List<Integer> distances = new ArrayList<>();
+        for (Task task : tasks) {
+            Set<String> taskWords = TokenIndex.wordsOf(task.getDescription());
+            int total = 0;
+            for (String word : words) {
+                int limit = getMaxDistance(word, maxDistance);
+                int closest = limit + 1;
+                for (String taskWord : taskWords) {
+                    closest = Math.min(closest, TokenIndex.distance(word, taskWord));
+                }
+                if (closest > limit) {
+                    total = -1;
+                    break;
+                }
+                total += closest;
+            }
+            if (total >= 0) {
+                matches.add(task);
+                distances.add(total);
+            }
+        }
+        return IntStream.range(0, matches.size()).boxed()
+                .sorted(Comparator.comparing(distances::get))
+                .map(matches::get)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the largest edit distance allowed for a word: none for words of up to two characters, one typo
+     * for words of up to five, and two for longer ones, unless a distance was given.
+     * @param word Word.
+     * @param maxDistance Largest edit distance given, or a negative number for none.
+     * @return Largest edit distance.
+     */
+    private static int getMaxDistance(String word, int maxDistance) {
+        if (maxDistance >= 0) {
+            return maxDistance;
+        }
+        return word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Finds deadlines due before a date.
+     * @param date Date.
+     * @return String formatting of the deadlines in date order.
+     */
+    public synchronized String findAndCraftDueBefore(LocalDate date) {
+        return convertListToFormattedString(findDeadlinesBefore(date));
+    }
+
+    /**
+     * Finds deadlines due before a date, in date order and then list order.
+     * @param date Date after the last one to be included.
+     * @return List of deadlines.
+     */
+    public synchronized List<Task> findDeadlinesBefore(LocalDate date) {
+        if (isColumnar) {
+            return scanByDate(Task.TaskType.DEADLINE, x -> x.getDate().isBefore(date));
+        }
+        return deadlineIndex.findBefore(date);
+    }
+
+    /**
+     * Finds events between two dates.
+     * @param from First date.
+     * @param to Last date.
+     * @return String formatting of the events in date order.
+     */
+    public synchronized String findAndCraftEventsBetween(LocalDate from, LocalDate to) {
+        return convertListToFormattedString(findEventsBetween(from, to));
+    }
+
+    /**
+     * Finds events between two dates, both included, in date order and then list order.
+     * @param from First date to be included.
+     * @param to Last date to be included.
+     * @return List of events.
+     */
+    public synchronized List<Task> findEventsBetween(LocalDate from, LocalDate to) {
+        if (isColumnar) {
+            return scanByDate(Task.TaskType.EVENT, x -> !x.getDate().isBefore(from) && !x.getDate().isAfter(to));
+        }
+        return eventIndex.findBetween(from, to);
+    }
+
+    /**
+     * Scans the list for tasks of a type, sorted by date and then list order.
+     * @param type Task type with a date.
+     * @param condition Condition the tasks have to meet.
+     * @return List of tasks.
+     */
+    private List<Task> scanByDate(Task.TaskType type, Predicate<Task> condition) {
+        return streamOf(tasks)
+                .filter(x -> x.getTaskType() == type)
+                .filter(condition)
+                .sorted(Comparator.comparing(Task::getDate))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -76,61 +471,278 @@ public class TaskManager {
      * @param list List containing Task objects.
      * @return String message.
      */
-    private String convertListToFormattedString(List<Task> list) {
-        int counter = 1;
-        String result = "";
-        for (Task task : list) {
-            if (counter == 1) {
-                result += counter + "." + task;
-            } else {
-                result += "\n" + INDENTATION + counter + "." + task;
+    static String convertListToFormattedString(List<Task> list) {
+        if (!checkIfParallel(list.size()) || !(list instanceof RandomAccess)) {
+            return formatPart(list, 0, list.size());
+        }
+        // Each part is numbered by its place in the whole list, and the parts are joined in order.
+        int parts = getParallelism() * PARTS_PER_THREAD;
+        return IntStream.range(0, parts)
+                .parallel()
+                .mapToObj(part -> formatPart(list, (int) ((long) list.size() * part / parts),
+                        (int) ((long) list.size() * (part + 1) / parts)))
+                .filter(x -> !x.isEmpty())
+                .collect(Collectors.joining("\n" + INDENTATION));
+    }
+
+    /**
+     * Formats a part of a list of tasks, numbered by their places in the whole list.
+     * @param list List containing Task objects.
+     * @param start Index of the first task of the part.
+     * @param end Index after the last task of the part.
+     * @return String message.
+     */
+    private static String formatPart(List<Task> list, int start, int end) {
+        StringBuilder result = new StringBuilder();
+        try {
+            appendFormattedList(result, list.listIterator(start), end - start, start + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Streams tasks, in parallel if there are enough of them. Either way the stream keeps list order.
+     * @param list Tasks.
+     * @return Stream of tasks.
+     */
+    static Stream<Task> streamOf(Collection<Task> list) {
+        return checkIfParallel(list.size()) ? list.parallelStream() : list.stream();
+    }
+
+    /**
+     * Checks if work over a number of tasks should be split across threads: there must be enough tasks,
+     * and more than one thread in the pool the work would run in.
+     * @param size Number of tasks.
+     * @return Boolean.
+     */
+    private static boolean checkIfParallel(int size) {
+        return size >= parallelThreshold && getParallelism() > 1;
+    }
+
+    /**
+     * Gets the number of threads of the pool that parallel streams started here would run in.
+     * @return Number of threads.
+     */
+    private static int getParallelism() {
+        return ForkJoinTask.inForkJoinPool()
+                ? ForkJoinTask.getPool().getParallelism()
+                : ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    /**
+     * Sets the number of tasks from which scans and formatting are split across threads.
+     * @param threshold Number of tasks.
+     */
+    public static void setParallelThreshold(int threshold) {
+        assert threshold >= 0 : "the threshold should not be negative";
+        parallelThreshold = threshold;
+    }
+
+    /**
+     * Writes Tasks as numbered lines.
+     * @param out Destination of the formatting.
+     * @param iterator Iterator over the tasks.
+     * @param count Number of tasks to write.
+     * @param firstNumber Number of the first task.
+     * @throws IOException If the destination cannot be written to.
+     */
+    static void appendFormattedList(Appendable out, Iterator<Task> iterator, int count, int firstNumber)
+            throws IOException {
+        for (int counter = firstNumber; counter < firstNumber + count; counter++) {
+            if (counter != firstNumber) {
+                out.append('\n').append(INDENTATION);
             }
-            counter++;
+            out.append(String.valueOf(counter)).append('.').append(iterator.next().toString());
         }
-        return result;
+    }
+
+    /**
+     * Estimates the memory held by the find index, not counting the tasks themselves.
+     * @return Estimated size in bytes.
+     */
+    public synchronized long estimateIndexMemoryBytes() {
+        return isColumnar ? 0 : trigramIndex.estimateMemoryBytes() + tokenIndex.estimateMemoryBytes();
     }
 
     /**
      * Crafts a message to be added into the file.
      * @return String representing the message.
      */
-    public String craftTextMessageForFile() {
-        int length = tasks.size();
-        String result = "";
-        for (int x = 0; x < length; x++) {
-            Task task = tasks.get(x);
-            if (task == null) {
-                break;
-            } else {
-                if (x == 0) {
-                    result += task.constructTextFileMessage();
-                } else {
-                    result += "\n" + task.constructTextFileMessage();
-                }
+    public synchronized String craftTextMessageForFile() {
+        StringBuilder result = new StringBuilder();
+        for (Task task : tasks) {
+            if (result.length() > 0) {
+                result.append('\n');
             }
+            result.append(task.constructTextFileMessage());
         }
-        return result;
+        return result.toString();
     }
 
     /**
-     * Crafts a Reminders List.
+     * Copies the current list of tasks, so that it can be written out while the list keeps changing.
+     * @return List of tasks.
+     */
+    public synchronized List<Task> getTaskListCopy() {
+        return new ArrayList<>(tasks);
+    }
+
+    /**
+     * Takes the changes made since they were last taken, so that only those have to be saved. The changes
+     * taken together form one step that can be undone.
+     * @return Change set.
+     */
+    public synchronized ChangeSet takeChanges() {
+        endHistoryStep();
+        ChangeSet taken = changes;
+        changes = new ChangeSet();
+        return taken;
+    }
+
+    /**
+     * Crafts a Reminders List of the uncompleted deadlines, earliest first.
      *
      * @return String representing the message.
      */
-    public String craftRemindersString() {
-        List<Task> filteredList = tasks.stream()
-                .filter(x -> x.getTaskType() == Task.TaskType.DEADLINE)
+    public synchronized String craftRemindersString() {
+        return convertListToFormattedString(findTasks(REMINDERS));
+    }
+
+    /**
+     * Crafts a Reminders List of the most urgent uncompleted deadlines: the overdue ones, and then the ones
+     * due soonest.
+     *
+     * @param limit Largest number of deadlines to show.
+     * @return String representing the message.
+     */
+    public synchronized String craftRemindersString(int limit) {
+        return convertListToFormattedString(findReminders(limit));
+    }
+
+    /**
+     * Finds the earliest uncompleted deadlines, in date order and then list order. The date index is read
+     * from its earliest day, skipping completed deadlines, until enough are found. A columnar list keeps no
+     * index, so it is scanned once while a heap holds the earliest deadlines seen so far, which takes
+     * O(n log k) time and O(k) space instead of sorting every deadline.
+     *
+     * @param limit Largest number of deadlines to find.
+     * @return List of deadlines.
+     */
+    public synchronized List<Task> findReminders(int limit) {
+        if (isColumnar) {
+            return selectEarliest(tasks, x -> x.getTaskType() == Task.TaskType.DEADLINE && !x.checkIfCompleted(),
+                    limit);
+        }
+        return deadlineIndex.stream(null, null)
                 .filter(x -> !x.checkIfCompleted())
+                .limit(limit)
                 .collect(Collectors.toList());
-        return convertListToFormattedString(filteredList);
+    }
+
+    /**
+     * Selects the earliest dated tasks meeting a condition, with a heap bounded to the number asked for.
+     * Tasks with the same date keep their list order.
+     *
+     * @param list Tasks in list order.
+     * @param condition Condition the tasks have to meet, which only dated tasks may meet.
+     * @param limit Largest number of tasks to select.
+     * @return List of tasks, in date order and then list order.
+     */
+    static List<Task> selectEarliest(Iterable<Task> list, Predicate<Task> condition, int limit) {
+        if (limit == 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Candidate> latest = new PriorityQueue<>(Candidate.ORDER.reversed());
+        int position = 0;
+        for (Task task : list) {
+            if (condition.test(task)) {
+                if (latest.size() < limit) {
+                    latest.add(new Candidate(task, position));
+                } else if (task.getDate().isBefore(latest.peek().task.getDate())) {
+                    latest.poll();
+                    latest.add(new Candidate(task, position));
+                }
+            }
+            position++;
+        }
+        return latest.stream()
+                .sorted(Candidate.ORDER)
+                .map(x -> x.task)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Crafts a summary of the number of tasks of each type and status, and of the memory saved by sharing
+     * descriptions.
+     *
+     * @return String representing the message.
+     */
+    public synchronized String craftStatsString() {
+        StringBuilder result = new StringBuilder();
+        int done = 0;
+        for (Task.TaskType type : Task.TaskType.values()) {
+            int typeDone = getNumberOfMatchingTasks(type, true);
+            done += typeDone;
+            result.append(type.name().charAt(0)).append(type.name().substring(1).toLowerCase()).append("s: ")
+                    .append(getNumberOfMatchingTasks(type)).append(" (").append(typeDone).append(" done, ")
+                    .append(getNumberOfMatchingTasks(type, false)).append(" pending)\n").append(INDENTATION);
+        }
+        result.append("Total: ").append(tasks.size()).append(" (").append(done).append(" done, ")
+                .append(tasks.size() - done).append(" pending)\n").append(INDENTATION)
+                .append("Shared descriptions: ").append(DescriptionPool.getSharedCount()).append(" (about ")
+                .append(DescriptionPool.getBytesSaved()).append(" bytes saved)");
+        return result.toString();
     }
 
     /**
      * Adds task into array of tasks.
      * @param task Given task.
      */
-    public void addTask(Task task) {
+    public synchronized void addTask(Task task) {
+        beginHistoryStep();
+        history.recordAdd(tasks.size(), task);
+        changes.recordAdd(tasks.size(), task);
+        task.setOrderKey(nextOrderKey++);
         tasks.add(task);
+        addToIndexes(task);
+        count(task, 1);
+        version++;
+    }
+
+    /**
+     * Inserts a task before the task at an index.
+     * @param location Index of the new task.
+     * @param task Given task.
+     */
+    public synchronized void insertTask(int location, Task task) {
+        if (location == tasks.size()) {
+            addTask(task);
+            return;
+        }
+        Task next = tasks.get(location);
+        if (!isColumnar) {
+            long previousKey = location == 0 ? next.getOrderKey() - 2 : tasks.get(location - 1).getOrderKey();
+            if (next.getOrderKey() - previousKey < 2) {
+                // No key is left between the neighbours, so the keys are handed out again with a gap.
+                nextOrderKey = 0;
+                int position = 0;
+                for (Task other : tasks) {
+                    nextOrderKey += position++ == location ? 2 : 1;
+                    other.setOrderKey(nextOrderKey - 1);
+                }
+                previousKey = next.getOrderKey() - 2;
+            }
+            task.setOrderKey(previousKey + (next.getOrderKey() - previousKey) / 2);
+        }
+        beginHistoryStep();
+        history.recordAdd(location, task);
+        changes.recordInsert(location, task);
+        tasks.add(location, task);
+        addToIndexes(task);
+        count(task, 1);
+        version++;
     }
 
     /**
@@ -138,18 +750,118 @@ public class TaskManager {
      * @param location Index where the task is located.
      * @return Task.
      */
-    public Task removeTask(int location) {
+    public synchronized Task removeTask(int location) {
         assert location >= 0 : "the task number should not be negative";
-        Task task = tasks.get(location);
-        tasks.remove(location);
+        beginHistoryStep();
+        Task task = tasks.remove(location);
+        history.recordRemove(location, task);
+        changes.recordRemove(location);
+        removeFromIndexes(task);
+        count(task, -1);
+        version++;
         return task;
     }
 
+    /**
+     * Removes several tasks as one batch: the list closes every gap in one pass, and the removals are
+     * recorded from the back so that each run of neighbouring tasks is saved as a single range.
+     * @param locations Indexes where the tasks are located, in increasing order without repeats.
+     * @return Tasks that were removed, in list order.
+     */
+    public synchronized List<Task> removeTasks(int[] locations) {
+        assert locations.length == 0 || locations[0] >= 0 : "the task numbers should not be negative";
+        beginHistoryStep();
+        List<Task> removed = isColumnar
+                ? ((ColumnarTaskList) tasks).removePositions(locations)
+                : ((TaskList) tasks).removePositions(locations);
+        for (int i = locations.length - 1; i >= 0; i--) {
+            history.recordRemove(locations[i], removed.get(i));
+            changes.recordRemove(locations[i]);
+        }
+        for (Task task : removed) {
+            removeFromIndexes(task);
+            count(task, -1);
+        }
+        version++;
+        return removed;
+    }
+
+    /**
+     * Replaces a range of tasks with other tasks. This is not recorded as a change to be saved, since the
+     * replacement comes from the stored file itself, and earlier commands can no longer be undone.
+     * @param start Index of the first task to be replaced.
+     * @param end Index after the last task to be replaced.
+     * @param replacement Tasks to be put in their place.
+     */
+    public synchronized void replaceTasks(int start, int end, List<Task> replacement) {
+        assert start >= 0 && start <= end : "the range of tasks should be valid";
+        history.clear();
+        for (Task task : tasks.subList(start, end)) {
+            removeFromIndexes(task);
+            count(task, -1);
+        }
+        tasks.subList(start, end).clear();
+        tasks.addAll(start, replacement);
+        // Tasks were inserted in the middle, so the order keys are handed out again along the list.
+        nextOrderKey = 0;
+        for (Task task : isColumnar ? replacement : tasks) {
+            task.setOrderKey(nextOrderKey++);
+        }
+        for (Task task : replacement) {
+            addToIndexes(task);
+            count(task, 1);
+        }
+        version++;
+    }
+
+    /**
+     * Adds a task to the find index, and a deadline or event to the date index of its type.
+     * @param task Task.
+     */
+    private void addToIndexes(Task task) {
+        if (isColumnar) {
+            return;
+        }
+        trigramIndex.add(task);
+        tokenIndex.add(task);
+        if (task.getTaskType() == Task.TaskType.DEADLINE) {
+            deadlineIndex.add(task);
+        } else if (task.getTaskType() == Task.TaskType.EVENT) {
+            eventIndex.add(task);
+        }
+    }
+
+    /**
+     * Adjusts the counter of a task's type and status.
+     * @param task Task.
+     * @param delta Change in the number of such tasks.
+     */
+    private void count(Task task, int delta) {
+        counts[task.getTaskType().ordinal()][task.checkIfCompleted() ? 1 : 0] += delta;
+    }
+
+    /**
+     * Removes a task from the find index, and a deadline or event from the date index of its type.
+     * @param task Task.
+     */
+    private void removeFromIndexes(Task task) {
+        if (isColumnar) {
+            return;
+        }
+        trigramIndex.remove(task);
+        tokenIndex.remove(task);
+        if (task.getTaskType() == Task.TaskType.DEADLINE) {
+            deadlineIndex.remove(task);
+        } else if (task.getTaskType() == Task.TaskType.EVENT) {
+            eventIndex.remove(task);
+        }
+    }
+
     /**
      * Represents the number of task is the task list.
      * @return Number of tasks in task list.
      */
-    public int getNumberOfTasks() {
+    public synchronized int getNumberOfTasks() {
         return tasks.size();
     }
 
@@ -158,10 +870,56 @@ public class TaskManager {
      * @param type Task type.
      * @return Number of tasks.
      */
-    public int getNumberOfMatchingTasks(Task.TaskType type) {
-        return (int) tasks.stream()
-                .filter(x -> x.getTaskType() == type)
-                .count();
+    public synchronized int getNumberOfMatchingTasks(Task.TaskType type) {
+        int[] typeCounts = counts[type.ordinal()];
+        return typeCounts[0] + typeCounts[1];
+    }
+
+    /**
+     * Represents the number of task is the task list that corresponds to the given Task Type and status.
+     * @param type Task type.
+     * @param isCompleted Whether the tasks are completed.
+     * @return Number of tasks.
+     */
+    public synchronized int getNumberOfMatchingTasks(Task.TaskType type, boolean isCompleted) {
+        return counts[type.ordinal()][isCompleted ? 1 : 0];
+    }
+
+    /**
+     * Checks the counters against a full scan of the list. This is meant for tests, since it takes time
+     * linear in the number of tasks.
+     * @return Whether every counter is right.
+     */
+    public synchronized boolean checkIfCountsConsistent() {
+        int[][] scanned = new int[counts.length][2];
+        for (Task task : tasks) {
+            scanned[task.getTaskType().ordinal()][task.checkIfCompleted() ? 1 : 0]++;
+        }
+        return Arrays.deepEquals(scanned, counts);
+    }
+
+    /**
+     * Finds the indexes of the completed tasks.
+     * @return Indexes in increasing order.
+     */
+    public synchronized int[] findCompletedLocations() {
+        int completed = 0;
+        for (int[] typeCounts : counts) {
+            completed += typeCounts[1];
+        }
+        int[] locations = new int[completed];
+        if (completed == 0) {
+            return locations;
+        }
+        int count = 0;
+        int location = 0;
+        for (Task task : tasks) {
+            if (task.checkIfCompleted()) {
+                locations[count++] = location;
+            }
+            location++;
+        }
+        return locations;
     }
 
     /**
@@ -169,10 +927,16 @@ public class TaskManager {
      * @param location Index where the task is located.
      * @return Task.
      */
-    public Task markTaskAsCompleted(int location) {
+    public synchronized Task markTaskAsCompleted(int location) {
         assert location >= 0 : "the task number should not be negative";
         Task task = tasks.get(location);
-        task.markComplete();
+        beginHistoryStep();
+        if (!task.checkIfCompleted()) {
+            task = setStatus(location, task, true);
+        } else {
+            changes.recordModify(location, task);
+        }
+        version++;
         return task;
     }
 
@@ -181,10 +945,256 @@ public class TaskManager {
      * @param location Index where the task is located.
      * @return Task.
      */
-    public Task markTaskAsIncomplete(int location) {
+    public synchronized Task markTaskAsIncomplete(int location) {
         assert location >= 0 : "the task number should not be negative";
         Task task = tasks.get(location);
-        task.markIncomplete();
+        beginHistoryStep();
+        if (task.checkIfCompleted()) {
+            task = setStatus(location, task, false);
+        } else {
+            changes.recordModify(location, task);
+        }
+        version++;
         return task;
     }
+
+    /**
+     * Marks several tasks as completed or incomplete as one batch. Tasks already in that state are left
+     * alone, and neighbouring tasks that change are saved as a single range.
+     * @param locations Indexes where the tasks are located, in increasing order without repeats.
+     * @param isCompleted Whether the tasks are to be completed.
+     * @return Number of tasks whose status changed.
+     */
+    public synchronized int markTasks(int[] locations, boolean isCompleted) {
+        assert locations.length == 0 || locations[0] >= 0 : "the task numbers should not be negative";
+        int changed = 0;
+        beginHistoryStep();
+        for (int location : locations) {
+            Task task = tasks.get(location);
+            if (task.checkIfCompleted() == isCompleted) {
+                continue;
+            }
+            setStatus(location, task, isCompleted);
+            changed++;
+        }
+        version++;
+        return changed;
+    }
+
+    /**
+     * Undoes the latest command that changed the tasks and has not been undone. The list goes back to its
+     * snapshot from before the command in O(1); only the indexes, counters and changes to be saved are
+     * brought along task by task.
+     * @return Number of tasks the command changed, or 0 if there is nothing to undo.
+     */
+    public synchronized int undo() {
+        endHistoryStep();
+        History.Step step = history.takeUndo();
+        if (step == null) {
+            return 0;
+        }
+        int size = tasks.size();
+        ((TaskList) tasks).restore(step.getBefore());
+        List<History.Edit> edits = step.getEdits();
+        for (int i = edits.size() - 1; i >= 0; i--) {
+            History.Edit edit = edits.get(i);
+            Task task = edit.getTask();
+            switch (edit.getKind()) {
+            case ADD:
+                size--;
+                changes.recordRemove(edit.getLocation());
+                removeFromIndexes(task);
+                count(task, -1);
+                break;
+            case REMOVE:
+                recordInsertion(edit.getLocation(), task, size++);
+                addToIndexes(task);
+                count(task, 1);
+                break;
+            case MARK:
+                replaceTask(edit.getLocation(), task, edit.getPrevious());
+                break;
+            default:
+                throw new IllegalStateException("unknown edit " + edit.getKind());
+            }
+        }
+        version++;
+        return edits.size();
+    }
+
+    /**
+     * Redoes the latest command that was undone. The list goes forward to its snapshot from after the
+     * command in O(1).
+     * @return Number of tasks the command changed, or 0 if there is nothing to redo.
+     */
+    public synchronized int redo() {
+        endHistoryStep();
+        History.Step step = history.takeRedo();
+        if (step == null) {
+            return 0;
+        }
+        int size = tasks.size();
+        ((TaskList) tasks).restore(step.getAfter());
+        for (History.Edit edit : step.getEdits()) {
+            Task task = edit.getTask();
+            switch (edit.getKind()) {
+            case ADD:
+                recordInsertion(edit.getLocation(), task, size++);
+                addToIndexes(task);
+                count(task, 1);
+                break;
+            case REMOVE:
+                size--;
+                changes.recordRemove(edit.getLocation());
+                removeFromIndexes(task);
+                count(task, -1);
+                break;
+            case MARK:
+                replaceTask(edit.getLocation(), edit.getPrevious(), task);
+                break;
+            default:
+                throw new IllegalStateException("unknown edit " + edit.getKind());
+            }
+        }
+        version++;
+        return step.getEdits().size();
+    }
+
+    /**
+     * Sets the largest number of commands that can be undone, forgetting the oldest ones beyond it.
+     * @param depth Number of commands, or 0 to turn undo off.
+     */
+    public synchronized void setHistoryDepth(int depth) {
+        assert depth >= 0 : "the history depth should not be negative";
+        if (!isColumnar) {
+            history.setDepth(depth);
+        }
+    }
+
+    /**
+     * Forgets every command that could be undone or redone, such as after loading the tasks.
+     */
+    public synchronized void clearHistory() {
+        history.clear();
+    }
+
+    /**
+     * Gets the number of commands that can be undone.
+     * @return Number of commands.
+     */
+    public synchronized int getUndoCount() {
+        return history.getUndoCount();
+    }
+
+    /**
+     * Gets the number of commands that can be redone.
+     * @return Number of commands.
+     */
+    public synchronized int getRedoCount() {
+        return history.getRedoCount();
+    }
+
+    /**
+     * Starts a step of history before the first change made since changes were last taken.
+     */
+    private void beginHistoryStep() {
+        if (!isColumnar) {
+            history.begin((TaskList) tasks);
+        }
+    }
+
+    /**
+     * Closes the step of history holding the changes made since changes were last taken.
+     */
+    private void endHistoryStep() {
+        if (!isColumnar) {
+            history.end((TaskList) tasks);
+        }
+    }
+
+    /**
+     * Records a task put back into the list as a change to be saved: as added if it went at the end, or else
+     * as inserted.
+     * @param location Index of the task.
+     * @param task Task.
+     * @param size Number of tasks before it was put back.
+     */
+    private void recordInsertion(int location, Task task, int size) {
+        if (location == size) {
+            changes.recordAdd(location, task);
+        } else {
+            changes.recordInsert(location, task);
+        }
+    }
+
+    /**
+     * Puts a copy of a task with another status in its place, so that snapshots holding the task keep its
+     * old status, and records the mark for undo.
+     * @param location Index of the task.
+     * @param task Task in the list.
+     * @param isCompleted Whether the task is to be completed.
+     * @return Copy of the task that took its place.
+     */
+    private Task setStatus(int location, Task task, boolean isCompleted) {
+        Task marked = task.withStatus(isCompleted);
+        tasks.set(location, marked);
+        replaceTask(location, task, marked);
+        history.recordMark(location, task, marked);
+        return marked;
+    }
+
+    /**
+     * Brings the indexes, counters and changes to be saved from a task to the one that took its place in
+     * the list, with the same order key but another status.
+     * @param location Index of the task.
+     * @param task Task that was in the list.
+     * @param replacement Task now in the list.
+     */
+    private void replaceTask(int location, Task task, Task replacement) {
+        count(task, -1);
+        count(replacement, 1);
+        if (!isColumnar) {
+            trigramIndex.replace(replacement);
+            tokenIndex.replace(replacement);
+            if (replacement.getTaskType() == Task.TaskType.DEADLINE) {
+                deadlineIndex.replace(replacement);
+            } else if (replacement.getTaskType() == Task.TaskType.EVENT) {
+                eventIndex.replace(replacement);
+            }
+        }
+        changes.recordModify(location, replacement);
+    }
+
+    /**
+     * Represents a task held by the heap of the earliest tasks, with its place in the list to break ties.
+     */
+    private static class Candidate {
+
+        /**
+         * Represents the order of candidates by date, and then list order.
+         */
+        private static final Comparator<Candidate> ORDER = Comparator
+                .comparing((Candidate x) -> x.task.getDate())
+                .thenComparingInt(x -> x.position);
+
+        /**
+         * Represents the task.
+         */
+        private final Task task;
+
+        /**
+         * Represents the index of the task in the list.
+         */
+        private final int position;
+
+        /**
+         * Creates a candidate.
+         * @param task Task.
+         * @param position Index of the task in the list.
+         */
+        private Candidate(Task task, int position) {
+            this.task = task;
+            this.position = position;
+        }
+    }
 }
@@ -0,0 +1,177 @@
+package duke.task;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Represents an unchangeable snapshot of the tasks of a task manager, for threads other than the one
+ * running commands, such as the GUI or background workers. Reading a snapshot takes no lock, so it never
+ * holds up changes to the task manager, and later changes do not show in it.
+ *
+ * <p>The task manager never changes a task it has handed out: marking a task puts a copy with the new
+ * status in its place. A snapshot therefore keeps which tasks there are, their order and their status as
+ * they were when it was taken.
+ *
+ * <p>The counters of the task manager are copied into the snapshot, so counts take O(1). The indexes are
+ * not copied: while the task manager is still at the snapshot's version, finds and reminders briefly take
+ * its lock to read its indexes, which hold exactly the snapshot's tasks. Once the task manager has moved
+ * on, they scan the snapshot without any lock instead.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class TaskSnapshot {
+
+    /**
+     * Represents the tasks, in list order.
+     */
+    private final List<Task> tasks;
+
+    /**
+     * Represents the version of the task manager the snapshot was taken at.
+     */
+    private final long version;
+
+    /**
+     * Represents the number of tasks of each type, by completion status: pending first, then completed.
+     */
+    private final int[][] counts;
+
+    /**
+     * Represents the task manager the snapshot was taken from, whose indexes answer while it is unchanged.
+     */
+    private final TaskManager owner;
+
+    /**
+     * Creates a snapshot.
+     * @param tasks Unchangeable tasks, in list order.
+     * @param version Version of the task manager.
+     * @param counts Copy of the counters of the task manager.
+     * @param owner Task manager the snapshot was taken from.
+     */
+    TaskSnapshot(List<Task> tasks, long version, int[][] counts, TaskManager owner) {
+        this.tasks = tasks;
+        this.version = version;
+        this.counts = counts;
+        this.owner = owner;
+    }
+
+    /**
+     * Gets the tasks, in list order.
+     * @return Unchangeable list of tasks.
+     */
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Gets the version of the task manager the snapshot was taken at. Every change to the task manager
+     * makes a new version.
+     * @return Version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Represents the number of task is the snapshot.
+     * @return Number of tasks.
+     */
+    public int getNumberOfTasks() {
+        return tasks.size();
+    }
+
+    /**
+     * Represents the number of task is the snapshot that corresponds to the given Task Type.
+     * @param type Task type.
+     * @return Number of tasks.
+     */
+    public int getNumberOfMatchingTasks(Task.TaskType type) {
+        int[] typeCounts = counts[type.ordinal()];
+        return typeCounts[0] + typeCounts[1];
+    }
+
+    /**
+     * Crafts a list of tasks.
+     * @return String formatting of tasks in the snapshot.
+     */
+    public String craftTaskString() {
+        return TaskManager.convertListToFormattedString(tasks);
+    }
+
+    /**
+     * Writes a page of the list of tasks, numbered by their places in the whole list, one task at a time.
+     * @param out Destination of the formatting.
+     * @param offset Number of tasks to skip.
+     * @param limit Largest number of tasks to write.
+     * @throws IOException If the destination cannot be written to.
+     */
+    public void appendTaskString(Appendable out, int offset, int limit) throws IOException {
+        assert offset >= 0 && limit >= 0 : "the page should not have a negative offset or limit";
+        int count = (int) Math.max(0, Math.min(tasks.size(), (long) offset + limit) - offset);
+        int start = Math.min(offset, tasks.size());
+        Iterator<Task> iterator = tasks instanceof TaskList
+                ? ((TaskList) tasks).iterator(start)
+                : tasks.listIterator(start);
+        TaskManager.appendFormattedList(out, iterator, count, offset + 1);
+    }
+
+    /**
+     * Finds tasks that contain a certain string.
+     * @param s String.
+     * @return String formatting of the matching tasks.
+     */
+    public String findAndCraftTaskList(String s) {
+        return TaskManager.convertListToFormattedString(findTasks(s));
+    }
+
+    /**
+     * Finds tasks that contain a certain string, through the trigram index of the task manager if it is
+     * unchanged, or else by scanning the snapshot, in parallel if it is large.
+     * @param s String.
+     * @return List of matching tasks, in list order.
+     */
+    public List<Task> findTasks(String s) {
+        List<Task> found = owner.findTasksAt(version, s);
+        if (found != null) {
+            return found;
+        }
+        return TaskManager.streamOf(tasks)
+                .filter(x -> x.containString(s))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Crafts a Reminders List of the uncompleted deadlines, earliest first.
+     * @return String representing the message.
+     */
+    public String craftRemindersString() {
+        return TaskManager.convertListToFormattedString(findReminders(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Crafts a Reminders List of the most urgent uncompleted deadlines.
+     * @param limit Largest number of deadlines to show.
+     * @return String representing the message.
+     */
+    public String craftRemindersString(int limit) {
+        return TaskManager.convertListToFormattedString(findReminders(limit));
+    }
+
+    /**
+     * Finds the most urgent uncompleted deadlines, earliest first, through the date index of the task
+     * manager if it is unchanged, or else with a heap bounded to the number asked for.
+     * @param limit Largest number of deadlines to find.
+     * @return List of deadlines, in date order and then list order.
+     */
+    public List<Task> findReminders(int limit) {
+        List<Task> found = owner.findRemindersAt(version, limit);
+        if (found != null) {
+            return found;
+        }
+        return TaskManager.selectEarliest(tasks,
+                x -> x.getTaskType() == Task.TaskType.DEADLINE && !x.checkIfCompleted(), limit);
+    }
+}
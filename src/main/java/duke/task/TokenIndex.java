@@ -0,0 +1,292 @@
+package duke.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents an index from every word in the descriptions of tasks to the tasks containing it, with the
+ * words also kept in a BK-tree so that the words within an edit distance of a misspelled one can be found
+ * without comparing it to the whole dictionary.
+ *
+ * <p>Every child of a node in the tree sits at a known edit distance from the node's word. By the triangle
+ * inequality, a word within distance k of the query can only be under the children whose distance differs
+ * from the query's distance to the node by at most k, so most of the tree is never visited. Words no task
+ * contains any more stay in the tree and are skipped, until there are as many of them as live words and the
+ * tree is rebuilt.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+class TokenIndex {
+
+    /**
+     * Represents the order of tasks in the task list.
+     */
+    private static final Comparator<Task> LIST_ORDER = Comparator.comparingLong(Task::getOrderKey);
+
+    /**
+     * Represents the estimated size in bytes of a word with its map entry, list header and tree node.
+     */
+    private static final int ENTRY_OVERHEAD = 200;
+
+    /**
+     * Represents the estimated size in bytes of a reference in a posting list.
+     */
+    private static final int REFERENCE_SIZE = 4;
+
+    /**
+     * Represents the number of words no task contains from which the tree may be rebuilt.
+     */
+    private static final int MIN_DEAD_WORDS = 64;
+
+    /**
+     * Represents the tasks holding each word, in list order.
+     */
+    private final Map<String, List<Task>> postings;
+
+    /**
+     * Represents the root of the tree of words, or null if there is none.
+     */
+    private Node root;
+
+    /**
+     * Represents the number of words in the tree that no task contains any more.
+     */
+    private int deadWords;
+
+    /**
+     * Represents the number of references held by all posting lists.
+     */
+    private long postingCount;
+
+    /**
+     * Creates an empty index.
+     */
+    TokenIndex() {
+        this.postings = new HashMap<>();
+    }
+
+    /**
+     * Adds a task to the posting list of each word of its description.
+     * @param task Task to be added.
+     */
+    void add(Task task) {
+        for (String word : wordsOf(task.getDescription())) {
+            List<Task> posting = postings.get(word);
+            if (posting == null) {
+                posting = new ArrayList<>(2);
+                postings.put(word, posting);
+                if (!insert(word)) {
+                    deadWords--;
+                }
+            }
+            if (posting.isEmpty() || posting.get(posting.size() - 1).getOrderKey() < task.getOrderKey()) {
+                posting.add(task);
+            } else {
+                int position = Collections.binarySearch(posting, task, LIST_ORDER);
+                posting.add(position < 0 ? -position - 1 : position, task);
+            }
+            postingCount++;
+        }
+    }
+
+    /**
+     * Removes a task from the posting list of each word of its description.
+     * @param task Task to be removed.
+     */
+    void remove(Task task) {
+        for (String word : wordsOf(task.getDescription())) {
+            List<Task> posting = postings.get(word);
+            if (posting == null) {
+                continue;
+            }
+            int position = Collections.binarySearch(posting, task, LIST_ORDER);
+            if (position >= 0) {
+                posting.remove(position);
+                postingCount--;
+            }
+            if (posting.isEmpty()) {
+                postings.remove(word);
+                deadWords++;
+            }
+        }
+        if (deadWords >= MIN_DEAD_WORDS && deadWords > postings.size()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Puts a task in place of the one with the same order key in the posting list of each of its words,
+     * such as a copy of it that was marked.
+     * @param task Task to be put in place.
+     */
+    void replace(Task task) {
+        for (String word : wordsOf(task.getDescription())) {
+            List<Task> posting = postings.get(word);
+            int position = posting == null ? -1 : Collections.binarySearch(posting, task, LIST_ORDER);
+            if (position >= 0) {
+                posting.set(position, task);
+            }
+        }
+    }
+
+    /**
+     * Finds the words within an edit distance of a word, searching only the parts of the tree that can hold
+     * them.
+     * @param word Normalized word.
+     * @param maxDistance Largest edit distance.
+     * @return Distance of each word found.
+     */
+    Map<String, Integer> findWithin(String word, int maxDistance) {
+        Map<String, Integer> found = new HashMap<>();
+        List<Node> pending = new ArrayList<>();
+        if (root != null) {
+            pending.add(root);
+        }
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int distance = distance(word, node.word);
+            if (distance <= maxDistance && postings.containsKey(node.word)) {
+                found.put(node.word, distance);
+            }
+            for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+                if (Math.abs(child.getKey() - distance) <= maxDistance) {
+                    pending.add(child.getValue());
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the tasks containing a word.
+     * @param word Normalized word.
+     * @return Tasks in list order.
+     */
+    List<Task> getTasks(String word) {
+        return postings.getOrDefault(word, Collections.emptyList());
+    }
+
+    /**
+     * Estimates the memory held by the index, counting the words and the references in the posting lists
+     * but not the tasks themselves.
+     * @return Estimated size in bytes.
+     */
+    long estimateMemoryBytes() {
+        return (postings.size() + (long) deadWords) * ENTRY_OVERHEAD + postingCount * REFERENCE_SIZE;
+    }
+
+    /**
+     * Adds a word to the tree, under the child at its distance from each node on the way down.
+     * @param word Word.
+     * @return Whether the word was new to the tree, rather than one no task contained any more.
+     */
+    private boolean insert(String word) {
+        if (root == null) {
+            root = new Node(word);
+            return true;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(word, node.word);
+            if (distance == 0) {
+                return false;
+            }
+            Node child = node.children.get(distance);
+            if (child == null) {
+                node.children.put(distance, new Node(word));
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Rebuilds the tree from the words some task still contains.
+     */
+    private void rebuild() {
+        root = null;
+        deadWords = 0;
+        for (String word : postings.keySet()) {
+            insert(word);
+        }
+    }
+
+    /**
+     * Splits a string into its distinct lowercase words, made of letters and digits.
+     * @param s String.
+     * @return Words in the order they first appear.
+     */
+    static Set<String> wordsOf(String s) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean isWordChar = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                words.add(s.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Computes the Levenshtein distance between two words: the fewest characters inserted, removed or
+     * replaced to turn one into the other.
+     * @param first Word.
+     * @param second Other word.
+     * @return Edit distance.
+     */
+    static int distance(String first, String second) {
+        int[] previous = new int[second.length() + 1];
+        int[] current = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int replace = previous[j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(replace, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[second.length()];
+    }
+
+    /**
+     * Represents a word in the tree, with its children keyed by their edit distance from it.
+     */
+    private static class Node {
+
+        /**
+         * Represents the word.
+         */
+        private final String word;
+
+        /**
+         * Represents the children, keyed by their edit distance from the word.
+         */
+        private final Map<Integer, Node> children;
+
+        /**
+         * Creates a node without children.
+         * @param word Word.
+         */
+        private Node(String word) {
+            this.word = word;
+            this.children = new HashMap<>(2);
+        }
+    }
+}
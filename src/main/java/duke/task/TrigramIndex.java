@@ -0,0 +1,268 @@
+package duke.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents an index from every run of three characters in the normalized descriptions and dates of
+ * tasks to the tasks containing it. Each posting list is kept in list order by the order keys of the tasks.
+ *
+ * <p>A task contains a query of at least three characters only if it contains every trigram of the
+ * query, so intersecting their posting lists gives a superset of the matches. The task manager then checks
+ * the candidates with {@link Task#containString(String)}, which keeps the results exactly those of a full
+ * scan.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+class TrigramIndex {
+
+    /**
+     * Represents the number of characters in a gram. Shorter queries cannot be looked up.
+     */
+    static final int GRAM_LENGTH = 3;
+
+    /**
+     * Represents the order of tasks in the task list.
+     */
+    private static final Comparator<Task> LIST_ORDER = Comparator.comparingLong(Task::getOrderKey);
+
+    /**
+     * Represents the estimated size in bytes of a map entry with its boxed key and list header.
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * Represents the estimated size in bytes of a reference in a posting list.
+     */
+    private static final int REFERENCE_SIZE = 4;
+
+    /**
+     * Represents the number of candidates below which checking them is cheaper than intersecting further.
+     */
+    private static final int FEW_CANDIDATES = 64;
+
+    /**
+     * Represents how many times longer a posting list must be than the candidates to be binary searched.
+     */
+    private static final int SEARCH_RATIO = 16;
+
+    /**
+     * Represents the tasks holding each trigram, in list order.
+     */
+    private final Map<Long, List<Task>> postings;
+
+    /**
+     * Represents the number of references held by all posting lists.
+     */
+    private long postingCount;
+
+    /**
+     * Creates an empty index.
+     */
+    TrigramIndex() {
+        this.postings = new HashMap<>();
+    }
+
+    /**
+     * Adds a task to the posting list of each of its trigrams.
+     * @param task Task to be added.
+     */
+    void add(Task task) {
+        for (long gram : gramsOf(task)) {
+            List<Task> posting = postings.computeIfAbsent(gram, key -> new ArrayList<>(2));
+            if (posting.isEmpty() || posting.get(posting.size() - 1).getOrderKey() < task.getOrderKey()) {
+                posting.add(task);
+            } else {
+                int position = Collections.binarySearch(posting, task, LIST_ORDER);
+                posting.add(position < 0 ? -position - 1 : position, task);
+            }
+            postingCount++;
+        }
+    }
+
+    /**
+     * Removes a task from the posting list of each of its trigrams.
+     * @param task Task to be removed.
+     */
+    void remove(Task task) {
+        for (long gram : gramsOf(task)) {
+            List<Task> posting = postings.get(gram);
+            if (posting == null) {
+                continue;
+            }
+            int position = Collections.binarySearch(posting, task, LIST_ORDER);
+            if (position >= 0) {
+                posting.remove(position);
+                postingCount--;
+            }
+            if (posting.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Puts a task in place of the one with the same order key in the posting list of each of its trigrams,
+     * such as a copy of it that was marked.
+     * @param task Task to be put in place.
+     */
+    void replace(Task task) {
+        for (long gram : gramsOf(task)) {
+            List<Task> posting = postings.get(gram);
+            int position = posting == null ? -1 : Collections.binarySearch(posting, task, LIST_ORDER);
+            if (position >= 0) {
+                posting.set(position, task);
+            }
+        }
+    }
+
+    /**
+     * Finds the candidates for tasks that contain the given string, in list order, by intersecting the
+     * posting lists of its trigrams from the shortest up until few candidates are left.
+     * @param query String of at least three characters.
+     * @return Tasks holding every trigram of the query, to be checked with {@link Task#containString(String)}.
+     */
+    List<Task> findCandidates(String query) {
+        assert query.length() >= GRAM_LENGTH : "the query should be long enough to have a trigram";
+        List<List<Task>> lists = new ArrayList<>();
+        for (long gram : gramsOf(query)) {
+            List<Task> posting = postings.get(gram);
+            if (posting == null) {
+                return new ArrayList<>();
+            }
+            lists.add(posting);
+        }
+        lists.sort((first, second) -> Integer.compare(first.size(), second.size()));
+        List<Task> candidates = lists.get(0);
+        for (int i = 1; i < lists.size() && candidates.size() > FEW_CANDIDATES; i++) {
+            candidates = intersect(candidates, lists.get(i));
+        }
+        return candidates;
+    }
+
+    /**
+     * Estimates the number of candidates for a string without intersecting anything, as the length of
+     * the shortest posting list of its trigrams.
+     * @param query String of at least three characters.
+     * @return Largest possible number of candidates.
+     */
+    int estimateCandidates(String query) {
+        assert query.length() >= GRAM_LENGTH : "the query should be long enough to have a trigram";
+        int smallest = Integer.MAX_VALUE;
+        for (long gram : gramsOf(query)) {
+            List<Task> posting = postings.get(gram);
+            smallest = Math.min(smallest, posting == null ? 0 : posting.size());
+        }
+        return smallest;
+    }
+
+    /**
+     * Intersects candidates with a posting list. Lists of similar length are merged; a much longer list
+     * is binary searched for each candidate instead.
+     * @param candidates Candidates in list order.
+     * @param posting Posting list at least as long as the candidates.
+     * @return Candidates that are also in the posting list, in list order.
+     */
+    private static List<Task> intersect(List<Task> candidates, List<Task> posting) {
+        List<Task> kept = new ArrayList<>(candidates.size());
+        if (posting.size() / SEARCH_RATIO > candidates.size()) {
+            for (Task task : candidates) {
+                if (Collections.binarySearch(posting, task, LIST_ORDER) >= 0) {
+                    kept.add(task);
+                }
+            }
+            return kept;
+        }
+        int j = 0;
+        for (Task task : candidates) {
+            long key = task.getOrderKey();
+            while (j < posting.size() && posting.get(j).getOrderKey() < key) {
+                j++;
+            }
+            if (j == posting.size()) {
+                break;
+            } else if (posting.get(j) == task) {
+                kept.add(task);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Estimates the memory held by the index, counting the map entries and the references in the posting
+     * lists but not the tasks themselves.
+     * @return Estimated size in bytes.
+     */
+    long estimateMemoryBytes() {
+        return postings.size() * (long) ENTRY_OVERHEAD + postingCount * REFERENCE_SIZE;
+    }
+
+    /**
+     * Gets the distinct trigrams of a task's normalized description and date. No trigram spans the
+     * description and the date, since a task is matched against each of them separately.
+     * @param task Task.
+     * @return Trigrams, each packed into a long.
+     */
+    private static long[] gramsOf(Task task) {
+        long[] grams = gramsOf(task.getDescription());
+        if (task.getDate() != null) {
+            long[] dateGrams = gramsOf(task.getDate().toString());
+            long[] all = Arrays.copyOf(grams, grams.length + dateGrams.length);
+            System.arraycopy(dateGrams, 0, all, grams.length, dateGrams.length);
+            grams = distinct(all);
+        }
+        return grams;
+    }
+
+    /**
+     * Gets the distinct trigrams of a normalized string.
+     * @param s String.
+     * @return Trigrams, each packed into a long.
+     */
+    private static long[] gramsOf(String s) {
+        String normalized = normalize(s);
+        int count = Math.max(0, normalized.length() - GRAM_LENGTH + 1);
+        long[] grams = new long[count];
+        for (int i = 0; i < count; i++) {
+            grams[i] = (long) normalized.charAt(i) << 32 | (long) normalized.charAt(i + 1) << 16
+                    | normalized.charAt(i + 2);
+        }
+        return distinct(grams);
+    }
+
+    /**
+     * Sorts trigrams and drops repeated ones.
+     * @param grams Trigrams.
+     * @return Distinct trigrams in ascending order.
+     */
+    private static long[] distinct(long[] grams) {
+        Arrays.sort(grams);
+        int size = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (size == 0 || grams[size - 1] != grams[i]) {
+                grams[size++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, size);
+    }
+
+    /**
+     * Lowercases a string one character at a time, so that every substring of the original string
+     * stays a substring of the normalized one.
+     * @param s String.
+     * @return Normalized string.
+     */
+    private static String normalize(String s) {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+}
@@ -1,9 +1,12 @@
 package duke.ui;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 import duke.command.Command;
 import duke.task.Task;
+import duke.task.TaskManager;
+import duke.task.TaskSnapshot;
 
 /**
  * Represents a User interface class.
@@ -52,6 +55,19 @@ public class Ui {
                 + "     What can I do for you?");
     }
 
+    /**
+     * Gets interface's greeting message, warning about saved tasks that could not be read.
+     * @param skippedCount Number of saved lines or records skipped when loading.
+     * @return Greeting message.
+     */
+    public String getWelcomeMessage(int skippedCount) {
+        if (skippedCount == 0) {
+            return getWelcomeMessage();
+        }
+        return getWelcomeMessage() + "\n" + INDENTATION + "(" + skippedCount
+                + " saved task(s) could not be read and were skipped)";
+    }
+
     /**
      * Gets interface's bye message.
      */
@@ -82,6 +98,46 @@ public class Ui {
         System.out.println(formatMessage(s));
     }
 
+    /**
+     * Writes the message for a page of the task list, streaming the tasks rather than building the whole
+     * message first.
+     * @param out Destination of the message.
+     * @param tasks List of tasks.
+     * @param offset Number of tasks to skip.
+     * @param limit Largest number of tasks to show.
+     * @throws IOException If the destination cannot be written to.
+     */
+    public void appendListMessage(Appendable out, TaskManager tasks, int offset, int limit) throws IOException {
+        if (tasks.getNumberOfTasks() == 0) {
+            out.append(formatMessage("There are currently no tasks in your list"));
+        } else if (offset >= tasks.getNumberOfTasks() || limit == 0) {
+            out.append(formatMessage("There are no tasks in that part of your list"));
+        } else {
+            out.append(formatMessage("Here are the task(s) in your list:\n")).append(INDENTATION);
+            tasks.appendTaskString(out, offset, limit);
+        }
+    }
+
+    /**
+     * Writes the message for a page of a snapshot of the task list, streaming the tasks rather than
+     * building the whole message first.
+     * @param out Destination of the message.
+     * @param tasks Snapshot of the tasks.
+     * @param offset Number of tasks to skip.
+     * @param limit Largest number of tasks to show.
+     * @throws IOException If the destination cannot be written to.
+     */
+    public void appendListMessage(Appendable out, TaskSnapshot tasks, int offset, int limit) throws IOException {
+        if (tasks.getNumberOfTasks() == 0) {
+            out.append(formatMessage("There are currently no tasks in your list"));
+        } else if (offset >= tasks.getNumberOfTasks() || limit == 0) {
+            out.append(formatMessage("There are no tasks in that part of your list"));
+        } else {
+            out.append(formatMessage("Here are the task(s) in your list:\n")).append(INDENTATION);
+            tasks.appendTaskString(out, offset, limit);
+        }
+    }
+
     /**
      * Sends a message to user.
      * @param keyword Type of command.
@@ -111,15 +167,11 @@ public class Ui {
                     + INDENTATION + "Now you have " + numOfTasks
                     + (numOfTasks < 2 ? " task" : " tasks") + " in the list.");
         }
-        case LIST: {
-            String msg;
-            if (message.equals("")) {
-                msg = formatMessage("There are currently no tasks in your list");
-            } else {
-                msg = formatMessage("Here are the task(s) in your list:\n"
-                        + INDENTATION + message);
-            }
-            return msg;
+        case DELETE_MANY: {
+            return formatMessage("Noted. I've removed " + message
+                    + (message.equals("1") ? " task.\n" : " tasks.\n")
+                    + INDENTATION + "Now you have " + numOfTasks
+                    + (numOfTasks < 2 ? " task" : " tasks") + " in the list.");
         }
         case MARK: {
             return formatMessage("Nice! I've marked this task as done:\n"
@@ -129,6 +181,14 @@ public class Ui {
             return formatMessage("OK, I've marked this task as not done yet:\n"
                     + INDENTATION + EXTRA_INDENTATION + task);
         }
+        case MARK_MANY: {
+            return formatMessage("Nice! I've marked " + numOfTasks
+                    + (numOfTasks == 1 ? " task" : " tasks") + " as done.");
+        }
+        case UNMARK_MANY: {
+            return formatMessage("OK, I've marked " + numOfTasks
+                    + (numOfTasks == 1 ? " task" : " tasks") + " as not done yet.");
+        }
         case FIND: {
             String msg;
             if (message.equals("")) {
@@ -139,6 +199,50 @@ public class Ui {
             }
             return msg;
         }
+        case QUERY: {
+            String msg;
+            if (message.equals("")) {
+                msg = formatMessage("Sorry, no tasks in your list match that query");
+            } else {
+                msg = formatMessage("Here are the tasks matching that query:\n"
+                        + INDENTATION + message);
+            }
+            return msg;
+        }
+        case QUERY_PLAN: {
+            return formatMessage("Here is the plan for that query:\n"
+                    + INDENTATION + message);
+        }
+        case FUZZY_FIND: {
+            String msg;
+            if (message.equals("")) {
+                msg = formatMessage("Sorry, there are no tasks close to that in your list");
+            } else {
+                msg = formatMessage("Here are the closest matching tasks in your list:\n"
+                        + INDENTATION + message);
+            }
+            return msg;
+        }
+        case DUE: {
+            String msg;
+            if (message.equals("")) {
+                msg = formatMessage("You have no deadlines due before then!");
+            } else {
+                msg = formatMessage("Here are the deadlines due before then:\n"
+                        + INDENTATION + message);
+            }
+            return msg;
+        }
+        case EVENTS: {
+            String msg;
+            if (message.equals("")) {
+                msg = formatMessage("You have no events in that period!");
+            } else {
+                msg = formatMessage("Here are the events in that period:\n"
+                        + INDENTATION + message);
+            }
+            return msg;
+        }
         case REMIND: {
             String msg;
             if (message.equals("")) {
@@ -149,6 +253,18 @@ public class Ui {
             }
             return msg;
         }
+        case UNDO: {
+            return formatMessage("Undone! The last change to " + numOfTasks
+                    + (numOfTasks == 1 ? " task" : " tasks") + " has been taken back.");
+        }
+        case REDO: {
+            return formatMessage("Redone! The change to " + numOfTasks
+                    + (numOfTasks == 1 ? " task" : " tasks") + " has been made again.");
+        }
+        case STATS: {
+            return formatMessage("Here are the statistics of your list:\n"
+                    + INDENTATION + message);
+        }
         default:
             return null;
         }
@@ -0,0 +1,65 @@
+package seedu.duke;
+
+import java.util.function.Supplier;
+
+import duke.task.TaskManager;
+
+/**
+ * Represents a benchmark of the heap used per task by the default task manager, with its tree and
+ * indexes, against one keeping its tasks as columns. Run it with the number of tasks as the only argument.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class ColumnarBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args Number of tasks, defaulting to two million.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        measure("objects", TaskManager::new, size);
+        measure("columns", TaskManager::ofColumnar, size);
+    }
+
+    /**
+     * Fills a task manager and reports the heap it holds per task, and how long a full scan takes.
+     * @param name Name of the backend.
+     * @param factory Creates an empty task manager.
+     * @param size Number of tasks.
+     */
+    private static void measure(String name, Supplier<TaskManager> factory, int size) {
+        long before = measureUsedMemory();
+        TaskManager tasks = factory.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            tasks.addTask(StorageBenchmark.createTask(i));
+        }
+        // The changes would have been taken by the storage, and hold on to every added task.
+        tasks.takeChanges();
+        long addNanos = System.nanoTime() - start;
+        long used = measureUsedMemory() - before;
+        start = System.nanoTime();
+        int found = tasks.findTasks("assignment 52").size();
+        long findNanos = System.nanoTime() - start;
+        System.out.printf("%-8s %,d tasks: %,d bytes in all, %.1f bytes per task, added in %d ms, "
+                + "find %d matches in %.1f ms%n", name, size, used, (double) used / size, addNanos / 1_000_000,
+                found, findNanos / 1e6);
+        if (tasks.getNumberOfTasks() != size) {
+            throw new IllegalStateException("the task manager lost tasks");
+        }
+    }
+
+    /**
+     * Measures the heap in use after collecting garbage.
+     * @return Bytes in use.
+     */
+    private static long measureUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,10 +1,32 @@
 package seedu.duke;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import duke.command.Command;
+import duke.exception.DukeException;
+import duke.task.ChangeSet;
+import duke.task.DescriptionPool;
+import duke.task.Query;
 import duke.task.Task;
+import duke.task.TaskList;
+import duke.task.TaskManager;
+import duke.task.TaskSnapshot;
+import duke.ui.Ui;
 
 
 /**
@@ -49,4 +71,634 @@ public class DukeTest {
         assertTrue(Task.of(Task.TaskType.TODO, "ACHIEVE SUCCESS").containString("SU"));
     }
 
+    /**
+     * Test to check if a task written to the file can be read back.
+     */
+    @Test
+    public void taskFromFileTest() {
+        String line = "D | 1 | return book | 2022-12-24";
+        assertEquals(Task.fromTextFileMessage(line).constructTextFileMessage(), line);
+        assertEquals(Task.fromTextFileMessage("T | 0 | a | b").toString(), "[T][ ] a | b");
+        assertNull(Task.fromTextFileMessage("D | 0 | return book | tomorrow"));
+        assertNull(Task.fromTextFileMessage("X | 0 | junk"));
+    }
+
+    /**
+     * Test to check if neighbouring changes to the task list are merged into ranges.
+     */
+    @Test
+    public void changeSetTest() {
+        TaskManager tasks = new TaskManager();
+        for (int i = 0; i < 5; i++) {
+            tasks.addTask(Task.of(Task.TaskType.TODO, "task " + i));
+        }
+        tasks.markTaskAsCompleted(4);
+        assertEquals(tasks.takeChanges().getChanges().size(), 1);
+        tasks.removeTask(1);
+        tasks.removeTask(1);
+        tasks.removeTask(0);
+        tasks.markTaskAsCompleted(0);
+        tasks.markTaskAsCompleted(1);
+        List<ChangeSet.Change> changes = tasks.takeChanges().getChanges();
+        assertEquals(changes.size(), 2);
+        assertEquals(changes.get(0).getKind(), ChangeSet.Kind.REMOVE);
+        assertEquals(changes.get(0).getStart(), 0);
+        assertEquals(changes.get(0).getEnd(), 3);
+        assertEquals(changes.get(1).getKind(), ChangeSet.Kind.MODIFY);
+        assertEquals(changes.get(1).getEnd() - changes.get(1).getStart(), 2);
+        assertTrue(tasks.takeChanges().checkIfEmpty());
+    }
+
+    /**
+     * Test to check if find through the trigram index returns what a full scan returns.
+     */
+    @Test
+    public void findIndexTest() {
+        TaskManager tasks = new TaskManager();
+        tasks.addTask(Task.of(Task.TaskType.TODO, "ACHIEVE SUCCESS"));
+        tasks.addTask(Task.of(Task.TaskType.DEADLINE, "return book /by 2022-12-24"));
+        tasks.addTask(Task.of(Task.TaskType.EVENT, "book club meeting /at 2022-11-02"));
+        tasks.addTask(Task.of(Task.TaskType.TODO, "read bookshelf  manual"));
+        tasks.addTask(Task.of(Task.TaskType.TODO, "Book flights"));
+        tasks.removeTask(0);
+        tasks.addTask(Task.of(Task.TaskType.TODO, "success story"));
+        String[] queries = {"book", "Book", "ook", "2022-1", "12-24", "book club", "bookshelf  man", "ss", "zzz",
+            "SU", "  ", "book 2022", "20", "ook c", "K FL", "ss s"};
+        for (String query : queries) {
+            List<Task> expected = new ArrayList<>();
+            for (Task task : tasks.getTaskListCopy()) {
+                if (task.containString(query)) {
+                    expected.add(task);
+                }
+            }
+            assertEquals(tasks.findTasks(query), expected, query);
+        }
+        assertEquals(tasks.findTasks("book").size(), 3);
+    }
+
+    /**
+     * Test to check if the date indexes answer range queries in date order and follow removals.
+     */
+    @Test
+    public void dateIndexTest() {
+        TaskManager tasks = new TaskManager();
+        tasks.addTask(Task.of(Task.TaskType.DEADLINE, "essay /by 2022-12-24"));
+        tasks.addTask(Task.of(Task.TaskType.EVENT, "party /at 2022-11-02"));
+        tasks.addTask(Task.of(Task.TaskType.DEADLINE, "taxes /by 2022-10-01"));
+        tasks.addTask(Task.of(Task.TaskType.TODO, "read"));
+        tasks.addTask(Task.of(Task.TaskType.DEADLINE, "report /by 2022-12-24"));
+        tasks.addTask(Task.of(Task.TaskType.EVENT, "concert /at 2022-12-31"));
+        tasks.markTaskAsCompleted(2);
+        List<Task> due = tasks.findDeadlinesBefore(LocalDate.parse("2022-12-31"));
+        assertEquals(due.size(), 3);
+        assertEquals(due.get(0).getDescription(), "taxes");
+        assertEquals(due.get(1).getDescription(), "essay");
+        assertEquals(due.get(2).getDescription(), "report");
+        assertTrue(tasks.findDeadlinesBefore(LocalDate.parse("2022-10-01")).isEmpty());
+        List<Task> events = tasks.findEventsBetween(LocalDate.parse("2022-11-02"), LocalDate.parse("2022-12-31"));
+        assertEquals(events.size(), 2);
+        assertTrue(tasks.findEventsBetween(LocalDate.parse("2022-12-31"), LocalDate.parse("2022-11-02")).isEmpty());
+        assertEquals(tasks.craftRemindersString(), "1.[D][ ] essay (by: 2022-12-24)\n"
+                + "     2.[D][ ] report (by: 2022-12-24)");
+        tasks.removeTask(0);
+        assertEquals(tasks.findDeadlinesBefore(LocalDate.parse("2023-01-01")).size(), 2);
+        assertEquals(tasks.getNumberOfMatchingTasks(Task.TaskType.DEADLINE), 2);
+        assertEquals(tasks.getNumberOfMatchingTasks(Task.TaskType.TODO), 1);
+    }
+
+    /**
+     * Test to check if the counters per type and status agree with a full scan through every kind of change.
+     */
+    @Test
+    public void countersTest() {
+        TaskManager tasks = new TaskManager();
+        tasks.addTask(Task.of(Task.TaskType.TODO, "read"));
+        tasks.addTask(Task.of(Task.TaskType.DEADLINE, "essay /by 2022-12-24"));
+        tasks.addTask(Task.of(Task.TaskType.EVENT, "party /at 2022-11-02"));
+        tasks.addTask(Task.of(Task.TaskType.DEADLINE, "taxes /by 2022-10-01"));
+        tasks.markTaskAsCompleted(1);
+        tasks.markTaskAsCompleted(1);
+        tasks.markTaskAsIncomplete(0);
+        assertTrue(tasks.checkIfCountsConsistent());
+        assertEquals(tasks.getNumberOfMatchingTasks(Task.TaskType.DEADLINE), 2);
+        assertEquals(tasks.getNumberOfMatchingTasks(Task.TaskType.DEADLINE, true), 1);
+        tasks.removeTask(1);
+        List<Task> replacement = new ArrayList<>();
+        replacement.add(Task.fromTextFileMessage("E | 1 | gig | 2022-12-01"));
+        tasks.replaceTasks(0, 1, replacement);
+        assertTrue(tasks.checkIfCountsConsistent());
+        assertEquals(tasks.getNumberOfMatchingTasks(Task.TaskType.TODO), 0);
+        assertEquals(tasks.getNumberOfMatchingTasks(Task.TaskType.EVENT, true), 1);
+        assertTrue(tasks.craftStatsString().startsWith("Todos: 0 (0 done, 0 pending)\n"
+                + "     Deadlines: 1 (0 done, 1 pending)\n"
+                + "     Events: 2 (1 done, 1 pending)\n"
+                + "     Total: 3 (1 done, 2 pending)\n"
+                + "     Shared descriptions: "));
+    }
+
+    /**
+     * Test to check if pages of the list are numbered by their places in the whole list.
+     */
+    @Test
+    public void listPageTest() throws Exception {
+        TaskManager tasks = new TaskManager();
+        tasks.addTask(Task.of(Task.TaskType.TODO, "read"));
+        tasks.addTask(Task.of(Task.TaskType.DEADLINE, "essay /by 2022-12-24"));
+        tasks.addTask(Task.of(Task.TaskType.TODO, "run"));
+        assertEquals(tasks.craftTaskString(), "1.[T][ ] read\n     2.[D][ ] essay (by: 2022-12-24)\n     3.[T][ ] run");
+        assertEquals(tasks.craftTaskString(1, 1), "2.[D][ ] essay (by: 2022-12-24)");
+        assertEquals(tasks.craftTaskString(2, Integer.MAX_VALUE), "3.[T][ ] run");
+        assertEquals(tasks.craftTaskString(3, 5), "");
+        StringBuilder out = new StringBuilder();
+        tasks.appendTaskString(out, 0, 3);
+        assertEquals(out.toString(), tasks.craftTaskString());
+    }
+
+    /**
+     * Test to check if the tree-backed task list behaves like an array list under random edits.
+     */
+    @Test
+    public void taskListTest() {
+        List<Task> expected = new ArrayList<>();
+        TaskList actual = new TaskList();
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            int choice = random.nextInt(4);
+            if (choice < 2 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                Task task = Task.of(Task.TaskType.TODO, "task " + i);
+                expected.add(index, task);
+                actual.add(index, task);
+            } else if (choice == 2) {
+                int index = random.nextInt(expected.size());
+                assertTrue(actual.remove(index) == expected.remove(index));
+            } else {
+                int index = random.nextInt(expected.size());
+                assertTrue(actual.get(index) == expected.get(index));
+            }
+        }
+        assertEquals(actual, expected);
+        int from = expected.size() / 3;
+        List<Task> rest = new ArrayList<>();
+        actual.iterator(from).forEachRemaining(rest::add);
+        assertEquals(rest, expected.subList(from, expected.size()));
+        actual.subList(1, 5).clear();
+        expected.subList(1, 5).clear();
+        assertEquals(actual, expected);
+        TaskList snapshot = actual.snapshot();
+        List<Task> before = new ArrayList<>(expected);
+        for (int i = 0; i < 200; i++) {
+            actual.remove(random.nextInt(actual.size()));
+            actual.add(random.nextInt(actual.size() + 1), Task.of(Task.TaskType.TODO, "later " + i));
+            actual.set(random.nextInt(actual.size()), Task.of(Task.TaskType.TODO, "set " + i));
+        }
+        assertEquals(snapshot, before);
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.remove(0));
+    }
+
+    /**
+     * Test to check if a task manager keeping its tasks as columns answers like the default one.
+     */
+    @Test
+    public void columnarTest() {
+        TaskManager[] managers = {new TaskManager(), TaskManager.ofColumnar()};
+        for (TaskManager tasks : managers) {
+            tasks.addTask(Task.of(Task.TaskType.DEADLINE, "essay /by 2022-12-24"));
+            tasks.addTask(Task.of(Task.TaskType.EVENT, "party /at 2022-11-02"));
+            tasks.addTask(Task.of(Task.TaskType.TODO, "read a book"));
+            tasks.addTask(Task.of(Task.TaskType.DEADLINE, "taxes /by 2022-10-01"));
+            tasks.addTask(Task.of(Task.TaskType.EVENT, "book fair /at 2022-10-20"));
+            tasks.markTaskAsCompleted(3);
+            tasks.removeTask(0);
+            tasks.addTask(Task.of(Task.TaskType.DEADLINE, "report /by 2022-09-24"));
+            tasks.markTaskAsCompleted(1);
+            tasks.markTaskAsIncomplete(1);
+        }
+        TaskManager expected = managers[0];
+        TaskManager actual = managers[1];
+        assertEquals(actual.craftTaskString(), expected.craftTaskString());
+        assertEquals(actual.craftTaskString(1, 2), expected.craftTaskString(1, 2));
+        assertEquals(actual.craftTextMessageForFile(), expected.craftTextMessageForFile());
+        assertEquals(actual.findAndCraftTaskList("book"), expected.findAndCraftTaskList("book"));
+        assertEquals(actual.findAndCraftTaskList("a"), expected.findAndCraftTaskList("a"));
+        LocalDate date = LocalDate.parse("2022-12-01");
+        assertEquals(actual.findAndCraftDueBefore(date), expected.findAndCraftDueBefore(date));
+        LocalDate from = LocalDate.parse("2022-10-01");
+        assertEquals(actual.findAndCraftEventsBetween(from, date), expected.findAndCraftEventsBetween(from, date));
+        assertEquals(actual.craftRemindersString(), expected.craftRemindersString());
+        assertEquals(actual.craftStatsString(), expected.craftStatsString());
+        assertTrue(actual.checkIfCountsConsistent());
+    }
+
+    /**
+     * Test to check if tasks with equal descriptions share one string, and count the bytes saved until the
+     * stats are reset.
+     */
+    @Test
+    public void descriptionPoolTest() {
+        DescriptionPool.resetStats();
+        Task first = Task.of(Task.TaskType.TODO, new String("water the plants"));
+        Task second = Task.fromTextFileMessage("T | 0 | water the plants");
+        Task third = Task.of(Task.TaskType.DEADLINE, new String("water the plants"), LocalDate.parse("2022-12-24"));
+        assertTrue(first.getDescription() == second.getDescription());
+        assertTrue(first.getDescription() == third.getDescription());
+        assertEquals(DescriptionPool.getSharedCount(), 2L);
+        assertEquals(DescriptionPool.getBytesSaved(), 2L * 56);
+        DescriptionPool.setEnabled(false);
+        Task unshared;
+        try {
+            unshared = Task.of(Task.TaskType.TODO, new String("water the plants"));
+        } finally {
+            DescriptionPool.setEnabled(true);
+        }
+        assertTrue(unshared.getDescription() != first.getDescription());
+        assertEquals(DescriptionPool.getSharedCount(), 2L);
+        DescriptionPool.resetStats();
+        assertEquals(DescriptionPool.getBytesSaved(), 0L);
+    }
+
+    /**
+     * Stress test to check if snapshots stay whole and unchanged while many threads change the tasks.
+     */
+    @Test
+    public void concurrentSnapshotTest() throws Exception {
+        TaskManager tasks = new TaskManager();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        AtomicBoolean isWriting = new AtomicBoolean(true);
+        List<Future<Integer>> writers = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            int seed = w;
+            writers.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                int added = 0;
+                for (int i = 0; i < 3000; i++) {
+                    synchronized (tasks) {
+                        int size = tasks.getNumberOfTasks();
+                        if (size == 0 || random.nextInt(3) > 0) {
+                            tasks.addTask(Task.of(Task.TaskType.DEADLINE, "task " + seed + "-" + i,
+                                    LocalDate.of(2022, 1, 1).plusDays(random.nextInt(365))));
+                            added++;
+                        } else if (random.nextBoolean()) {
+                            tasks.removeTask(random.nextInt(size));
+                            added--;
+                        } else {
+                            tasks.markTaskAsCompleted(random.nextInt(size));
+                        }
+                    }
+                }
+                return added;
+            }));
+        }
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(pool.submit(() -> {
+                int checked = 0;
+                long lastVersion = -1;
+                while (isWriting.get() || checked == 0) {
+                    TaskSnapshot snapshot = tasks.snapshot();
+                    assertTrue(snapshot.getVersion() >= lastVersion);
+                    lastVersion = snapshot.getVersion();
+                    List<Task> seen = new ArrayList<>(snapshot.getTasks());
+                    assertEquals(seen.size(), snapshot.getNumberOfTasks());
+                    assertTrue(seen.stream().allMatch(x -> x != null));
+                    String statuses = seen.stream().map(Task::getCheckBox).collect(Collectors.joining());
+                    snapshot.craftRemindersString();
+                    assertEquals(new ArrayList<>(snapshot.getTasks()), seen);
+                    assertEquals(seen.stream().map(Task::getCheckBox).collect(Collectors.joining()), statuses);
+                    checked++;
+                }
+                return checked;
+            }));
+        }
+        int expectedSize = 0;
+        for (Future<Integer> writer : writers) {
+            expectedSize += writer.get();
+        }
+        isWriting.set(false);
+        for (Future<Integer> reader : readers) {
+            assertTrue(reader.get() > 0);
+        }
+        pool.shutdown();
+        assertEquals(tasks.getNumberOfTasks(), expectedSize);
+        assertEquals(tasks.snapshot().getNumberOfTasks(), expectedSize);
+        assertTrue(tasks.checkIfCountsConsistent());
+    }
+
+    /**
+     * Test to check if the parallel find, reminders and formatting give the same output as the sequential ones.
+     */
+    @Test
+    public void parallelFindTest() throws Exception {
+        TaskManager tasks = new TaskManager();
+        for (int i = 0; i < 5000; i++) {
+            tasks.addTask(Task.of(i % 2 == 0 ? Task.TaskType.DEADLINE : Task.TaskType.TODO, "task " + i,
+                    i % 2 == 0 ? LocalDate.of(2022, 1, 1).plusDays(i % 97) : null));
+            if (i % 3 == 0) {
+                tasks.markTaskAsCompleted(i);
+            }
+        }
+        String[] queries = {"1", "task 12", "ta", "zzz"};
+        List<String> sequential = new ArrayList<>();
+        for (String query : queries) {
+            sequential.add(tasks.findAndCraftTaskList(query));
+        }
+        sequential.add(tasks.craftRemindersString());
+        sequential.add(tasks.snapshot().craftRemindersString());
+        ForkJoinPool pool = new ForkJoinPool(4);
+        TaskManager.setParallelThreshold(0);
+        try {
+            List<String> parallel = pool.submit(() -> {
+                List<String> results = new ArrayList<>();
+                for (String query : queries) {
+                    results.add(tasks.findAndCraftTaskList(query));
+                }
+                results.add(tasks.craftRemindersString());
+                results.add(tasks.snapshot().craftRemindersString());
+                return results;
+            }).get();
+            assertEquals(parallel, sequential);
+        } finally {
+            TaskManager.setParallelThreshold(TaskManager.DEFAULT_PARALLEL_THRESHOLD);
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test to check if ranges and lists of task numbers are removed and marked as one batch, like one at a time.
+     */
+    @Test
+    public void bulkCommandTest() throws Exception {
+        assertThrows(DukeException.class, () -> Command.of("delete 5-3"));
+        assertThrows(DukeException.class, () -> Command.of("mark 1,,2"));
+        assertThrows(DukeException.class, () -> Command.Selection.of("1-2-3"));
+        assertTrue(Command.of("delete 3") instanceof Command.DeleteCommand);
+        assertTrue(Command.of("unmark done") instanceof Command.BulkMarkCommand);
+        String[] selections = {"3-50,1,40-60,99", "1-100", "7", "2,4,6,8,10"};
+        for (String selection : selections) {
+            TaskManager[] managers = {new TaskManager(), TaskManager.ofColumnar()};
+            for (TaskManager tasks : managers) {
+                List<Task> expected = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    Task task = Task.of(Task.TaskType.TODO, "task " + i);
+                    tasks.addTask(task);
+                    expected.add(Task.of(Task.TaskType.TODO, "task " + i));
+                }
+                tasks.takeChanges();
+                int[] locations = Command.Selection.of(selection).resolve(tasks);
+                assertEquals(tasks.markTasks(locations, true), locations.length);
+                assertEquals(tasks.markTasks(locations, true), 0);
+                assertEquals(tasks.findCompletedLocations().length, locations.length);
+                assertTrue(tasks.checkIfCountsConsistent());
+                tasks.takeChanges();
+                tasks.removeTasks(Command.Selection.of("done").resolve(tasks));
+                for (int i = locations.length - 1; i >= 0; i--) {
+                    expected.remove(locations[i]);
+                }
+                List<ChangeSet.Change> changes = tasks.takeChanges().getChanges();
+                assertEquals(changes.get(0).getKind(), ChangeSet.Kind.REMOVE);
+                assertEquals(changes.size() == 1, selection.equals("1-100") || selection.equals("7"));
+                assertEquals(tasks.getTaskListCopy().toString(), expected.toString());
+                TaskManager reference = new TaskManager();
+                expected.forEach(reference::addTask);
+                assertEquals(tasks.findAndCraftTaskList("task 1"), reference.findAndCraftTaskList("task 1"));
+                assertTrue(tasks.checkIfCountsConsistent());
+            }
+        }
+        TaskManager tasks = new TaskManager();
+        tasks.addTask(Task.of(Task.TaskType.TODO, "only task"));
+        assertThrows(DukeException.class, () -> Command.Selection.of("1-2").resolve(tasks));
+    }
+
+    /**
+     * Test to check if undo and redo walk back and forth through the states after each step, and drop the
+     * oldest steps beyond the history depth.
+     */
+    @Test
+    public void undoRedoTest() {
+        TaskManager tasks = new TaskManager();
+        Random random = new Random(7);
+        List<String> states = new ArrayList<>();
+        states.add(tasks.craftTextMessageForFile());
+        for (int step = 0; step < 40; step++) {
+            int size = tasks.getNumberOfTasks();
+            int choice = size < 5 ? 0 : random.nextInt(4);
+            if (choice == 0) {
+                tasks.addTask(Task.of(Task.TaskType.DEADLINE, "task " + step + " /by 2022-10-" + (10 + step % 20)));
+            } else if (choice == 1) {
+                tasks.removeTask(random.nextInt(size));
+            } else if (choice == 2) {
+                tasks.removeTasks(new int[] {0, 2, 3});
+            } else {
+                tasks.markTasks(new int[] {random.nextInt(size), size - 1}, random.nextBoolean());
+            }
+            tasks.takeChanges();
+            if (!tasks.craftTextMessageForFile().equals(states.get(states.size() - 1))) {
+                states.add(tasks.craftTextMessageForFile());
+            }
+        }
+        String reminders = tasks.craftRemindersString();
+        assertEquals(tasks.getUndoCount(), states.size() - 1);
+        for (int i = states.size() - 2; i >= 0; i--) {
+            assertTrue(tasks.undo() > 0);
+            assertEquals(tasks.craftTextMessageForFile(), states.get(i));
+            assertTrue(tasks.checkIfCountsConsistent());
+        }
+        assertEquals(tasks.undo(), 0);
+        for (int i = 1; i < states.size(); i++) {
+            assertTrue(tasks.redo() > 0);
+            assertEquals(tasks.craftTextMessageForFile(), states.get(i));
+        }
+        assertEquals(tasks.redo(), 0);
+        assertEquals(tasks.craftRemindersString(), reminders);
+        assertTrue(tasks.checkIfCountsConsistent());
+
+        tasks.setHistoryDepth(3);
+        assertEquals(tasks.getUndoCount(), 3);
+        tasks.undo();
+        tasks.addTask(Task.of(Task.TaskType.TODO, "new branch"));
+        tasks.takeChanges();
+        assertEquals(tasks.getRedoCount(), 0);
+        assertEquals(TaskManager.ofColumnar().undo(), 0);
+    }
+
+    /**
+     * Test to check if queries give the same tasks through the indexes as through a scan, and pick the index
+     * only when it reads fewer tasks.
+     */
+    @Test
+    public void queryTest() throws Exception {
+        assertThrows(DukeException.class, () -> Command.of("query"));
+        assertThrows(DukeException.class, () -> Command.of("query colour:red"));
+        assertThrows(DukeException.class, () -> Command.of("query limit:few"));
+        assertThrows(DukeException.class, () -> Command.of("query before:tomorrow"));
+        assertTrue(Command.of("query type:event explain") instanceof Command.QueryCommand);
+        TaskManager[] managers = {new TaskManager(), TaskManager.ofColumnar()};
+        Task.TaskType[] types = Task.TaskType.values();
+        for (TaskManager tasks : managers) {
+            for (int i = 0; i < 3000; i++) {
+                Task.TaskType type = types[i % types.length];
+                tasks.addTask(Task.of(type, (i % 7 == 0 ? "book " : "task ") + i,
+                        type == Task.TaskType.TODO ? null : LocalDate.of(2022, 1, 1).plusDays(i % 365)));
+                if (i % 4 == 0) {
+                    tasks.markTaskAsCompleted(i);
+                }
+            }
+        }
+        String[] queries = {"type:deadline done:false before:2022-12-01 text:book sort:date limit:20",
+            "type:event after:2022-03-01 before:2022-03-05", "after:2022-06-01 sort:date limit:7",
+            "before:2022-02-01 sort:list", "text:book done:true limit:15", "12 ask", "zzz", "type:todo sort:date",
+            "type:deadline done:false sort:date", "limit:0", "before:2022-01-01 after:2022-12-31"};
+        for (String query : queries) {
+            assertEquals(managers[0].findAndCraftTaskList(Query.of(query)),
+                    managers[1].findAndCraftTaskList(Query.of(query)));
+        }
+        assertEquals(managers[0].findTasks(Query.of("limit:5")).size(), 5);
+        assertEquals(managers[0].findAndCraftTaskList(Query.of("type:deadline done:false sort:date")),
+                managers[0].craftRemindersString());
+
+        TaskManager tasks = managers[0];
+        assertTrue(tasks.explain(Query.of("type:event after:2022-03-01 before:2022-03-05"))
+                .startsWith("Read: date index"));
+        assertTrue(tasks.explain(Query.of("text:zzz")).startsWith("Read: text index"));
+        assertTrue(tasks.explain(Query.of("done:true limit:10")).startsWith("Read: scan"));
+        assertTrue(tasks.explain(Query.of("done:true limit:10")).contains("stopping once reached"));
+        assertTrue(tasks.explain(Query.of("done:true sort:date limit:10")).contains("after sorting"));
+        assertTrue(managers[1].explain(Query.of("text:zzz")).startsWith("Read: scan"));
+    }
+
+    /**
+     * Test to check if the most urgent reminders are the first ones of the full, sorted reminders list,
+     * whether they come from the date index or from the bounded heap.
+     */
+    @Test
+    public void topRemindersTest() throws Exception {
+        assertThrows(DukeException.class, () -> Command.of("reminders few"));
+        assertThrows(DukeException.class, () -> Command.of("reminders -1"));
+        assertTrue(Command.of("reminders 5") instanceof Command.RemindCommand);
+        TaskManager[] managers = {new TaskManager(), TaskManager.ofColumnar()};
+        Random random = new Random(24);
+        for (int i = 0; i < 2000; i++) {
+            Task.TaskType type = random.nextInt(3) == 0 ? Task.TaskType.TODO : Task.TaskType.DEADLINE;
+            LocalDate date = type == Task.TaskType.TODO ? null : LocalDate.of(2022, 1, 1).plusDays(random.nextInt(60));
+            boolean isCompleted = random.nextInt(3) == 0;
+            for (TaskManager tasks : managers) {
+                tasks.addTask(Task.of(type, "task " + i, date));
+                if (isCompleted) {
+                    tasks.markTaskAsCompleted(i);
+                }
+            }
+        }
+        List<Task> all = managers[0].findTasks(Query.of("type:deadline done:false sort:date"));
+        for (int limit : new int[] {0, 1, 7, 100, all.size(), 5000}) {
+            String expected = all.subList(0, Math.min(limit, all.size())).toString();
+            for (TaskManager tasks : managers) {
+                assertEquals(tasks.findReminders(limit).toString(), expected);
+            }
+            assertEquals(managers[0].snapshot().findReminders(limit).toString(), expected);
+        }
+    }
+
+    /**
+     * Test to check if fuzzy finds through the BK-tree give the same tasks, in the same order, as a scan
+     * comparing every word, including after enough removals to rebuild the tree.
+     */
+    @Test
+    public void fuzzyFindTest() throws Exception {
+        assertThrows(DukeException.class, () -> Command.of("find~"));
+        assertThrows(DukeException.class, () -> Command.of("find~x asignment"));
+        assertThrows(DukeException.class, () -> Command.of("find~-1 asignment"));
+        assertTrue(Command.of("find~ asignment") instanceof Command.FuzzyFindCommand);
+        assertTrue(Command.of("find~2 asignment") instanceof Command.FuzzyFindCommand);
+        TaskManager[] managers = {new TaskManager(), TaskManager.ofColumnar()};
+        String[] words = {"assignment", "assessment", "alignment", "reading", "meeting", "mating", "book", "cook"};
+        for (TaskManager tasks : managers) {
+            for (int i = 0; i < 600; i++) {
+                tasks.addTask(Task.of(Task.TaskType.TODO, words[i % words.length] + " " + words[i % 5] + " w" + i,
+                        null));
+            }
+        }
+        assertEquals(managers[0].findTasks("asignment").size(), 0);
+        List<Task> found = managers[0].findSimilarTasks("asignment", -1);
+        assertTrue(found.size() > 0);
+        assertTrue(found.get(0).toString().contains("assignment"));
+        assertEquals(managers[0].findSimilarTasks("Meeting", 0), managers[0].findSimilarTasks("meeting", 0));
+        String[] queries = {"asignment", "metting bok", "w12", "w1234", "zzzz", "readng asessment", "a", "..."};
+        for (int round = 0; round < 2; round++) {
+            for (String query : queries) {
+                for (int distance = -1; distance <= 2; distance++) {
+                    assertEquals(managers[0].findSimilarTasks(query, distance).toString(),
+                            managers[1].findSimilarTasks(query, distance).toString());
+                }
+            }
+            for (TaskManager tasks : managers) {
+                for (int i = tasks.getNumberOfTasks() * 2 / 3; i > 0; i--) {
+                    tasks.removeTask(tasks.getNumberOfTasks() - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Test to check if read-only commands give the same message on a snapshot, without the lock, as on the
+     * task manager, and if only they can run on a snapshot.
+     */
+    @Test
+    public void readOnlyCommandTest() throws Exception {
+        TaskManager tasks = new TaskManager();
+        for (int i = 0; i < 300; i++) {
+            tasks.addTask(Task.of(i % 2 == 0 ? Task.TaskType.DEADLINE : Task.TaskType.TODO, "task " + i,
+                    i % 2 == 0 ? LocalDate.of(2022, 1, 1).plusDays(i % 31) : null));
+            if (i % 5 == 0) {
+                tasks.markTaskAsCompleted(i);
+            }
+        }
+        Ui ui = new Ui();
+        for (String input : new String[] {"list", "list 20 50", "find task 1", "find zzz", "reminders",
+            "reminders 4"}) {
+            Command command = Command.of(input);
+            assertTrue(command instanceof Command.ReadOnlyCommand);
+            StringBuilder message = new StringBuilder();
+            ((Command.ReadOnlyCommand) command).execute(tasks.snapshot(), ui, message);
+            assertEquals(message.toString(), command.execute(tasks, ui, null));
+        }
+        assertTrue(!(Command.of("mark 1") instanceof Command.ReadOnlyCommand));
+    }
+
+    /**
+     * Test to check if a snapshot answers finds, reminders and counts as of its own version, both while the
+     * task manager is unchanged and after it has moved on.
+     */
+    @Test
+    public void snapshotIndexTest() {
+        TaskManager tasks = new TaskManager();
+        for (int i = 0; i < 200; i++) {
+            tasks.addTask(Task.of(i % 2 == 0 ? Task.TaskType.DEADLINE : Task.TaskType.TODO, "task " + i,
+                    i % 2 == 0 ? LocalDate.of(2022, 3, 1).plusDays(i % 17) : null));
+        }
+        TaskSnapshot before = tasks.snapshot();
+        assertEquals(before.findTasks("task 1"), tasks.findTasks("task 1"));
+        assertEquals(before.findReminders(5), tasks.findReminders(5));
+        String reminders = before.craftRemindersString();
+        assertEquals(reminders, tasks.craftRemindersString());
+
+        tasks.addTask(Task.of(Task.TaskType.DEADLINE, "task 1 urgent", LocalDate.of(2022, 1, 1)));
+        tasks.markTaskAsCompleted(0);
+        assertEquals(before.findTasks("task 1").size(), tasks.findTasks("task 1").size() - 1);
+        assertEquals(before.craftRemindersString(), reminders);
+        assertEquals(before.getNumberOfMatchingTasks(Task.TaskType.DEADLINE), 100);
+        TaskSnapshot after = tasks.snapshot();
+        assertEquals(after.findReminders(5), tasks.findReminders(5));
+        assertEquals(after.getNumberOfMatchingTasks(Task.TaskType.DEADLINE), 101);
+    }
+
+    /**
+     * Test to check if the greeting warns about saved tasks that were skipped when loading, and only then.
+     */
+    @Test
+    public void welcomeMessageTest() {
+        Ui ui = new Ui();
+        assertEquals(ui.getWelcomeMessage(0), ui.getWelcomeMessage());
+        assertEquals(ui.getWelcomeMessage(2), ui.getWelcomeMessage()
+                + "\n     (2 saved task(s) could not be read and were skipped)");
+    }
 }
@@ -0,0 +1,103 @@
+package seedu.duke;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import duke.task.Task;
+import duke.task.TaskManager;
+
+/**
+ * Represents a benchmark of the find indexes, reporting their memory overhead and find times against a
+ * full scan, for exact finds and for fuzzy finds that compare every word of every task. Run it with the
+ * number of tasks as the only argument.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class IndexBenchmark {
+
+    /**
+     * Represents the queries that are timed.
+     */
+    private static final String[] QUERIES = {"ch", "20", "assignment 52", "2022-03", "meeting with", "zzz"};
+
+    /**
+     * Represents the misspelled queries that are timed with fuzzy finds.
+     */
+    private static final String[] FUZZY_QUERIES = {"asignment", "meting groop", "texbook", "zzzz"};
+
+    /**
+     * Represents how many times each query is repeated. The fastest run is reported.
+     */
+    private static final int RUNS = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param args Number of tasks, defaulting to half a million.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        List<Task> plain = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            plain.add(StorageBenchmark.createTask(i));
+        }
+        long before = measureUsedMemory();
+        TaskManager tasks = new TaskManager();
+        long start = System.nanoTime();
+        for (Task task : plain) {
+            tasks.addTask(task);
+        }
+        long buildNanos = System.nanoTime() - start;
+        long after = measureUsedMemory();
+        System.out.printf("%,d tasks indexed in %d ms, heap grew by %,d bytes, estimated index size %,d bytes%n",
+                size, buildNanos / 1_000_000, after - before, tasks.estimateIndexMemoryBytes());
+        for (String query : QUERIES) {
+            long indexNanos = Long.MAX_VALUE;
+            long scanNanos = Long.MAX_VALUE;
+            int count = 0;
+            for (int run = 0; run < RUNS; run++) {
+                start = System.nanoTime();
+                count = tasks.findTasks(query).size();
+                indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+                start = System.nanoTime();
+                long scanned = plain.stream().filter(x -> x.containString(query)).count();
+                scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+                assert scanned == count;
+            }
+            System.out.printf("%-15s %,8d matches  index %8.2f ms  scan %8.2f ms%n", query, count,
+                    indexNanos / 1e6, scanNanos / 1e6);
+        }
+        TaskManager columnar = TaskManager.ofColumnar();
+        for (Task task : plain) {
+            columnar.addTask(task);
+        }
+        for (String query : FUZZY_QUERIES) {
+            long indexNanos = Long.MAX_VALUE;
+            long scanNanos = Long.MAX_VALUE;
+            int count = 0;
+            for (int run = 0; run < RUNS; run++) {
+                start = System.nanoTime();
+                count = tasks.findSimilarTasks(query, -1).size();
+                indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+                start = System.nanoTime();
+                int scanned = columnar.findSimilarTasks(query, -1).size();
+                scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+                assert scanned == count;
+            }
+            System.out.printf("~%-14s %,8d matches  index %8.2f ms  scan %8.2f ms%n", query, count,
+                    indexNanos / 1e6, scanNanos / 1e6);
+        }
+    }
+
+    /**
+     * Measures the heap in use after collecting garbage.
+     * @return Bytes in use.
+     */
+    private static long measureUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,90 @@
+package seedu.duke;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import duke.task.TaskManager;
+
+/**
+ * Represents a benchmark of the parallel find and reminders against the sequential ones, across list sizes
+ * and numbers of threads, to show where splitting the work starts to pay off. Run it with the largest
+ * number of threads as the only argument.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class ParallelBenchmark {
+
+    /**
+     * Represents the list sizes that are timed.
+     */
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+
+    /**
+     * Represents how many times each measurement is repeated. The fastest run is reported.
+     */
+    private static final int RUNS = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param args Largest number of threads, defaulting to the number of processors.
+     */
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        System.out.println(Runtime.getRuntime().availableProcessors() + " processor(s) available");
+        for (int size : SIZES) {
+            TaskManager tasks = new TaskManager();
+            for (int i = 0; i < size; i++) {
+                tasks.addTask(StorageBenchmark.createTask(i));
+                if (i % 4 == 0) {
+                    tasks.markTaskAsCompleted(i);
+                }
+            }
+            tasks.takeChanges();
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                System.out.printf("%,9d tasks %2d thread(s): find \"ch\" %s | find \"meeting with\" %s | "
+                        + "reminders %s%n", size, threads,
+                        compare(pool, () -> tasks.findAndCraftTaskList("ch")),
+                        compare(pool, () -> tasks.findAndCraftTaskList("meeting with")),
+                        compare(pool, tasks::craftRemindersString));
+                pool.shutdown();
+            }
+        }
+        TaskManager.setParallelThreshold(TaskManager.DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Times a piece of work in a pool, sequentially and then in parallel, and checks that both agree.
+     * @param pool Pool to run the work in.
+     * @param work Work producing the output.
+     * @return Timings.
+     */
+    private static String compare(ForkJoinPool pool, Supplier<String> work) throws Exception {
+        TaskManager.setParallelThreshold(Integer.MAX_VALUE);
+        long[] sequential = time(pool, work);
+        TaskManager.setParallelThreshold(0);
+        long[] parallel = time(pool, work);
+        if (sequential[1] != parallel[1]) {
+            throw new IllegalStateException("the parallel output differs from the sequential one");
+        }
+        return String.format("seq %7.2f ms par %7.2f ms", sequential[0] / 1e6, parallel[0] / 1e6);
+    }
+
+    /**
+     * Times a piece of work in a pool.
+     * @param pool Pool to run the work in.
+     * @param work Work producing the output.
+     * @return Fastest time in nanoseconds, and the hash of the output.
+     */
+    private static long[] time(ForkJoinPool pool, Supplier<String> work) throws Exception {
+        long best = Long.MAX_VALUE;
+        long hash = 0;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            hash = pool.submit(work::get).get().hashCode();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return new long[] {best, hash};
+    }
+}
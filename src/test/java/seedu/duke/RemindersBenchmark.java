@@ -0,0 +1,97 @@
+package seedu.duke;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import duke.task.Task;
+import duke.task.TaskManager;
+import duke.task.TaskSnapshot;
+
+/**
+ * Represents a benchmark of finding the k most urgent reminders through the date index and through a
+ * bounded heap, against sorting every uncompleted deadline and keeping the first k.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class RemindersBenchmark {
+
+    /**
+     * Represents the list sizes that are timed.
+     */
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000};
+
+    /**
+     * Represents the numbers of reminders asked for.
+     */
+    private static final int[] LIMITS = {10, 100, 1000};
+
+    /**
+     * Represents how many times each measurement is repeated. The fastest run is reported.
+     */
+    private static final int RUNS = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param args Unused.
+     */
+    public static void main(String[] args) {
+        for (int size : SIZES) {
+            TaskManager tasks = new TaskManager();
+            for (int i = 0; i < size; i++) {
+                tasks.addTask(StorageBenchmark.createTask(i));
+                if (i % 4 == 0) {
+                    tasks.markTaskAsCompleted(i);
+                }
+            }
+            TaskSnapshot snapshot = tasks.snapshot();
+            // A snapshot of an older version cannot use the date index, so it falls back to the heap.
+            tasks.addTask(StorageBenchmark.createTask(size));
+            tasks.removeTask(size);
+            tasks.takeChanges();
+            for (int limit : LIMITS) {
+                long[] sort = time(() -> sortAll(snapshot.getTasks(), limit));
+                long[] heap = time(() -> snapshot.findReminders(limit).toString());
+                long[] index = time(() -> tasks.findReminders(limit).toString());
+                if (sort[1] != heap[1] || sort[1] != index[1]) {
+                    throw new IllegalStateException("the reminders differ from the sorted ones");
+                }
+                System.out.printf("%,9d tasks k = %4d: sort %8.2f ms | heap %8.2f ms | index %8.2f ms%n",
+                        size, limit, sort[0] / 1e6, heap[0] / 1e6, index[0] / 1e6);
+            }
+        }
+    }
+
+    /**
+     * Finds the most urgent reminders by sorting every uncompleted deadline.
+     * @param list Tasks.
+     * @param limit Number of reminders.
+     * @return String of the reminders.
+     */
+    private static String sortAll(List<Task> list, int limit) {
+        return list.stream()
+                .filter(x -> x.getTaskType() == Task.TaskType.DEADLINE && !x.checkIfCompleted())
+                .sorted(Comparator.comparing(Task::getDate))
+                .limit(limit)
+                .collect(Collectors.toList())
+                .toString();
+    }
+
+    /**
+     * Times a piece of work.
+     * @param work Work producing the output.
+     * @return Fastest time in nanoseconds, and the hash of the output.
+     */
+    private static long[] time(Supplier<String> work) {
+        long best = Long.MAX_VALUE;
+        long hash = 0;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            hash = work.get().hashCode();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return new long[] {best, hash};
+    }
+}
@@ -0,0 +1,135 @@
+package seedu.duke;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import duke.storage.SegmentedStore;
+import duke.storage.TaskFile;
+import duke.task.Task;
+import duke.task.TaskManager;
+
+/**
+ * Represents a benchmark of the task file formats at several compression levels and of the segmented
+ * store. Run it with the number of tasks as the only argument.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class StorageBenchmark {
+
+    /**
+     * Represents how many times each measurement is repeated. The fastest run is reported.
+     */
+    private static final int RUNS = 5;
+
+    /**
+     * Runs the benchmark.
+     * @param args Number of tasks, defaulting to one million.
+     * @throws IOException If the temporary files cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Files.createTempDirectory("duke-benchmark");
+        int[] levels = {TaskFile.UNCOMPRESSED, 1, 6, 9};
+        for (TaskFile.Format format : TaskFile.Format.values()) {
+            for (int level : levels) {
+                TaskFile taskFile = TaskFile.of(format, level);
+                Path file = directory.resolve(format.name().toLowerCase() + level);
+                long writeNanos = Long.MAX_VALUE;
+                long readNanos = Long.MAX_VALUE;
+                for (int run = 0; run < RUNS; run++) {
+                    writeNanos = Math.min(writeNanos, write(file, taskFile, size));
+                    readNanos = Math.min(readNanos, read(file));
+                }
+                String name = level == TaskFile.UNCOMPRESSED ? format.name() : format + "/z" + level;
+                System.out.printf("%-10s %,12d bytes  write %6d ms  load %6d ms%n", name, Files.size(file),
+                        writeNanos / 1_000_000, readNanos / 1_000_000);
+                Files.delete(file);
+            }
+        }
+        benchmarkSegments(directory.resolve("segmented"), size);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Measures loading the segmented store, whose segments are parsed in parallel.
+     * @param file Path of the task file the store is imported from.
+     * @param size Number of tasks.
+     * @throws IOException If the files cannot be written.
+     */
+    private static void benchmarkSegments(Path file, int size) throws IOException {
+        write(file, TaskFile.of(TaskFile.Format.TEXT), size);
+        SegmentedStore importer = new SegmentedStore(file);
+        importer.load(new TaskManager());
+        importer.close();
+        long loadNanos = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            SegmentedStore store = new SegmentedStore(file);
+            TaskManager tasks = new TaskManager();
+            store.load(tasks);
+            loadNanos = Math.min(loadNanos, System.nanoTime() - start);
+            store.close();
+            assert tasks.getNumberOfTasks() == size;
+        }
+        System.out.printf("%-10s %,12d tasks  %d cores        load %6d ms%n", "SEGMENTS", size,
+                Runtime.getRuntime().availableProcessors(), loadNanos / 1_000_000);
+    }
+
+    /**
+     * Creates a task for the benchmark.
+     * @param i Number of the task.
+     * @return Task.
+     */
+    static Task createTask(int i) {
+        LocalDate date = LocalDate.of(2022, 1, 1).plusDays(i % 730);
+        switch (i % 3) {
+        case 0:
+            return Task.of(Task.TaskType.TODO, "read chapter " + (i % 97) + " of the textbook", null);
+        case 1:
+            return Task.of(Task.TaskType.DEADLINE, "submit assignment " + (i % 53), date);
+        default:
+            return Task.of(Task.TaskType.EVENT, "project meeting with group " + (i % 31), date);
+        }
+    }
+
+    /**
+     * Writes a file of tasks.
+     * @return Time taken in nanoseconds.
+     */
+    private static long write(Path file, TaskFile taskFile, int size) throws IOException {
+        long start = System.nanoTime();
+        try (TaskFile.TaskWriter writer = taskFile.openWriter(file, 0)) {
+            for (int i = 0; i < size; i++) {
+                writer.write(createTask(i));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Reads every task of a file.
+     * @return Time taken in nanoseconds.
+     */
+    private static long read(Path file) throws IOException {
+        long start = System.nanoTime();
+        int count = 0;
+        try (TaskFile.TaskReader reader = TaskFile.open(file)) {
+            while (reader.next() != null) {
+                count++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assert count > 0;
+        return elapsed;
+    }
+}
@@ -0,0 +1,634 @@
+package seedu.duke;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import duke.Duke;
+import duke.storage.JournalStore;
+import duke.storage.MappedStore;
+import duke.storage.SegmentedStore;
+import duke.storage.Storage;
+import duke.storage.TaskFile;
+import duke.storage.TaskStore;
+import duke.task.Task;
+import duke.task.TaskManager;
+
+/**
+ * Represents a StorageTest Class.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class StorageTest {
+
+    /**
+     * Adds a task to the task manager and records it in the storage.
+     */
+    private static void add(TaskManager tasks, Storage storage, String description) throws IOException {
+        Task task = Task.of(Task.TaskType.TODO, description);
+        tasks.addTask(task);
+        storage.recordAdd(task);
+    }
+
+    /**
+     * Copies the task file and its journals to a new directory, as a crash at this point would leave them.
+     */
+    private static Path copyAsCrashed(Path file) throws IOException {
+        Path copy = Files.createTempDirectory("duke").resolve(file.getFileName());
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(file.getParent(), file.getFileName() + "*")) {
+            for (Path source : stream) {
+                Files.copy(source, copy.resolveSibling(source.getFileName()));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Loads a fresh task manager from the given file.
+     */
+    private static TaskManager reload(Path file) throws IOException {
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString());
+        storage.load(tasks);
+        storage.close();
+        return tasks;
+    }
+
+    /**
+     * Loads a fresh task manager from the segments of the given file.
+     */
+    private static TaskManager reload(Path file, int segmentSize) throws IOException {
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString(), new SegmentedStore(file, TaskFile.Format.TEXT, segmentSize));
+        storage.load(tasks);
+        storage.close();
+        return tasks;
+    }
+
+    /**
+     * Test to check if journaled changes are replayed after a restart.
+     */
+    @Test
+    public void journalReplayTest() throws IOException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString());
+        storage.load(tasks);
+        add(tasks, storage, "read book");
+        add(tasks, storage, "return book");
+        tasks.markTaskAsCompleted(1);
+        storage.recordMark(1, true);
+        tasks.removeTask(0);
+        storage.recordDelete(0);
+        storage.close();
+
+        assertEquals(reload(file).craftTaskString(), "1.[T][X] return book");
+    }
+
+    /**
+     * Test to check if every change is on disk once the storage says it is durable, before anything is
+     * closed.
+     */
+    @Test
+    public void awaitDurableTest() throws IOException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString(), new JournalStore(file, TaskFile.Format.TEXT, 1000,
+                Long.MAX_VALUE));
+        storage.load(tasks);
+        storage.awaitDurable();
+        for (int i = 0; i < 15; i++) {
+            add(tasks, storage, "task " + i);
+            storage.awaitDurable();
+            assertEquals(Files.readAllLines(Path.of(file + ".journal.0")).size(), i + 2);
+        }
+        tasks.takeChanges();
+        tasks.removeTask(3);
+        tasks.markTaskAsCompleted(0);
+        storage.save(tasks.takeChanges());
+        storage.awaitDurable();
+        assertEquals(Files.readAllLines(Path.of(file + ".journal.0")).size(), 18);
+        storage.close();
+    }
+
+    /**
+     * Test to check if a journal record cut off by a crash is neither replayed nor joined to the next record.
+     */
+    @Test
+    public void tornRecordTest() throws IOException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString(), new JournalStore(file, TaskFile.Format.TEXT, 1000,
+                Long.MAX_VALUE));
+        storage.load(tasks);
+        for (int i = 0; i < 15; i++) {
+            add(tasks, storage, "task " + i);
+        }
+        storage.awaitDurable();
+        Path crashed = copyAsCrashed(file);
+        storage.close();
+        file = crashed;
+        Path journal = Path.of(file + ".journal.0");
+        Files.writeString(journal, "D | 1", StandardOpenOption.APPEND);
+
+        tasks = new TaskManager();
+        storage = new Storage(file.toString());
+        storage.load(tasks);
+        assertEquals(tasks.getNumberOfTasks(), 15);
+        assertEquals(storage.getBadLineCount(), 0);
+        add(tasks, storage, "after the crash");
+        storage.close();
+        TaskManager reloaded = reload(file);
+        assertEquals(reloaded.getNumberOfTasks(), 16);
+        assertEquals(reloaded.craftTextMessageForFile(), tasks.craftTextMessageForFile());
+    }
+
+    /**
+     * Test to check if a batch of deletions is journaled as one record per run and replayed after a restart.
+     */
+    @Test
+    public void bulkDeleteReplayTest() throws IOException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString());
+        storage.load(tasks);
+        for (int i = 0; i < 20; i++) {
+            add(tasks, storage, "task " + i);
+        }
+        tasks.takeChanges();
+        tasks.removeTasks(new int[] {1, 2, 3, 4, 5, 9, 15, 16});
+        storage.save(tasks.takeChanges());
+        tasks.markTasks(new int[] {0, 1, 2}, true);
+        storage.save(tasks.takeChanges());
+        storage.awaitDurable();
+        Path crashed = copyAsCrashed(file);
+        storage.close();
+
+        assertEquals(Files.readAllLines(Path.of(crashed + ".journal.0")).size(), 1 + 20 + 3 + 3);
+        assertEquals(reload(crashed).craftTextMessageForFile(), tasks.craftTextMessageForFile());
+        assertFalse(Files.exists(Path.of(file + ".journal.0")));
+        assertEquals(reload(file).craftTextMessageForFile(), tasks.craftTextMessageForFile());
+    }
+
+    /**
+     * Test to check if undone deletions are saved as insertions by every store and survive a restart.
+     */
+    @Test
+    public void undoSaveTest() throws IOException {
+        for (int kind = 0; kind < 3; kind++) {
+            Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+            TaskStore store = kind == 0 ? new JournalStore(file, TaskFile.Format.TEXT, 1000, Long.MAX_VALUE)
+                    : kind == 1 ? new MappedStore(file) : new SegmentedStore(file, TaskFile.Format.TEXT, 4);
+            TaskManager tasks = new TaskManager();
+            Storage storage = new Storage(file.toString(), store);
+            storage.load(tasks);
+            for (int i = 0; i < 12; i++) {
+                tasks.addTask(Task.of(Task.TaskType.TODO, "task " + i));
+            }
+            storage.save(tasks.takeChanges());
+            tasks.removeTasks(new int[] {0, 3, 4, 5, 11});
+            storage.save(tasks.takeChanges());
+            tasks.markTaskAsCompleted(2);
+            storage.save(tasks.takeChanges());
+            tasks.undo();
+            tasks.undo();
+            storage.save(tasks.takeChanges());
+            storage.close();
+
+            TaskManager reloaded = new TaskManager();
+            Storage reopened = new Storage(file.toString(), kind == 0
+                    ? new JournalStore(file, TaskFile.Format.TEXT, 1000, Long.MAX_VALUE)
+                    : kind == 1 ? new MappedStore(file) : new SegmentedStore(file, TaskFile.Format.TEXT, 4));
+            reopened.load(reloaded);
+            reopened.close();
+            assertEquals(reloaded.getNumberOfTasks(), 12);
+            assertEquals(reloaded.craftTextMessageForFile(), tasks.craftTextMessageForFile());
+            assertEquals(reloaded.findAndCraftTaskList("task 1"), tasks.findAndCraftTaskList("task 1"));
+        }
+    }
+
+    /**
+     * Test to check if snapshots truncate the journal without losing changes.
+     */
+    @Test
+    public void snapshotTest() throws IOException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString(), 10, Long.MAX_VALUE);
+        storage.load(tasks);
+        for (int i = 0; i < 25; i++) {
+            add(tasks, storage, "task " + i);
+        }
+        storage.awaitDurable();
+        assertEquals(Files.readAllLines(Path.of(file + ".journal.2")).size(), 6);
+        storage.close();
+
+        // Closing writes a final snapshot holding the last journal, which is then deleted.
+        assertTrue(Files.readString(file).startsWith("# generation 2"));
+        assertFalse(Files.exists(Path.of(file + ".journal.1")));
+        assertFalse(Files.exists(Path.of(file + ".journal.2")));
+        assertEquals(reload(file).craftTextMessageForFile(), tasks.craftTextMessageForFile());
+    }
+
+    /**
+     * Test to check if files can be converted to the binary format and back without losing tasks.
+     */
+    @Test
+    public void binaryConversionTest() throws IOException {
+        Path text = Files.createTempDirectory("duke").resolve("tasks.txt");
+        Path binary = text.resolveSibling("tasks.bin");
+        String contents = String.join(System.lineSeparator(), "# generation 3", "T | 0 | pipe | in description",
+                "D | 1 | return book | 2022-12-24", "E | 0 | project meeting | 2021-04-02");
+        Files.writeString(text, contents);
+
+        assertEquals(TaskFile.convert(text, binary, TaskFile.Format.BINARY), 3);
+        assertEquals(TaskFile.detect(binary), TaskFile.Format.BINARY);
+        assertTrue(Files.size(binary) < Files.size(text));
+        assertEquals(TaskFile.convert(binary, binary, TaskFile.Format.TEXT), 3);
+        assertEquals(Files.readString(binary), contents);
+    }
+
+    /**
+     * Test to check if records of a binary file with a corrupt length are skipped as bad records, without
+     * allocating the length they claim.
+     */
+    @Test
+    public void corruptBinaryTest() throws IOException {
+        Path text = Files.createTempDirectory("duke").resolve("tasks.txt");
+        Path binary = text.resolveSibling("tasks.bin");
+        Files.writeString(text, String.join(System.lineSeparator(), "T | 0 | first", "D | 1 | second | 2022-12-24"));
+        TaskFile.convert(text, binary, TaskFile.Format.BINARY);
+        byte[] good = Files.readAllBytes(binary);
+        byte[][] corruptRecords = {{0, -1, -1, -1, -1, 15}, {0, -1, -1, -1, 7}, {0, -128, -128, -128, 4}};
+        for (byte[] corrupt : corruptRecords) {
+            Files.write(binary, good);
+            Files.write(binary, corrupt, StandardOpenOption.APPEND);
+            TaskFile.TaskReader reader = TaskFile.open(binary);
+            int count = 0;
+            try (reader) {
+                while (reader.next() != null) {
+                    count++;
+                }
+            }
+            assertEquals(count, 2);
+            assertEquals(reader.getBadLineCount(), 1);
+        }
+    }
+
+    /**
+     * Test to check if the mapped store keeps marks, deletions and long descriptions across restarts
+     * and compactions.
+     */
+    @Test
+    public void mappedStoreTest() throws IOException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        Files.writeString(file, "T | 0 | imported task");
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString(), new MappedStore(file));
+        storage.load(tasks);
+        add(tasks, storage, "a description far too long to fit inside a single fixed width slot of the file");
+        for (int i = 0; i < 3000; i++) {
+            add(tasks, storage, "task " + i);
+        }
+        for (int i = 0; i < 2500; i++) {
+            tasks.removeTask(2);
+            storage.recordDelete(2);
+        }
+        tasks.markTaskAsCompleted(1);
+        storage.recordMark(1, true);
+        storage.close();
+
+        TaskManager reloaded = new TaskManager();
+        Storage reopened = new Storage(file.toString(), new MappedStore(file));
+        reopened.load(reloaded);
+        reopened.close();
+        assertEquals(reloaded.getNumberOfTasks(), 502);
+        assertEquals(reloaded.craftTextMessageForFile(), tasks.craftTextMessageForFile());
+        assertTrue(Files.exists(Path.of(file + ".overflow.1")));
+        assertFalse(Files.exists(Path.of(file + ".overflow.0")));
+    }
+
+    /**
+     * Test to check if tasks inserted into the mapped store take order keys instead of rewriting the file,
+     * and if the file is only compacted once the keys between two tasks run out.
+     */
+    @Test
+    public void mappedInsertTest() throws IOException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString(), new MappedStore(file));
+        storage.load(tasks);
+        for (int i = 0; i < 10; i++) {
+            add(tasks, storage, "task " + i);
+        }
+        int[] locations = {3, 0, 11, 5, 5, 1};
+        for (int i = 0; i < locations.length; i++) {
+            Task task = Task.of(Task.TaskType.TODO, "inserted " + i);
+            tasks.insertTask(locations[i], task);
+            storage.recordInsert(locations[i], task);
+        }
+        storage.awaitDurable();
+        assertFalse(Files.exists(Path.of(file + ".overflow.1")));
+        for (int i = 0; i < 30; i++) {
+            Task task = Task.of(Task.TaskType.TODO, "squeezed " + i);
+            tasks.insertTask(8, task);
+            storage.recordInsert(8, task);
+        }
+        assertTrue(Files.exists(Path.of(file + ".overflow.1")));
+        storage.close();
+
+        TaskManager reloaded = new TaskManager();
+        Storage reopened = new Storage(file.toString(), new MappedStore(file));
+        reopened.load(reloaded);
+        reopened.close();
+        assertEquals(reloaded.getNumberOfTasks(), 46);
+        assertEquals(reloaded.craftTextMessageForFile(), tasks.craftTextMessageForFile());
+    }
+
+    /**
+     * Test to check if the segmented store splits the list into segments and keeps changes across restarts.
+     */
+    @Test
+    public void segmentedStoreTest() throws IOException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        Files.writeString(file, "T | 0 | imported task");
+        TaskManager tasks = new TaskManager();
+        SegmentedStore store = new SegmentedStore(file, TaskFile.Format.TEXT, 10);
+        Storage storage = new Storage(file.toString(), store);
+        storage.load(tasks);
+        for (int i = 0; i < 24; i++) {
+            add(tasks, storage, "task " + i);
+        }
+        assertEquals(store.getSegmentCount(), 3);
+        for (int i = 0; i < 10; i++) {
+            tasks.removeTask(0);
+            storage.recordDelete(0);
+        }
+        tasks.markTaskAsCompleted(12);
+        storage.recordMark(12, true);
+        storage.close();
+
+        assertEquals(store.getSegmentCount(), 2);
+        assertFalse(Files.exists(Path.of(file + ".segments", "0")));
+        TaskManager reloaded = new TaskManager();
+        Storage reopened = new Storage(file.toString(), new SegmentedStore(file, TaskFile.Format.TEXT, 10));
+        reopened.load(reloaded);
+        reopened.close();
+        assertEquals(reloaded.craftTextMessageForFile(), tasks.craftTextMessageForFile());
+    }
+
+    /**
+     * Test to check if saving a change set only rewrites the segments it touches, publishing them under
+     * fresh names with one manifest swap.
+     */
+    @Test
+    public void changeSetSaveTest() throws IOException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString(), new SegmentedStore(file, TaskFile.Format.TEXT, 10));
+        storage.load(tasks);
+        for (int i = 0; i < 30; i++) {
+            tasks.addTask(Task.of(Task.TaskType.TODO, "task " + i));
+        }
+        storage.save(tasks.takeChanges());
+        storage.close();
+        Path untouched = Path.of(file + ".segments", "2");
+        FileTime written = Files.getLastModifiedTime(untouched);
+        Files.setLastModifiedTime(untouched, FileTime.fromMillis(0));
+
+        storage = new Storage(file.toString(), new SegmentedStore(file, TaskFile.Format.TEXT, 10));
+        tasks = new TaskManager();
+        storage.load(tasks);
+        tasks.removeTask(8);
+        tasks.removeTask(8);
+        tasks.removeTask(8);
+        tasks.markTaskAsCompleted(0);
+        storage.save(tasks.takeChanges());
+        storage.close();
+
+        assertTrue(written.toMillis() > 0);
+        assertEquals(Files.getLastModifiedTime(untouched).toMillis(), 0);
+        assertEquals(Files.readAllLines(Path.of(file + ".segments", "manifest")),
+                List.of("# segments", "3", "4", "2"));
+        assertFalse(Files.exists(Path.of(file + ".segments", "0")));
+        assertFalse(Files.exists(Path.of(file + ".segments", "1")));
+        assertEquals(reload(file, 10).craftTextMessageForFile(), tasks.craftTextMessageForFile());
+    }
+
+    /**
+     * Test to check if compressed files are detected from their header and read back without losing tasks.
+     */
+    @Test
+    public void compressionTest() throws IOException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        TaskManager tasks = new TaskManager();
+        JournalStore store = new JournalStore(file, TaskFile.of(TaskFile.Format.BINARY, 9), 10, Long.MAX_VALUE);
+        Storage storage = new Storage(file.toString(), store);
+        storage.load(tasks);
+        for (int i = 0; i < 200; i++) {
+            add(tasks, storage, "read chapter " + (i % 7) + " of the textbook");
+        }
+        storage.close();
+
+        assertTrue(TaskFile.checkIfCompressed(file));
+        assertEquals(TaskFile.detect(file), TaskFile.Format.BINARY);
+        assertEquals(reload(file).craftTextMessageForFile(), tasks.craftTextMessageForFile());
+        Path text = file.resolveSibling("tasks.text");
+        assertEquals(TaskFile.convert(file, text, TaskFile.Format.TEXT), 200);
+        assertFalse(TaskFile.checkIfCompressed(text));
+        assertTrue(Files.size(file) < Files.size(text) / 10);
+    }
+
+    /**
+     * Test to check if a second instance cannot take the file, and if outside changes are reloaded without
+     * losing the changes made since the file was written, which are only in the journal.
+     */
+    @Test
+    public void hotReloadTest() throws IOException, InterruptedException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString());
+        assertEquals(storage.getReloadCount(), 0);
+        storage.load(tasks);
+        for (int i = 0; i < 5; i++) {
+            add(tasks, storage, "task " + i);
+        }
+        storage.close();
+        tasks = new TaskManager();
+        storage = new Storage(file.toString());
+        storage.load(tasks);
+        add(tasks, storage, "added in the app");
+        Storage other = new Storage(file.toString());
+        other.load(new TaskManager());
+        assertThrows(IOException.class, () -> other.recordAdd(Task.of(Task.TaskType.TODO, "clash")));
+        other.close();
+
+        Files.writeString(file, String.join("\n", "T | 0 | task 0", "T | 0 | task 1", "T | 0 | edited",
+                "T | 0 | task 3", "T | 0 | task 4", "T | 0 | x"));
+        for (int i = 0; i < 100 && storage.getReloadCount() == 0; i++) {
+            Thread.sleep(50);
+        }
+        String expected;
+        synchronized (tasks) {
+            assertEquals(storage.getReloadCount(), 1);
+            assertEquals(tasks.craftTaskString().split("\n")[2].trim(), "3.[T][ ] edited");
+            assertEquals(tasks.getNumberOfTasks(), 7);
+            assertEquals(tasks.findTasks("added in the app").size(), 1);
+            assertEquals(tasks.findTasks("x").size(), 1);
+            expected = tasks.craftTextMessageForFile();
+        }
+        storage.close();
+        assertEquals(reload(file).craftTextMessageForFile(), expected);
+    }
+
+    /**
+     * Test to check if an outside edit that keeps the size and modification time of the task file, such as
+     * marking a task, is still reloaded.
+     */
+    @Test
+    public void sameSizeReloadTest() throws IOException, InterruptedException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        TaskManager tasks = new TaskManager();
+        Storage storage = new Storage(file.toString());
+        storage.load(tasks);
+        add(tasks, storage, "first");
+        add(tasks, storage, "second");
+        storage.close();
+        tasks = new TaskManager();
+        storage = new Storage(file.toString());
+        storage.load(tasks);
+
+        Path edit = file.resolveSibling("edit.tmp");
+        Files.writeString(edit, Files.readString(file).replace("T | 0 | second", "T | 1 | second"));
+        Files.setLastModifiedTime(edit, Files.getLastModifiedTime(file));
+        Files.move(edit, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (int i = 0; i < 100 && storage.getReloadCount() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(storage.getReloadCount(), 1);
+        synchronized (tasks) {
+            assertEquals(tasks.getNumberOfMatchingTasks(Task.TaskType.TODO, true), 1);
+        }
+        storage.close();
+    }
+
+    /**
+     * Test to check if saying bye while an outside change is being reloaded closes the storage, instead of
+     * the command holding the task manager while the reload waits for it.
+     */
+    @Test
+    public void closeDuringReloadTest() throws IOException, InterruptedException {
+        Path file = Files.createTempDirectory("duke").resolve("tasks.txt");
+        BlockingReloadStore store = new BlockingReloadStore(file);
+        InputStream in = System.in;
+        Duke duke;
+        try {
+            System.setIn(new ByteArrayInputStream("bye\n".getBytes(StandardCharsets.UTF_8)));
+            duke = new Duke(new Storage(file.toString(), store));
+        } finally {
+            System.setIn(in);
+        }
+        Files.writeString(file, "T | 0 | edited outside");
+        assertTrue(store.entered.await(5, TimeUnit.SECONDS));
+        Thread session = new Thread(duke::run);
+        session.setDaemon(true);
+        session.start();
+        Thread.sleep(200);
+        store.release.countDown();
+        session.join(5000);
+
+        assertFalse(session.isAlive());
+        assertEquals(reload(file).craftTextMessageForFile(), "T | 0 | edited outside");
+    }
+
+    /**
+     * Represents a journal store whose first reload after an outside change waits to be released, so that
+     * a test can act while the reload is in progress.
+     */
+    private static class BlockingReloadStore implements TaskStore {
+
+        /**
+         * Represents the store that does the work.
+         */
+        private final JournalStore store;
+
+        /**
+         * Represents the latch counted down once a reload has started.
+         */
+        private final CountDownLatch entered;
+
+        /**
+         * Represents the latch the reload waits for.
+         */
+        private final CountDownLatch release;
+
+        /**
+         * Creates a store for the given file.
+         */
+        private BlockingReloadStore(Path file) {
+            this.store = new JournalStore(file, TaskFile.Format.TEXT, Storage.DEFAULT_SNAPSHOT_RECORD_THRESHOLD,
+                    Storage.DEFAULT_SNAPSHOT_BYTE_THRESHOLD);
+            this.entered = new CountDownLatch(1);
+            this.release = new CountDownLatch(1);
+        }
+
+        @Override
+        public int load(TaskManager tasks) throws IOException {
+            return store.load(tasks);
+        }
+
+        @Override
+        public void recordAdd(Task task) throws IOException {
+            store.recordAdd(task);
+        }
+
+        @Override
+        public void recordInsert(int location, Task task) throws IOException {
+            store.recordInsert(location, task);
+        }
+
+        @Override
+        public void recordDelete(int location) throws IOException {
+            store.recordDelete(location);
+        }
+
+        @Override
+        public void recordMark(int location, boolean isCompleted) throws IOException {
+            store.recordMark(location, isCompleted);
+        }
+
+        @Override
+        public int reloadIfChanged(TaskManager tasks) throws IOException {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return store.reloadIfChanged(tasks);
+        }
+
+        @Override
+        public void close() throws IOException {
+            store.close();
+        }
+    }
+}
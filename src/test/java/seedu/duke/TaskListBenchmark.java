@@ -0,0 +1,85 @@
+package seedu.duke;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import duke.task.Task;
+import duke.task.TaskList;
+
+/**
+ * Represents a benchmark of the tree-backed task list against an array list, timing appends, lookups and
+ * the deletes and inserts by position that commands make. Run it with the number of tasks as the only
+ * argument.
+ *
+ * @author Khor Jun Wei
+ * @version CS2103T AY22/23 Sem 1
+ */
+public class TaskListBenchmark {
+
+    /**
+     * Represents how many operations of each kind are timed.
+     */
+    private static final int OPERATIONS = 20_000;
+
+    /**
+     * Runs the benchmark.
+     * @param args Number of tasks, defaulting to a million.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<Task> source = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            source.add(StorageBenchmark.createTask(i));
+        }
+        benchmark("ArrayList", ArrayList::new, source);
+        benchmark("TaskList", TaskList::new, source);
+    }
+
+    /**
+     * Times every kind of operation on one kind of list.
+     * @param name Name of the list.
+     * @param factory Creates an empty list.
+     * @param source Tasks to fill the list with.
+     */
+    private static void benchmark(String name, Supplier<List<Task>> factory, List<Task> source) {
+        List<Task> list = factory.get();
+        long start = System.nanoTime();
+        for (Task task : source) {
+            list.add(task);
+        }
+        long appendNanos = System.nanoTime() - start;
+
+        Random random = new Random(42);
+        start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            checksum += list.get(random.nextInt(list.size())).getDescription().length();
+        }
+        long getNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            list.remove(0);
+        }
+        long deleteFrontNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            list.add(random.nextInt(list.size()), source.get(i));
+        }
+        long insertNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Task task : list) {
+            checksum += task.getDescription().length();
+        }
+        long iterateNanos = System.nanoTime() - start;
+
+        System.out.printf("%-9s append %,d %7.1f ms | %,d each: get %7.1f ms, delete 1 %8.1f ms, "
+                + "insert anywhere %8.1f ms | iterate %6.1f ms (%d)%n", name, source.size(), appendNanos / 1e6,
+                OPERATIONS, getNanos / 1e6, deleteFrontNanos / 1e6, insertNanos / 1e6, iterateNanos / 1e6,
+                checksum % 10);
+    }
+}
@@ -6,6 +6,10 @@ if not exist ..\bin mkdir ..\bin
 REM delete output from previous run
 if exist ACTUAL.TXT del ACTUAL.TXT
 
+REM delete tasks saved by the previous run, so that the test starts from an empty list
+if exist data\tasks.txt del data\tasks.txt
+if exist data\tasks.txt.* del data\tasks.txt.*
+
 REM compile the code into the bin folder
 javac  -cp ..\src\main\java -Xlint:none -d ..\bin ..\src\main\java\duke\*.java
 javac  -cp ..\src\main\java -Xlint:none -d ..\bin ..\src\main\java\duke\command\*.java
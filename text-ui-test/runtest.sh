@@ -12,6 +12,9 @@ then
     rm ACTUAL.TXT
 fi
 
+# delete tasks saved by the previous run, so that the test starts from an empty list
+rm -f data/tasks.txt data/tasks.txt.*
+
 # compile the code into the bin folder, terminates if error occurred
 if ! javac -cp ../src/main/java -Xlint:none -d ../bin ../src/main/java/*.java
 then